@@ -63,7 +63,16 @@ const ChatMessages = ({ messages, currentUser, otherUser }) => {
                   rel="noopener noreferrer"
                   style={styles.fileLink}
                 >
-                  📎 {message.fileName || 'Download file'}
+                  {message.thumbnailUrl ? (
+                    <img
+                      src={message.thumbnailUrl}
+                      alt={message.fileName || 'Image'}
+                      loading="lazy"
+                      style={styles.fileThumbnail}
+                    />
+                  ) : (
+                    <>📎 {message.fileName || 'Download file'}</>
+                  )}
                 </a>
               </div>
             )}
@@ -193,6 +202,12 @@ const ChatMessages = ({ messages, currentUser, otherUser }) => {
       textDecoration: 'none',
       fontSize: '14px'
     },
+    fileThumbnail: {
+      display: 'block',
+      maxWidth: '240px',
+      maxHeight: '240px',
+      borderRadius: '6px'
+    },
     locationContainer: {
       marginTop: '8px',
       padding: '8px',
@@ -28,16 +28,19 @@ package com.example.deliveryhub.auth;
 
 import com.example.deliveryhub.model.User;
 import com.example.deliveryhub.repository.UserRepository;
+import com.example.deliveryhub.service.UserCacheService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.core.userdetails.*;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 @RequiredArgsConstructor
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
+    private final UserCacheService userCacheService;
 
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
@@ -56,4 +59,20 @@ public class CustomUserDetailsService implements UserDetailsService {
                 .roles(user.getRole().name())
                 .build();
     }
+
+    // Called by Spring Security after a successful login when the stored hash is weaker
+    // than security.password.bcrypt-strength; newPassword is already encoded
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        User stored = userRepository.findByEmail(user.getUsername())
+            .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + user.getUsername()));
+        stored.setPassword(newPassword);
+        userRepository.save(stored);
+        userCacheService.evict(stored.getEmail());
+
+        return org.springframework.security.core.userdetails.User.withUserDetails(user)
+                .password(newPassword)
+                .build();
+    }
 }
@@ -0,0 +1,76 @@
+package com.example.deliveryhub.auth;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.spec.RSAPublicKeySpec;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// Google's published JWKS (RSA keys only); called by GoogleTokenVerifier off the request path
+@Component
+public class GoogleJwksKeySource implements GoogleKeySource {
+
+    private final URI jwksUri;
+    private final ObjectMapper objectMapper;
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    public GoogleJwksKeySource(@Value("${google.keys.jwks-uri:https://www.googleapis.com/oauth2/v3/certs}") String jwksUri,
+                               ObjectMapper objectMapper) {
+        this.jwksUri = URI.create(jwksUri);
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public Map<String, PublicKey> fetchKeys() throws IOException {
+        HttpRequest request = HttpRequest.newBuilder(jwksUri)
+                .timeout(Duration.ofSeconds(10))
+                .GET()
+                .build();
+        HttpResponse<String> response;
+        try {
+            response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while fetching " + jwksUri, e);
+        }
+        if (response.statusCode() != 200) {
+            throw new IOException("Fetching " + jwksUri + " returned HTTP " + response.statusCode());
+        }
+        return parse(objectMapper.readTree(response.body()));
+    }
+
+    static Map<String, PublicKey> parse(JsonNode jwks) throws IOException {
+        Map<String, PublicKey> keys = new HashMap<>();
+        try {
+            KeyFactory rsa = KeyFactory.getInstance("RSA");
+            for (JsonNode jwk : jwks.path("keys")) {
+                if (!"RSA".equals(jwk.path("kty").asText()) || !jwk.hasNonNull("kid")) {
+                    continue;
+                }
+                BigInteger modulus = new BigInteger(1, Base64.getUrlDecoder().decode(jwk.path("n").asText()));
+                BigInteger exponent = new BigInteger(1, Base64.getUrlDecoder().decode(jwk.path("e").asText()));
+                keys.put(jwk.get("kid").asText(), rsa.generatePublic(new RSAPublicKeySpec(modulus, exponent)));
+            }
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            throw new IOException("Malformed JWKS", e);
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.deliveryhub.auth;
+
+import java.io.IOException;
+import java.security.PublicKey;
+import java.util.Map;
+
+// Where Google's ID-token signing keys come from, by key id ("kid").
+// GoogleJwksKeySource fetches the published JWKS; tests plug in local keys.
+@FunctionalInterface
+public interface GoogleKeySource {
+
+    Map<String, PublicKey> fetchKeys() throws IOException;
+}
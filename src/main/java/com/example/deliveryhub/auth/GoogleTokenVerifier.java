@@ -0,0 +1,135 @@
+package com.example.deliveryhub.auth;
+
+import java.security.Key;
+import java.security.PublicKey;
+import java.util.Date;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.deliveryhub.util.ExpiringCache;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import lombok.extern.slf4j.Slf4j;
+
+// Verifies Google ID tokens locally: RS256 signature against Google's keys held in memory,
+// then audience (google.client.id), issuer and expiry. The key set is refreshed in the
+// background every google.keys.refresh-interval-ms; a request only waits on the network when
+// a token names a key id we haven't seen (Google rotated keys), and at most once per
+// google.keys.min-refresh-interval-ms. Verified tokens are cached until they expire.
+@Component
+@Slf4j
+public class GoogleTokenVerifier {
+
+    private static final Set<String> ISSUERS = Set.of("accounts.google.com", "https://accounts.google.com");
+    // Same tolerance as Google's own verifier
+    private static final long CLOCK_SKEW_SECONDS = 300;
+
+    private final GoogleKeySource keySource;
+    private final long minRefreshIntervalMs;
+    private final LongSupplier clock;
+    private final JwtParser parser;
+    private final ExpiringCache<String, Claims> verifiedTokens;
+    private final Object refreshLock = new Object();
+
+    private volatile Map<String, PublicKey> keys = Map.of();
+    private volatile long lastRefreshAt = Long.MIN_VALUE / 2;
+
+    @Autowired
+    public GoogleTokenVerifier(GoogleKeySource keySource,
+                               @Value("${google.client.id}") String clientId,
+                               @Value("${google.keys.min-refresh-interval-ms:60000}") long minRefreshIntervalMs,
+                               @Value("${google.tokens.cache.max-size:10000}") int cacheMaxSize) {
+        this(keySource, clientId, minRefreshIntervalMs, cacheMaxSize, System::currentTimeMillis);
+    }
+
+    GoogleTokenVerifier(GoogleKeySource keySource, String clientId, long minRefreshIntervalMs,
+                        int cacheMaxSize, LongSupplier clock) {
+        this.keySource = keySource;
+        this.minRefreshIntervalMs = minRefreshIntervalMs;
+        this.clock = clock;
+        this.parser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    @Override
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        return keyFor(header.getKeyId());
+                    }
+                })
+                .requireAudience(clientId)
+                .setAllowedClockSkewSeconds(CLOCK_SKEW_SECONDS)
+                .setClock(() -> new Date(clock.getAsLong()))
+                .build();
+        this.verifiedTokens = new ExpiringCache<>(cacheMaxSize, clock);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        refreshKeys();
+    }
+
+    @Scheduled(fixedDelayString = "${google.keys.refresh-interval-ms:3600000}",
+               initialDelayString = "${google.keys.refresh-interval-ms:3600000}")
+    public void refreshKeys() {
+        try {
+            Map<String, PublicKey> fetched = keySource.fetchKeys();
+            if (!fetched.isEmpty()) {
+                keys = Map.copyOf(fetched);
+            }
+            log.debug("Loaded {} Google signing keys", fetched.size());
+        } catch (Exception e) {
+            // keep the current keys; Google publishes new ones well before retiring old ones
+            log.warn("Could not refresh Google signing keys: {}", e.getMessage());
+        } finally {
+            lastRefreshAt = clock.getAsLong();
+        }
+    }
+
+    // Claims of a valid token; throws JwtException otherwise
+    public Claims verify(String idToken) {
+        Claims cached = verifiedTokens.get(idToken);
+        if (cached != null) {
+            return cached;
+        }
+        Claims claims = parser.parseClaimsJws(idToken).getBody();
+        if (!ISSUERS.contains(claims.getIssuer())) {
+            throw new JwtException("Unexpected issuer: " + claims.getIssuer());
+        }
+        if (claims.getExpiration() == null) {
+            throw new JwtException("Token has no expiry");
+        }
+        verifiedTokens.put(idToken, claims, claims.getExpiration().getTime());
+        return claims;
+    }
+
+    private Key keyFor(String keyId) {
+        if (keyId == null) {
+            throw new JwtException("Token has no key id");
+        }
+        PublicKey key = keys.get(keyId);
+        if (key == null) {
+            synchronized (refreshLock) {
+                key = keys.get(keyId);
+                if (key == null && clock.getAsLong() - lastRefreshAt >= minRefreshIntervalMs) {
+                    refreshKeys();
+                    key = keys.get(keyId);
+                }
+            }
+        }
+        if (key == null) {
+            throw new JwtException("Unknown signing key: " + keyId);
+        }
+        return key;
+    }
+}
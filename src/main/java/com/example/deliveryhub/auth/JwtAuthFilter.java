@@ -4,6 +4,7 @@ import jakarta.servlet.*;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -12,64 +13,76 @@ import org.springframework.stereotype.Component;
 
 import java.io.IOException;
 
+import com.example.deliveryhub.auth.SecurityEventLogger.Channel;
+import com.example.deliveryhub.auth.SecurityEventLogger.Outcome;
+import com.example.deliveryhub.model.User;
+import com.example.deliveryhub.service.UserCacheService;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+
 @Component
 @RequiredArgsConstructor
 public class JwtAuthFilter implements Filter {
 
     private final JwtUtils jwtUtils;
-    private final CustomUserDetailsService userDetailsService;
+    private final UserCacheService userCacheService;
+    private final SecurityEventLogger securityEventLogger;
 
     @Override
     public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
             throws IOException, ServletException {
 
         HttpServletRequest req = (HttpServletRequest) request;
-        String requestPath = req.getRequestURI();
         String header = req.getHeader("Authorization");
-        
-        System.out.println("🔐 Authorization header: " + header + " for path: " + requestPath);
 
+        // Requests without a bearer token (public endpoints) pass through untouched
+        if (header != null && header.startsWith("Bearer ")
+                && SecurityContextHolder.getContext().getAuthentication() == null
+                && !authenticate(req, header.substring(7))) {
+            ((HttpServletResponse) response).sendError(HttpServletResponse.SC_UNAUTHORIZED, "Invalid token");
+            return;
+        }
+
+        chain.doFilter(request, response);
+    }
+
+    private boolean authenticate(HttpServletRequest req, String token) {
         try {
-            if (header != null && header.startsWith("Bearer ")) {
-                String token = header.substring(7);
-                System.out.println("🔑 Extracted token: " + token);
-
-                String email = jwtUtils.getUsernameFromToken(token);
-                System.out.println("📧 Extracted email: " + email);
-
-                if (email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                    UserDetails userDetails = userDetailsService.loadUserByUsername(email);
-                    System.out.println("👤 Loaded user: " + userDetails.getUsername());
-
-                    if (jwtUtils.validateToken(token)) {
-                        UsernamePasswordAuthenticationToken authToken =
-                                new UsernamePasswordAuthenticationToken(
-                                        userDetails, null, userDetails.getAuthorities());
-
-                        authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(req));
-                        SecurityContextHolder.getContext().setAuthentication(authToken);
-                        System.out.println("✅ User authenticated");
-                    } else {
-                        System.out.println("❌ Invalid token");
-                    }
-                }
+            // One verification (or cache hit)
+            Claims claims = jwtUtils.getClaims(token);
+            String email = claims.getSubject();
+            if (email == null) {
+                securityEventLogger.record(Channel.HTTP, Outcome.FAILURE, null,
+                        req.getRequestURI(), req.getRemoteAddr(), "NoSubject");
+                return false;
             }
 
-            chain.doFilter(request, response);
-            
-        } catch (Exception e) {
-            System.out.println("❗ JWT Filter Exception: " + e.getClass().getSimpleName() + " - " + e.getMessage());
-            e.printStackTrace(); // Keep this for debugging
-            
-            // ONLY send error response if there was actually an Authorization header
-            // This lets public endpoints (like registration) work without tokens
-            if (header != null && header.startsWith("Bearer ")) {
-                ((HttpServletResponse) response).sendError(HttpServletResponse.SC_UNAUTHORIZED, "Invalid token");
-                return;
+            // Id and role come from the token; only tokens issued before those claims
+            // existed need the user row (served from the short-lived user cache)
+            UserDetails userDetails = jwtUtils.toPrincipal(claims);
+            if (userDetails == null) {
+                User user = userCacheService.getByEmail(email);
+                userDetails = new JwtUserPrincipal(user.getId(), user.getEmail(), user.getRole());
             }
-            
-            // For requests without auth headers (public endpoints), just continue
-            chain.doFilter(request, response);
+
+            UsernamePasswordAuthenticationToken authToken =
+                    new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+            authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(req));
+            SecurityContextHolder.getContext().setAuthentication(authToken);
+
+            securityEventLogger.record(Channel.HTTP, Outcome.SUCCESS, email,
+                    req.getRequestURI(), req.getRemoteAddr(), null);
+            return true;
+
+        } catch (ExpiredJwtException e) {
+            securityEventLogger.record(Channel.HTTP, Outcome.EXPIRED, e.getClaims().getSubject(),
+                    req.getRequestURI(), req.getRemoteAddr(), null);
+            return false;
+        } catch (RuntimeException e) {
+            securityEventLogger.record(Channel.HTTP, Outcome.FAILURE, null,
+                    req.getRequestURI(), req.getRemoteAddr(), e.getClass().getSimpleName());
+            return false;
         }
     }
-}
\ No newline at end of file
+}
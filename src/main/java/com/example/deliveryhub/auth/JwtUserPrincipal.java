@@ -0,0 +1,31 @@
+package com.example.deliveryhub.auth;
+
+import java.util.List;
+
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import com.example.deliveryhub.model.Role;
+
+// Principal built from the access token's claims, without loading the user row.
+// Extends Spring's User so @AuthenticationPrincipal User parameters keep working;
+// carries the user id so callers that only need it don't query for the entity.
+public class JwtUserPrincipal extends User {
+
+    private final Long userId;
+    private final Role role;
+
+    public JwtUserPrincipal(Long userId, String email, Role role) {
+        super(email, "", List.of(new SimpleGrantedAuthority("ROLE_" + role.name())));
+        this.userId = userId;
+        this.role = role;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public Role getRole() {
+        return role;
+    }
+}
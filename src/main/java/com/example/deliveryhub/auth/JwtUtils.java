@@ -2,85 +2,133 @@ package com.example.deliveryhub.auth;
 
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import com.example.deliveryhub.model.Role;
+import com.example.deliveryhub.model.User;
+import com.example.deliveryhub.util.ExpiringCache;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
 import java.util.Date;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.LongSupplier;
 
+// Signing key and parser are built once; both are immutable and thread-safe.
+// Tokens that verified recently are kept (up to jwt.cache.max-size, never past their exp),
+// so a client sending the same bearer token on every call pays for the HMAC once.
+// Failed verifications are not cached.
 @Component
 public class JwtUtils {
 
-    @Value("${jwt.secret}")
-    private String jwtSecret;
-    
-    @Value("${jwt.expiration}")
-    private long jwtExpirationMs;
-    
-    @Value("${jwt.refresh.expiration}")
-    private long refreshExpirationMs;
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_ROLE = "role";
 
-    public String generateToken(String username) {
-        return Jwts.builder()
-                .setSubject(username)
-                .setIssuedAt(new Date())
-                .setExpiration(new Date(System.currentTimeMillis() + jwtExpirationMs))
-                .signWith(Keys.hmacShaKeyFor(jwtSecret.getBytes()), SignatureAlgorithm.HS256)
-                .compact();
+    private final SecretKey signingKey;
+    private final JwtParser parser;
+    private final long jwtExpirationMs;
+    private final long refreshExpirationMs;
+    private final ExpiringCache<String, Claims> verifiedTokens;
+    private final LongSupplier clock;
+
+    @Autowired
+    public JwtUtils(@Value("${jwt.secret}") String jwtSecret,
+                    @Value("${jwt.expiration}") long jwtExpirationMs,
+                    @Value("${jwt.refresh.expiration}") long refreshExpirationMs,
+                    @Value("${jwt.cache.max-size:10000}") int cacheMaxSize) {
+        this(jwtSecret, jwtExpirationMs, refreshExpirationMs, cacheMaxSize, System::currentTimeMillis);
+    }
+
+    JwtUtils(String jwtSecret, long jwtExpirationMs, long refreshExpirationMs, int cacheMaxSize, LongSupplier clock) {
+        this.signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        this.jwtExpirationMs = jwtExpirationMs;
+        this.refreshExpirationMs = refreshExpirationMs;
+        this.clock = clock;
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .setClock(() -> new Date(clock.getAsLong()))
+                .build();
+        this.verifiedTokens = new ExpiringCache<>(cacheMaxSize, clock);
+    }
+
+    // Access token: carries the user id and role, so requests authenticate from claims alone
+    public String generateToken(User user) {
+        return sign(user.getEmail(), jwtExpirationMs, Map.of(
+                CLAIM_USER_ID, user.getId(),
+                CLAIM_ROLE, user.getRole().name()));
     }
 
     public String generateRefreshToken(String username) {
-        return Jwts.builder()
-                .setSubject(username)
-                .setIssuedAt(new Date())
-                .setExpiration(new Date(System.currentTimeMillis() + refreshExpirationMs))
-                .signWith(Keys.hmacShaKeyFor(jwtSecret.getBytes()), SignatureAlgorithm.HS256)
-                .compact();
+        return sign(username, refreshExpirationMs, Map.of());
     }
 
-    public String getUsernameFromToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(jwtSecret.getBytes())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+    // Verifies signature and expiry in one parse; throws JwtException when the token is not valid
+    public Claims getClaims(String token) {
+        Claims cached = verifiedTokens.get(token);
+        if (cached != null) {
+            return cached;
+        }
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        if (claims.getExpiration() != null) {
+            verifiedTokens.put(token, claims, claims.getExpiration().getTime());
+        }
+        return claims;
     }
 
-    public boolean validateToken(String token) {
+    // Same as getClaims, empty instead of throwing
+    public Optional<Claims> validateAndGetClaims(String token) {
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(jwtSecret.getBytes())
-                    .build()
-                    .parseClaimsJws(token);
-            return true;
+            return Optional.of(getClaims(token));
         } catch (JwtException | IllegalArgumentException e) {
-            return false;
+            return Optional.empty();
         }
     }
 
+    public String getUsernameFromToken(String token) {
+        return getClaims(token).getSubject();
+    }
+
+    public boolean validateToken(String token) {
+        return validateAndGetClaims(token).isPresent();
+    }
+
     public boolean isTokenExpired(String token) {
         try {
-            Claims claims = Jwts.parserBuilder()
-                    .setSigningKey(jwtSecret.getBytes())
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
-            return claims.getExpiration().before(new Date());
+            return getClaims(token).getExpiration().before(new Date(clock.getAsLong()));
         } catch (JwtException e) {
             return true;
         }
     }
 
     public Date getExpirationDateFromToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(jwtSecret.getBytes())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-        return claims.getExpiration();
+        return getClaims(token).getExpiration();
     }
 
     public long getRefreshExpirationMs() {
         return refreshExpirationMs;
     }
-}
\ No newline at end of file
+
+    // Tokens issued before the id/role claims existed return null; callers fall back to the user row
+    public JwtUserPrincipal toPrincipal(Claims claims) {
+        Number userId = claims.get(CLAIM_USER_ID, Number.class);
+        String role = claims.get(CLAIM_ROLE, String.class);
+        if (userId == null || role == null || claims.getSubject() == null) {
+            return null;
+        }
+        return new JwtUserPrincipal(userId.longValue(), claims.getSubject(), Role.valueOf(role));
+    }
+
+    private String sign(String username, long validityMs, Map<String, Object> claims) {
+        long now = clock.getAsLong();
+        return Jwts.builder()
+                .addClaims(claims)
+                .setSubject(username)
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + validityMs))
+                .signWith(signingKey, SignatureAlgorithm.HS256)
+                .compact();
+    }
+}
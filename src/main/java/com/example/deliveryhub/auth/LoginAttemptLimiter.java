@@ -0,0 +1,118 @@
+package com.example.deliveryhub.auth;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.deliveryhub.exception.TooManyLoginAttemptsException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Failed password logins per account and per client IP, in fixed windows of
+// security.login.window-ms. Once either reaches its limit, further attempts are refused
+// before any hashing happens (TooManyLoginAttemptsException, 429) until the window ends.
+// A successful login clears the account's count; the IP count only expires, so one
+// address can't walk through many accounts. security.login.blocked{key} counts refusals.
+@Component
+public class LoginAttemptLimiter {
+
+    private record Window(long startedAt, int failures) {
+    }
+
+    private final Map<String, Window> windows = new ConcurrentHashMap<>();
+    private final int maxAccountFailures;
+    private final int maxIpFailures;
+    private final long windowMs;
+    private final int maxKeys;
+    private final LongSupplier clock;
+
+    private final Counter accountBlocked;
+    private final Counter ipBlocked;
+
+    @Autowired
+    public LoginAttemptLimiter(MeterRegistry meterRegistry,
+                               @Value("${security.login.max-failures-per-account:5}") int maxAccountFailures,
+                               @Value("${security.login.max-failures-per-ip:50}") int maxIpFailures,
+                               @Value("${security.login.window-ms:900000}") long windowMs,
+                               @Value("${security.login.max-keys:100000}") int maxKeys) {
+        this(meterRegistry, maxAccountFailures, maxIpFailures, windowMs, maxKeys, System::currentTimeMillis);
+    }
+
+    LoginAttemptLimiter(MeterRegistry meterRegistry, int maxAccountFailures, int maxIpFailures,
+                        long windowMs, int maxKeys, LongSupplier clock) {
+        this.maxAccountFailures = Math.max(1, maxAccountFailures);
+        this.maxIpFailures = Math.max(1, maxIpFailures);
+        this.windowMs = windowMs;
+        this.maxKeys = Math.max(1, maxKeys);
+        this.clock = clock;
+
+        this.accountBlocked = blocked(meterRegistry, "account");
+        this.ipBlocked = blocked(meterRegistry, "ip");
+    }
+
+    // Throws when the account or address is over its limit
+    public void check(String email, String remoteAddress) {
+        long now = clock.getAsLong();
+        check(accountKey(email), maxAccountFailures, now, accountBlocked);
+        if (remoteAddress != null) {
+            check(ipKey(remoteAddress), maxIpFailures, now, ipBlocked);
+        }
+    }
+
+    public void recordFailure(String email, String remoteAddress) {
+        long now = clock.getAsLong();
+        if (windows.size() >= maxKeys) {
+            windows.values().removeIf(w -> now - w.startedAt() >= windowMs);
+        }
+        increment(accountKey(email), now);
+        if (remoteAddress != null) {
+            increment(ipKey(remoteAddress), now);
+        }
+    }
+
+    public void recordSuccess(String email) {
+        windows.remove(accountKey(email));
+    }
+
+    int size() {
+        return windows.size();
+    }
+
+    private void check(String key, int limit, long now, Counter blockedCounter) {
+        Window window = windows.get(key);
+        if (window == null || now - window.startedAt() >= windowMs || window.failures() < limit) {
+            return;
+        }
+        blockedCounter.increment();
+        long retryAfterMs = window.startedAt() + windowMs - now;
+        throw new TooManyLoginAttemptsException("Too many failed login attempts, please try again later",
+                Math.max(1, (retryAfterMs + 999) / 1000));
+    }
+
+    private void increment(String key, long now) {
+        windows.compute(key, (k, window) -> window == null || now - window.startedAt() >= windowMs
+                ? new Window(now, 1)
+                : new Window(window.startedAt(), window.failures() + 1));
+    }
+
+    private static String accountKey(String email) {
+        return "account:" + (email == null ? "" : email.trim().toLowerCase(Locale.ROOT));
+    }
+
+    private static String ipKey(String remoteAddress) {
+        return "ip:" + remoteAddress;
+    }
+
+    private static Counter blocked(MeterRegistry meterRegistry, String key) {
+        return Counter.builder("security.login.blocked")
+                .description("Login attempts refused by the attempt limiter")
+                .tag("key", key)
+                .register(meterRegistry);
+    }
+}
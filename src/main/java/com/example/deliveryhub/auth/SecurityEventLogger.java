@@ -0,0 +1,166 @@
+package com.example.deliveryhub.auth;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+// Authentication outcomes for the HTTP filter and the WebSocket handshake.
+// Every outcome is counted (security.auth{channel,outcome}); only some are logged:
+// successes are sampled at DEBUG (1 in security.log.success-sample-rate), failures go to INFO, capped at
+// security.log.max-per-second and the rest summarised as "suppressed=N" on the next line.
+// Lines are key=value on the "security" logger, written by a background thread from a
+// bounded queue, so request threads never block on the appender. Tokens are never logged.
+@Component
+@Slf4j(topic = "security")
+public class SecurityEventLogger {
+
+    public enum Channel { HTTP, WEBSOCKET }
+
+    public enum Outcome { SUCCESS, FAILURE, EXPIRED }
+
+    private record Line(Outcome outcome, String text) {
+    }
+
+    private final int successSampleRate;
+    private final int maxPerSecond;
+    private final BlockingQueue<Line> queue;
+    private final Map<Channel, Map<Outcome, Counter>> counters = new EnumMap<>(Channel.class);
+    private final Counter dropped;
+
+    private final AtomicLong currentSecond = new AtomicLong();
+    private final AtomicInteger loggedThisSecond = new AtomicInteger();
+    private final AtomicLong suppressed = new AtomicLong();
+
+    private Thread writer;
+    private volatile boolean running;
+
+    public SecurityEventLogger(MeterRegistry meterRegistry,
+                               @Value("${security.log.success-sample-rate:100}") int successSampleRate,
+                               @Value("${security.log.max-per-second:20}") int maxPerSecond,
+                               @Value("${security.log.queue-capacity:1000}") int queueCapacity) {
+        this.successSampleRate = Math.max(1, successSampleRate);
+        this.maxPerSecond = Math.max(1, maxPerSecond);
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+
+        for (Channel channel : Channel.values()) {
+            Map<Outcome, Counter> byOutcome = new EnumMap<>(Outcome.class);
+            for (Outcome outcome : Outcome.values()) {
+                byOutcome.put(outcome, Counter.builder("security.auth")
+                        .tag("channel", channel.name().toLowerCase())
+                        .tag("outcome", outcome.name().toLowerCase())
+                        .register(meterRegistry));
+            }
+            counters.put(channel, byOutcome);
+        }
+        this.dropped = Counter.builder("security.log.dropped")
+                .description("Security log lines dropped because the writer queue was full")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        writer = new Thread(this::drain, "security-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (writer != null) {
+            writer.join(TimeUnit.SECONDS.toMillis(2));
+        }
+    }
+
+    // subject is the user email when known; reason is a short code, e.g. the exception class
+    public void record(Channel channel, Outcome outcome, String subject, String path, String remoteAddress, String reason) {
+        counters.get(channel).get(outcome).increment();
+
+        // successes are DEBUG and sampled, failures INFO
+        if (outcome == Outcome.SUCCESS
+                ? !log.isDebugEnabled() || ThreadLocalRandom.current().nextInt(successSampleRate) != 0
+                : !log.isInfoEnabled()) {
+            return;
+        }
+        if (!withinRate()) {
+            suppressed.incrementAndGet();
+            return;
+        }
+
+        StringBuilder line = new StringBuilder(128)
+                .append("event=auth channel=").append(channel.name().toLowerCase())
+                .append(" outcome=").append(outcome.name().toLowerCase());
+        append(line, "subject", subject);
+        append(line, "path", path);
+        append(line, "ip", remoteAddress);
+        append(line, "reason", reason);
+        long skipped = suppressed.getAndSet(0);
+        if (skipped > 0) {
+            line.append(" suppressed=").append(skipped);
+        }
+        if (outcome == Outcome.SUCCESS) {
+            line.append(" sampled=1/").append(successSampleRate);
+        }
+
+        if (!queue.offer(new Line(outcome, line.toString()))) {
+            dropped.increment();
+        }
+    }
+
+    private boolean withinRate() {
+        long second = System.currentTimeMillis() / 1000;
+        long current = currentSecond.get();
+        if (second != current && currentSecond.compareAndSet(current, second)) {
+            loggedThisSecond.set(0);
+        }
+        return loggedThisSecond.incrementAndGet() <= maxPerSecond;
+    }
+
+    private void drain() {
+        while (running || !queue.isEmpty()) {
+            try {
+                Line line = queue.poll(200, TimeUnit.MILLISECONDS);
+                if (line == null) {
+                    continue;
+                }
+                if (line.outcome() == Outcome.SUCCESS) {
+                    log.debug(line.text());
+                } else {
+                    log.info(line.text());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    // Values are quoted when needed and stripped of line breaks, so one event is always one line
+    private static void append(StringBuilder line, String key, String value) {
+        if (value == null || value.isEmpty()) {
+            return;
+        }
+        String clean = value.replace('\r', ' ').replace('\n', ' ').replace("\"", "'");
+        line.append(' ').append(key).append('=');
+        if (clean.indexOf(' ') >= 0) {
+            line.append('"').append(clean).append('"');
+        } else {
+            line.append(clean);
+        }
+    }
+}
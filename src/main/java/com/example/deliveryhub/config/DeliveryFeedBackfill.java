@@ -0,0 +1,28 @@
+package com.example.deliveryhub.config;
+
+import java.time.LocalDateTime;
+
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.stereotype.Component;
+
+import com.example.deliveryhub.repository.DeliveryRequestRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+// Gives PENDING deliveries created before requested_at existed a value, so the keyset feed lists them
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DeliveryFeedBackfill implements CommandLineRunner {
+
+    private final DeliveryRequestRepository deliveryRequestRepository;
+
+    @Override
+    public void run(String... args) {
+        int updated = deliveryRequestRepository.backfillPendingRequestedAt(LocalDateTime.now());
+        if (updated > 0) {
+            log.info("Backfilled requested_at on {} pending deliveries", updated);
+        }
+    }
+}
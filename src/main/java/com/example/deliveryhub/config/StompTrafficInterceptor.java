@@ -0,0 +1,124 @@
+package com.example.deliveryhub.config;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+// Per-frame accounting for one STOMP channel ("inbound" or "outbound"):
+// websocket.<direction>.frames counter and websocket.<direction>.handle timer, both tagged by command.
+// Frame tracing is DEBUG only and sampled (1 in sampleRate frames), and never renders payloads.
+@Slf4j
+public class StompTrafficInterceptor implements ExecutorChannelInterceptor {
+
+    private static final String OTHER = "OTHER";
+
+    private final String direction;
+    private final int sampleRate;
+    private final AtomicLong frameSequence = new AtomicLong();
+    private final ThreadLocal<Long> handleStart = new ThreadLocal<>();
+
+    private final Map<StompCommand, Counter> frames = new EnumMap<>(StompCommand.class);
+    private final Map<StompCommand, Timer> handleTimers = new EnumMap<>(StompCommand.class);
+    private final Counter otherFrames;
+    private final Timer otherHandleTimer;
+    private final Counter failedSends;
+
+    public StompTrafficInterceptor(String direction, MeterRegistry meterRegistry, int sampleRate) {
+        this.direction = direction;
+        this.sampleRate = Math.max(1, sampleRate);
+
+        // Meters are resolved once here, so the per-frame path is a map lookup and an increment
+        for (StompCommand command : StompCommand.values()) {
+            frames.put(command, framesCounter(meterRegistry, command.name()));
+            handleTimers.put(command, handleTimer(meterRegistry, command.name()));
+        }
+        this.otherFrames = framesCounter(meterRegistry, OTHER);
+        this.otherHandleTimer = handleTimer(meterRegistry, OTHER);
+        this.failedSends = Counter.builder("websocket." + direction + ".failed")
+                .description("STOMP frames the channel refused to send")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompCommand command = command(message);
+        (command != null ? frames.get(command) : otherFrames).increment();
+
+        if (log.isDebugEnabled() && frameSequence.incrementAndGet() % sampleRate == 0) {
+            StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+            log.debug("STOMP {} {} destination={} session={} bytes={}",
+                    direction,
+                    command,
+                    accessor != null ? accessor.getDestination() : null,
+                    accessor != null ? accessor.getSessionId() : null,
+                    message.getPayload() instanceof byte[] bytes ? bytes.length : -1);
+        }
+        return message;
+    }
+
+    @Override
+    public void postSend(Message<?> message, MessageChannel channel, boolean sent) {
+        if (!sent) {
+            failedSends.increment();
+            log.warn("Failed to send {} STOMP frame: {}", direction, command(message));
+        }
+    }
+
+    @Override
+    public Message<?> beforeHandle(Message<?> message, MessageChannel channel, MessageHandler handler) {
+        handleStart.set(System.nanoTime());
+        return message;
+    }
+
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler, Exception ex) {
+        Long start = handleStart.get();
+        if (start != null) {
+            handleStart.remove();
+            StompCommand command = command(message);
+            (command != null ? handleTimers.get(command) : otherHandleTimer)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // Client frames carry a STOMP accessor; broker/app messages only a SimpMessageType
+    private static StompCommand command(Message<?> message) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor != null && accessor.getCommand() != null) {
+            return accessor.getCommand();
+        }
+        SimpMessageType type = SimpMessageHeaderAccessor.getMessageType(message.getHeaders());
+        if (type == SimpMessageType.MESSAGE) {
+            return StompCommand.MESSAGE;
+        }
+        return type == SimpMessageType.CONNECT_ACK ? StompCommand.CONNECTED : null;
+    }
+
+    private Counter framesCounter(MeterRegistry meterRegistry, String command) {
+        return Counter.builder("websocket." + direction + ".frames")
+                .tag("command", command)
+                .register(meterRegistry);
+    }
+
+    private Timer handleTimer(MeterRegistry meterRegistry, String command) {
+        return Timer.builder("websocket." + direction + ".handle")
+                .tag("command", command)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.deliveryhub.config;
+
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.stereotype.Component;
+
+import com.example.deliveryhub.repository.TransporterStatsRepository;
+import com.example.deliveryhub.service.TransporterStatsService;
+
+import lombok.RequiredArgsConstructor;
+
+// Backfills transporter_stats the first time it is deployed (table created empty by ddl-auto)
+@Component
+@RequiredArgsConstructor
+public class TransporterStatsSeeder implements CommandLineRunner {
+
+    private final TransporterStatsRepository transporterStatsRepository;
+    private final TransporterStatsService transporterStatsService;
+
+    @Override
+    public void run(String... args) {
+        if (transporterStatsRepository.count() == 0) {
+            transporterStatsService.rebuildAll();
+        }
+    }
+}
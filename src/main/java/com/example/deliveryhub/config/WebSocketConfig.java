@@ -64,17 +64,26 @@
 // }
 package com.example.deliveryhub.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
 import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.messaging.simp.config.StompBrokerRelayRegistration;
 import org.springframework.messaging.simp.stomp.StompCommand;
 import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
 import org.springframework.messaging.support.ChannelInterceptor;
 import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.socket.config.annotation.*;
 
+import com.example.deliveryhub.auth.JwtUserPrincipal;
+import com.example.deliveryhub.websocket.WebSocketSessionRegistry;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -85,6 +94,68 @@ import lombok.extern.slf4j.Slf4j;
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     private final WebSocketJwtInterceptor jwtInterceptor;
+    private final MeterRegistry meterRegistry;
+    private final WebSocketSessionRegistry sessionRegistry;
+
+    // "simple" keeps the in-memory broker (single node); "relay" forwards to an external
+    // STOMP broker (RabbitMQ, ActiveMQ, ...) so several app instances share subscriptions
+    @Value("${websocket.broker.mode:simple}")
+    private String brokerMode;
+
+    @Value("${websocket.broker.relay-host:localhost}")
+    private String relayHost;
+
+    @Value("${websocket.broker.relay-port:61613}")
+    private int relayPort;
+
+    @Value("${websocket.broker.client-login:guest}")
+    private String clientLogin;
+
+    @Value("${websocket.broker.client-passcode:guest}")
+    private String clientPasscode;
+
+    @Value("${websocket.broker.system-login:guest}")
+    private String systemLogin;
+
+    @Value("${websocket.broker.system-passcode:guest}")
+    private String systemPasscode;
+
+    @Value("${websocket.broker.virtual-host:}")
+    private String virtualHost;
+
+    // Performance profile: channel executors, per-session send limits and frame tracing
+    @Value("${websocket.inbound.core-pool-size:0}")
+    private int inboundCorePoolSize;
+
+    @Value("${websocket.inbound.max-pool-size:0}")
+    private int inboundMaxPoolSize;
+
+    @Value("${websocket.inbound.queue-capacity:0}")
+    private int inboundQueueCapacity;
+
+    @Value("${websocket.outbound.core-pool-size:0}")
+    private int outboundCorePoolSize;
+
+    @Value("${websocket.outbound.max-pool-size:0}")
+    private int outboundMaxPoolSize;
+
+    @Value("${websocket.outbound.queue-capacity:0}")
+    private int outboundQueueCapacity;
+
+    @Value("${websocket.executor.virtual-threads:false}")
+    private boolean virtualThreads;
+
+    @Value("${websocket.transport.send-time-limit-ms:15000}")
+    private int sendTimeLimitMs;
+
+    @Value("${websocket.transport.send-buffer-size-limit:524288}")
+    private int sendBufferSizeLimit;
+
+    @Value("${websocket.transport.message-size-limit:65536}")
+    private int messageSizeLimit;
+
+    @Value("${websocket.trace.sample-rate:100}")
+    private int traceSampleRate;
 
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
@@ -97,52 +168,91 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     @Override
     public void configureMessageBroker(MessageBrokerRegistry registry) {
         registry.setApplicationDestinationPrefixes("/app");
-        // Enable simple broker for topics, queues, and user-specific destinations
-        registry.enableSimpleBroker("/topic", "/queue", "/user");
         // Set user destination prefix for targeted messaging
         registry.setUserDestinationPrefix("/user");
+
+        if ("relay".equalsIgnoreCase(brokerMode)) {
+            StompBrokerRelayRegistration relay = registry.enableStompBrokerRelay("/topic", "/queue")
+                    .setRelayHost(relayHost)
+                    .setRelayPort(relayPort)
+                    .setClientLogin(clientLogin)
+                    .setClientPasscode(clientPasscode)
+                    .setSystemLogin(systemLogin)
+                    .setSystemPasscode(systemPasscode)
+                    // A user connected to another node: unresolved /user/** sends are broadcast
+                    // and resolved by the node that holds the session
+                    .setUserDestinationBroadcast("/topic/unresolved-user-destination")
+                    .setUserRegistryBroadcast("/topic/simp-user-registry");
+            if (!virtualHost.isBlank()) {
+                relay.setVirtualHost(virtualHost);
+            }
+            log.info("STOMP broker relay enabled: {}:{}", relayHost, relayPort);
+        } else {
+            // Enable simple broker for topics, queues, and user-specific destinations
+            registry.enableSimpleBroker("/topic", "/queue", "/user");
+        }
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        // A slow client is dropped once it falls this far behind instead of buffering without limit
+        registration.setSendTimeLimit(sendTimeLimitMs)
+                    .setSendBufferSizeLimit(sendBufferSizeLimit)
+                    .setMessageSizeLimit(messageSizeLimit);
     }
 
     @Override
     public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor(channelExecutor("ws-inbound-", inboundCorePoolSize, inboundMaxPoolSize, inboundQueueCapacity));
         registration.interceptors(new ChannelInterceptor() {
             @Override
             public Message<?> preSend(Message<?> message, MessageChannel channel) {
                 StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
-                
-                if (accessor != null) {
-                    log.info("STOMP Command: {}", accessor.getCommand());
-                    
-                    if (StompCommand.CONNECT.equals(accessor.getCommand())) {
-                        log.info("STOMP CONNECT received");
-                        Object userObj = accessor.getSessionAttributes().get("user");
-                        if (userObj instanceof com.example.deliveryhub.model.User) {
-                            com.example.deliveryhub.model.User user = (com.example.deliveryhub.model.User) userObj;
-                            accessor.setUser(() -> user.getEmail());
-                            log.info("Set user principal: {}", user.getEmail());
-                        } else {
-                            log.warn("No user found in session attributes");
+
+                if (accessor != null && StompCommand.CONNECT.equals(accessor.getCommand())) {
+                    Object userObj = accessor.getSessionAttributes().get(WebSocketJwtInterceptor.USER_ATTRIBUTE);
+                    if (userObj instanceof JwtUserPrincipal user) {
+                        String email = user.getUsername();
+                        if (!sessionRegistry.tryConnect(accessor.getSessionId(), user.getUserId(), email)) {
+                            log.warn("Rejected STOMP CONNECT for {}: {} sessions already open",
+                                    email, sessionRegistry.getMaxSessionsPerUser());
+                            throw new MessageDeliveryException(message, "Too many open connections for this user");
                         }
-                    } else if (StompCommand.DISCONNECT.equals(accessor.getCommand())) {
-                        log.info("STOMP DISCONNECT received");
-                    } else if (StompCommand.SUBSCRIBE.equals(accessor.getCommand())) {
-                        log.info("STOMP SUBSCRIBE to: {}", accessor.getDestination());
-                    } else if (StompCommand.SEND.equals(accessor.getCommand())) {
-                        log.info("STOMP SEND to: {}", accessor.getDestination());
-                        log.info("SEND payload size: {}", message.getPayload().toString().length());
+                        accessor.setUser(() -> email);
+                        log.debug("Set user principal: {}", email);
+                    } else {
+                        log.warn("No user found in session attributes");
                     }
                 }
-                
+
                 return message;
             }
-            
-            @Override
-            public void postSend(Message<?> message, MessageChannel channel, boolean sent) {
-                StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
-                if (accessor != null && !sent) {
-                    log.error("Failed to send STOMP message: {}", accessor.getCommand());
-                }
-            }
-        });
+        }, new StompTrafficInterceptor("inbound", meterRegistry, traceSampleRate));
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor(channelExecutor("ws-outbound-", outboundCorePoolSize, outboundMaxPoolSize, outboundQueueCapacity));
+        registration.interceptors(new StompTrafficInterceptor("outbound", meterRegistry, traceSampleRate));
+    }
+
+    // Pool sizes of 0 keep Spring's defaults; virtual threads need a Java 21+ runtime
+    private ThreadPoolTaskExecutor channelExecutor(String prefix, int corePoolSize, int maxPoolSize, int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix(prefix);
+        if (corePoolSize > 0) {
+            executor.setCorePoolSize(corePoolSize);
+        } else {
+            executor.setCorePoolSize(Runtime.getRuntime().availableProcessors() * 2);
+        }
+        if (maxPoolSize > 0) {
+            executor.setMaxPoolSize(maxPoolSize);
+        }
+        if (queueCapacity > 0) {
+            executor.setQueueCapacity(queueCapacity);
+        }
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setVirtualThreads(virtualThreads);
+        return executor;
     }
-}
\ No newline at end of file
+}
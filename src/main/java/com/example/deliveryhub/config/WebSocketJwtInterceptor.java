@@ -1,9 +1,18 @@
 package com.example.deliveryhub.config;
 
+import com.example.deliveryhub.auth.JwtUserPrincipal;
 import com.example.deliveryhub.auth.JwtUtils;
+import com.example.deliveryhub.auth.SecurityEventLogger;
+import com.example.deliveryhub.auth.SecurityEventLogger.Channel;
+import com.example.deliveryhub.auth.SecurityEventLogger.Outcome;
 import com.example.deliveryhub.model.User;
-import com.example.deliveryhub.repository.UserRepository;
+import com.example.deliveryhub.service.UserCacheService;
+import com.example.deliveryhub.websocket.HandshakeRateLimiter;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.server.ServerHttpRequest;
 import org.springframework.http.server.ServerHttpResponse;
 import org.springframework.stereotype.Component;
@@ -13,13 +22,24 @@ import java.util.Map;
 import java.util.Optional;
 
 
-
+// Authenticates the SockJS/WebSocket handshake from ?token=<access token>.
+// Nothing here touches the database for current tokens: the JWT is verified with the
+// shared parser (and its verified-token cache) and the identity comes from its claims;
+// only tokens issued without id/role claims fall back to the user cache.
+// The session keeps a JwtUserPrincipal under USER_ATTRIBUTE, not the User entity.
+// Handshakes are rate limited per IP (before verification) and per user (after).
+// The IP is the request's remote address: behind a proxy that is the proxy's own address unless
+// server.forward-headers-strategy is set, so every client would share one bucket.
 @Component
 @RequiredArgsConstructor
 public class WebSocketJwtInterceptor implements HandshakeInterceptor {
 
-     private final JwtUtils jwtUtils;
-     private final UserRepository userRepository;
+    public static final String USER_ATTRIBUTE = "user";
+
+    private final JwtUtils jwtUtils;
+    private final UserCacheService userCacheService;
+    private final SecurityEventLogger securityEventLogger;
+    private final HandshakeRateLimiter handshakeRateLimiter;
 
     @Override
     public boolean beforeHandshake(
@@ -28,76 +48,80 @@ public class WebSocketJwtInterceptor implements HandshakeInterceptor {
             WebSocketHandler wsHandler,
             Map<String, Object> attributes
     ) {
-        //=========> start paste
-                try {
-            // Get the full query string
-            String query = request.getURI().getQuery();
-            if (query == null || query.isEmpty()) {
-                System.out.println("No query parameters found");
-                return false;
-            }
+        String path = request.getURI().getPath();
+        String remoteAddress = request.getRemoteAddress() != null
+                ? request.getRemoteAddress().getHostString()
+                : null;
+
+        if (!handshakeRateLimiter.tryAcquireForIp(remoteAddress)) {
+            securityEventLogger.record(Channel.WEBSOCKET, Outcome.FAILURE, null, path, remoteAddress, "RateLimited");
+            response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+            return false;
+        }
 
-            // Extract token from query parameters
-            String token = null;
-            String[] params = query.split("&");
-            for (String param : params) {
-                if (param.startsWith("token=")) {
-                    token = param.substring("token=".length());
-                    break;
-                }
+        try {
+            String token = tokenFrom(request.getURI().getRawQuery());
+            if (token == null) {
+                securityEventLogger.record(Channel.WEBSOCKET, Outcome.FAILURE, null, path, remoteAddress, "NoToken");
+                return false;
             }
 
-            if (token == null || token.isEmpty()) {
-                System.out.println("No token found in query parameters");
+            // Validate token and extract user email in one parse (or cache hit)
+            Claims claims = jwtUtils.getClaims(token);
+            String userEmail = claims.getSubject();
+            if (userEmail == null) {
+                securityEventLogger.record(Channel.WEBSOCKET, Outcome.FAILURE, null, path, remoteAddress, "NoSubject");
                 return false;
             }
 
-            // Validate token
-            if (!jwtUtils.validateToken(token)) {
-                System.out.println("Invalid token");
+            if (!handshakeRateLimiter.tryAcquireForUser(userEmail)) {
+                securityEventLogger.record(Channel.WEBSOCKET, Outcome.FAILURE, userEmail, path, remoteAddress, "RateLimited");
+                response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
                 return false;
             }
 
-            // Extract user email from token
-            String userEmail = jwtUtils.getUsernameFromToken(token);
-            Optional<User> userOpt = userRepository.findByEmail(userEmail);
-
-            if (userOpt.isEmpty()) {
-                System.out.println("User not found for email: " + userEmail);
-                return false;
+            JwtUserPrincipal principal = jwtUtils.toPrincipal(claims);
+            if (principal == null) {
+                Optional<User> userOpt = userCacheService.findByEmail(userEmail);
+                if (userOpt.isEmpty()) {
+                    securityEventLogger.record(Channel.WEBSOCKET, Outcome.FAILURE, userEmail, path, remoteAddress, "UnknownUser");
+                    return false;
+                }
+                User user = userOpt.get();
+                principal = new JwtUserPrincipal(user.getId(), user.getEmail(), user.getRole());
             }
 
-            // Store user in attributes for later use
-            attributes.put("user", userOpt.get());
-            System.out.println("WebSocket handshake successful for user: " + userEmail);
+            // Store the principal in attributes for the CONNECT interceptor
+            attributes.put(USER_ATTRIBUTE, principal);
+            securityEventLogger.record(Channel.WEBSOCKET, Outcome.SUCCESS, userEmail, path, remoteAddress, null);
             return true;
 
+        } catch (ExpiredJwtException e) {
+            securityEventLogger.record(Channel.WEBSOCKET, Outcome.EXPIRED, e.getClaims().getSubject(), path, remoteAddress, null);
+            return false;
         } catch (Exception e) {
-            System.err.println("Error in WebSocket handshake: " + e.getMessage());
-            e.printStackTrace();
+            securityEventLogger.record(Channel.WEBSOCKET, Outcome.FAILURE, null, path, remoteAddress, e.getClass().getSimpleName());
             return false;
         }
-        //<===== end of paste
-        // try {
-        //     // Extract token from query string: ws://.../ws?token=xxx
-        //     String query = request.getURI().getQuery(); // token=xxx
-        //     if (query == null || !query.startsWith("token="))
-        //      return false;
-
-        //     String token = query.substring("token=".length());
-        //     String userEmail = jwtUtils.getUsernameFromToken(token);
-        //     Optional<User> userOpt = userRepository.findByEmail(userEmail);
-
-        //     if (userOpt.isEmpty() || !jwtUtils.validateToken(token)) {
-        //         return false;
-        //     }
-
-        //     attributes.put("user", userOpt.get());
-        //     return true;
-
-        // } catch (Exception e) {
-        //     return false;
-        // }
+    }
+
+    // Value of the first token= parameter; JWTs are URL-safe, so no decoding is needed
+    static String tokenFrom(String query) {
+        if (query == null) {
+            return null;
+        }
+        int from = 0;
+        while (from < query.length()) {
+            int end = query.indexOf('&', from);
+            if (end < 0) {
+                end = query.length();
+            }
+            if (query.startsWith("token=", from)) {
+                return end > from + 6 ? query.substring(from + 6, end) : null;
+            }
+            from = end + 1;
+        }
+        return null;
     }
 
     @Override
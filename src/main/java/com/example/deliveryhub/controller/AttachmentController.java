@@ -0,0 +1,212 @@
+package com.example.deliveryhub.controller;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.example.deliveryhub.dto.AttachmentDTO;
+import com.example.deliveryhub.enums.ImageVariant;
+import com.example.deliveryhub.service.AttachmentStore;
+import com.example.deliveryhub.service.ImageVariantService;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+
+// Upload and download of chat attachments.
+// Uploads are streamed into AttachmentStore (raw body, or one multipart part).
+// Downloads are keyed by content hash, so they are immutable: strong ETag, long-lived
+// Cache-Control and single-range requests, with the body handed to Tomcat's sendfile when
+// the connector supports it and FileChannel.transferTo otherwise.
+// Files are served from the app's own origin without auth, and their type comes from the
+// uploader's file name, so only raster images are served inline; everything else goes out as an
+// octet-stream download, and nosniff stops browsers from guessing their way back to html.
+// Image uploads are handed to ImageVariantService; the variants are served at /{key}/thumb and /{key}/web.
+@RestController
+@RequestMapping("/api/chat/attachments")
+@RequiredArgsConstructor
+public class AttachmentController {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private static final CacheControl IMMUTABLE = CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable();
+
+    private final AttachmentStore attachmentStore;
+    private final ImageVariantService imageVariantService;
+
+    // Raw body upload: the request stream goes straight to disk, nothing is buffered
+    @PostMapping(consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<AttachmentDTO> upload(
+            @RequestParam(value = "fileName", required = false) String fileName,
+            HttpServletRequest request
+    ) throws IOException {
+        AttachmentDTO stored = attachmentStore.store(request.getInputStream(), fileName);
+        imageVariantService.schedule(stored.getKey());
+        return ResponseEntity.status(HttpStatus.CREATED).body(stored);
+    }
+
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<AttachmentDTO> uploadMultipart(@RequestParam("file") MultipartFile file) throws IOException {
+        AttachmentDTO stored = attachmentStore.store(file.getInputStream(), file.getOriginalFilename());
+        imageVariantService.schedule(stored.getKey());
+        return ResponseEntity.status(HttpStatus.CREATED).body(stored);
+    }
+
+    @GetMapping("/{key:.+}")
+    public void download(
+            @PathVariable String key,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String rangeHeader,
+            @RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRange,
+            HttpServletRequest request,
+            HttpServletResponse response
+    ) throws IOException {
+        Path path = attachmentStore.find(key).orElse(null);
+        if (path == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        String contentType = MediaType.APPLICATION_OCTET_STREAM_VALUE;
+        if (attachmentStore.servesInline(key)) {
+            contentType = attachmentStore.contentType(key).toString();
+        } else {
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(key).build().toString());
+        }
+        serve(path, "\"" + key + "\"", contentType, ifNoneMatch, rangeHeader, ifRange, request, response);
+    }
+
+    // Thumbnail / web-sized copy of an image attachment. Until the pipeline has produced it
+    // the client is redirected (uncached) to the original, and generation is queued.
+    @GetMapping("/{key:.+}/{variant}")
+    public void downloadVariant(
+            @PathVariable String key,
+            @PathVariable("variant") String variantPath,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String rangeHeader,
+            @RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRange,
+            HttpServletRequest request,
+            HttpServletResponse response
+    ) throws IOException {
+        ImageVariant variant = ImageVariant.fromPath(variantPath);
+        if (variant == null || !ImageVariant.isImageKey(key) || attachmentStore.find(key).isEmpty()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        Path path = attachmentStore.findVariant(key, variant).orElse(null);
+        if (path == null) {
+            imageVariantService.schedule(key);
+            response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noStore().getHeaderValue());
+            response.sendRedirect(ImageVariant.ATTACHMENT_URL_PREFIX + key);
+            return;
+        }
+        serve(path, "\"" + key + "-" + variant.getPath() + "\"", MediaType.IMAGE_JPEG_VALUE,
+                ifNoneMatch, rangeHeader, ifRange, request, response);
+    }
+
+    private void serve(Path path, String etag, String contentType,
+                       String ifNoneMatch, String rangeHeader, String ifRange,
+                       HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader("X-Content-Type-Options", "nosniff");
+        response.setHeader(HttpHeaders.CACHE_CONTROL, IMMUTABLE.getHeaderValue());
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        if (ifNoneMatch != null && (ifNoneMatch.contains(etag) || ifNoneMatch.trim().equals("*"))) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        long size = path.toFile().length();
+        long start = 0;
+        long end = size - 1;
+
+        // A stale If-Range means "send the whole thing". Only one range is served, so a Range
+        // header that doesn't parse or asks for several gets the whole file too (RFC 9110 lets
+        // a server ignore Range); 416 is only for a single range that lies beyond the file.
+        List<HttpRange> ranges = rangeHeader != null && (ifRange == null || ifRange.equals(etag))
+                ? parseRanges(rangeHeader)
+                : List.of();
+        if (ranges.size() == 1) {
+            if (size == 0 || !satisfiable(ranges.get(0), size)) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            start = ranges.get(0).getRangeStart(size);
+            end = ranges.get(0).getRangeEnd(size);
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+        }
+
+        long length = end - start + 1;
+        response.setContentType(contentType);
+        response.setContentLengthLong(length);
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, path.toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+        transfer(path, start, length, response.getOutputStream());
+    }
+
+    private static List<HttpRange> parseRanges(String rangeHeader) {
+        try {
+            return HttpRange.parseRanges(rangeHeader);
+        } catch (IllegalArgumentException e) {
+            return List.of();
+        }
+    }
+
+    private static boolean satisfiable(HttpRange range, long size) {
+        try {
+            range.getRangeStart(size);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static void transfer(Path path, long start, long length, OutputStream out) throws IOException {
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(out);
+            long position = start;
+            long remaining = length;
+            while (remaining > 0) {
+                long sent = file.transferTo(position, remaining, target);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+}
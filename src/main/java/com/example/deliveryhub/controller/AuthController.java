@@ -1,25 +1,36 @@
 package com.example.deliveryhub.controller;
 
 import com.example.deliveryhub.auth.JwtUtils;
+import com.example.deliveryhub.auth.LoginAttemptLimiter;
+import com.example.deliveryhub.auth.SecurityEventLogger;
+import com.example.deliveryhub.auth.SecurityEventLogger.Channel;
+import com.example.deliveryhub.auth.SecurityEventLogger.Outcome;
 import com.example.deliveryhub.dto.*;
-import com.example.deliveryhub.model.RefreshToken;
+import com.example.deliveryhub.exception.PasswordHashingBusyException;
+import com.example.deliveryhub.exception.TooManyLoginAttemptsException;
 import com.example.deliveryhub.model.Role;
 import com.example.deliveryhub.model.User;
 import com.example.deliveryhub.repository.UserRepository;
 import com.example.deliveryhub.service.RefreshTokenService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 
 import java.util.Optional;
 
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.*;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
+import com.example.deliveryhub.service.DashboardCounterService;
 import com.example.deliveryhub.service.GoogleOAuthService;
 
+@Slf4j
 @RestController
 @RequestMapping("/api/auth")
 @RequiredArgsConstructor
@@ -30,26 +41,34 @@ public class AuthController {
     private final UserRepository userRepository;
     private final RefreshTokenService refreshTokenService;
     private final GoogleOAuthService googleOAuthService;
+    private final DashboardCounterService dashboardCounterService;
+    private final LoginAttemptLimiter loginAttemptLimiter;
+    private final SecurityEventLogger securityEventLogger;
 
     @PostMapping("/login")
-    public ResponseEntity<?> authenticateUser(@Valid @RequestBody LoginDTO dto) {
+    public ResponseEntity<?> authenticateUser(@Valid @RequestBody LoginDTO dto, HttpServletRequest httpRequest) {
+        String remoteAddress = httpRequest.getRemoteAddr();
         try {
+            // Refused before any password hashing when the account or address keeps failing
+            loginAttemptLimiter.check(dto.getEmail(), remoteAddress);
+
             Authentication auth = authManager.authenticate(
                     new UsernamePasswordAuthenticationToken(dto.getEmail(), dto.getPassword()));
             SecurityContextHolder.getContext().setAuthentication(auth);
+            loginAttemptLimiter.recordSuccess(dto.getEmail());
 
             User user = userRepository.findByEmail(dto.getEmail())
                     .orElseThrow(() -> new RuntimeException("User not found"));
 
             // Generate access token
-            String accessToken = jwtUtils.generateToken(dto.getEmail());
+            String accessToken = jwtUtils.generateToken(user);
 
             // Generate refresh token
-            RefreshToken refreshToken = refreshTokenService.createRefreshToken(dto.getEmail());
+            String refreshToken = refreshTokenService.createRefreshToken(user);
 
             JwtResponse response = JwtResponse.builder()
                     .accessToken(accessToken)
-                    .refreshToken(refreshToken.getToken())
+                    .refreshToken(refreshToken)
                     .tokenType("Bearer")
                     .email(user.getEmail())
                     .role(user.getRole().name())
@@ -58,32 +77,37 @@ public class AuthController {
 
             return ResponseEntity.ok(response);
 
+        } catch (TooManyLoginAttemptsException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body(e.getMessage());
+        } catch (PasswordHashingBusyException e) {
+            return hashingBusy(e);
+        } catch (InternalAuthenticationServiceException e) {
+            // Unknown emails still hash a dummy password inside retrieveUser, which wraps the busy error
+            if (e.getCause() instanceof PasswordHashingBusyException busy) {
+                return hashingBusy(busy);
+            }
+            return ResponseEntity.badRequest().body("Authentication failed: " + e.getMessage());
         } catch (BadCredentialsException e) {
+            loginAttemptLimiter.recordFailure(dto.getEmail(), remoteAddress);
             return ResponseEntity.badRequest().body("Invalid email or password");
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Authentication failed: " + e.getMessage());
         }
     }
 
+    static ResponseEntity<String> hashingBusy(PasswordHashingBusyException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(e.getMessage());
+    }
+
     @PostMapping("/refresh")
     public ResponseEntity<?> refreshToken(@Valid @RequestBody RefreshTokenRequest request) {
         try {
-            String newAccessToken = refreshTokenService.generateNewAccessToken(request.getRefreshToken());
-
-            // Get user info for response
-            String email = jwtUtils.getUsernameFromToken(newAccessToken);
-            User user = userRepository.findByEmail(email)
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-
-            JwtResponse response = JwtResponse.builder()
-                    .accessToken(newAccessToken)
-                    .refreshToken(request.getRefreshToken()) // Keep the same refresh token
-                    .tokenType("Bearer")
-                    .email(user.getEmail())
-                    .role(user.getRole().toString())
-                    .expiresIn(3600L) // 1 hour in seconds
-                    .build();
-
+            // Rotation: the response carries a new refresh token, the presented one is retired
+            JwtResponse response = refreshTokenService.refresh(request.getRefreshToken());
             return ResponseEntity.ok(response);
 
         } catch (RuntimeException e) {
@@ -166,13 +190,13 @@ public class AuthController {
             User user = existingUser.get();
 
             // Generate JWT tokens
-            String accessToken = jwtUtils.generateToken(user.getEmail());
-            RefreshToken refreshToken = refreshTokenService.createRefreshToken(user.getEmail());
+            String accessToken = jwtUtils.generateToken(user);
+            String refreshToken = refreshTokenService.createRefreshToken(user);
 
             // Return response in same format as regular login
             JwtResponse response = JwtResponse.builder()
                     .accessToken(accessToken)
-                    .refreshToken(refreshToken.getToken())
+                    .refreshToken(refreshToken)
                     .tokenType("Bearer")
                     .email(user.getEmail())
                     .role(user.getRole().name())
@@ -236,15 +260,16 @@ public class AuthController {
 
             // Save user
             User savedUser = userRepository.save(newUser);
+            dashboardCounterService.userCreated(savedUser.getRole());
 
             // Generate JWT tokens
-            String accessToken = jwtUtils.generateToken(savedUser.getEmail());
-            RefreshToken refreshToken = refreshTokenService.createRefreshToken(savedUser.getEmail());
+            String accessToken = jwtUtils.generateToken(savedUser);
+            String refreshToken = refreshTokenService.createRefreshToken(savedUser);
 
             // Return response
             JwtResponse response = JwtResponse.builder()
                     .accessToken(accessToken)
-                    .refreshToken(refreshToken.getToken())
+                    .refreshToken(refreshToken)
                     .tokenType("Bearer")
                     .email(savedUser.getEmail())
                     .role(savedUser.getRole().name())
@@ -264,9 +289,7 @@ public class AuthController {
      * POST /api/auth/google-auth
      */
     @PostMapping("/google-auth")
-    public ResponseEntity<?> googleAuth(@Valid @RequestBody GoogleRegisterRequest request) {
-        System.out.println("🔍 Google auth request received");
-        System.out.println("🔍 Role from frontend: " + request.getRole());
+    public ResponseEntity<?> googleAuth(@Valid @RequestBody GoogleRegisterRequest request, HttpServletRequest httpRequest) {
         try {
             // Verify Google token and get user info
             GoogleUserDTO googleUser = googleOAuthService.verifyGoogleToken(request.getCredential());
@@ -279,12 +302,10 @@ public class AuthController {
             if (existingUser.isPresent()) {
                 // User exists - sign them in
                 user = existingUser.get();
-                System.out.println("🔍 EXISTING user found with role: " + user.getRole());
 
                 // Optional: Log if user tried to register with different role
                 if (request.getRole() != null && !request.getRole().equalsIgnoreCase(user.getRole().name())) {
-                    System.out.println("⚠️ User tried to register as " + request.getRole() + " but already exists as "
-                            + user.getRole().name());
+                    log.debug("Google sign-in asked for role {} but the account is {}", request.getRole(), user.getRole());
                 }
 
             } else {
@@ -296,14 +317,11 @@ public class AuthController {
                 if (request.getRole() != null) {
                     try {
                         userRole = Role.valueOf(request.getRole().toUpperCase());
-                        System.out.println("🔍 Successfully parsed role: " + userRole);
                     } catch (IllegalArgumentException e) {
-                        System.out.println("❌ Failed to parse role: " + request.getRole());
-
+                        log.debug("Unknown role {} in Google registration, using CUSTOMER", request.getRole());
                         userRole = Role.CUSTOMER;
                     }
                 }
-                System.out.println("🔍 Creating user with role: " + userRole);
                 // Generate full name
                 String fullName = request.getFullName();
                 if (fullName == null || fullName.trim().isEmpty()) {
@@ -322,28 +340,32 @@ public class AuthController {
                         .build();
 
                 user = userRepository.save(user);
-                System.out.println("🔍 User created successfully with role: " + user.getRole());
+                dashboardCounterService.userCreated(user.getRole());
+                log.debug("Created {} account from Google sign-in", user.getRole());
             }
 
             // Generate JWT tokens
-            String accessToken = jwtUtils.generateToken(user.getEmail());
-            RefreshToken refreshToken = refreshTokenService.createRefreshToken(user.getEmail());
+            String accessToken = jwtUtils.generateToken(user);
+            String refreshToken = refreshTokenService.createRefreshToken(user);
 
             // Return response
             JwtResponse response = JwtResponse.builder()
                     .accessToken(accessToken)
-                    .refreshToken(refreshToken.getToken())
+                    .refreshToken(refreshToken)
                     .tokenType("Bearer")
                     .email(user.getEmail())
                     .role(user.getRole().name())
                     .expiresIn(3600L)
                     .build();
 
+            securityEventLogger.record(Channel.HTTP, Outcome.SUCCESS, user.getEmail(),
+                    httpRequest.getRequestURI(), httpRequest.getRemoteAddr(), "GoogleAuth");
             return ResponseEntity.ok(response);
 
         } catch (Exception e) {
-            System.err.println("❌ Google auth error: " + e.getMessage());
-            e.printStackTrace();
+            securityEventLogger.record(Channel.HTTP, Outcome.FAILURE, null,
+                    httpRequest.getRequestURI(), httpRequest.getRemoteAddr(), e.getClass().getSimpleName());
+            log.debug("Google auth failed", e);
             return ResponseEntity.badRequest()
                     .body("Google authentication failed: " + e.getMessage());
         }
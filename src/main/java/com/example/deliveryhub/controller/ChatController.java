@@ -1,24 +1,22 @@
 package com.example.deliveryhub.controller;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.security.Principal;
 import java.util.List;
-import java.util.UUID;
 
-import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import com.example.deliveryhub.dto.AttachmentDTO;
 import com.example.deliveryhub.dto.ChatMessageDTO;
+import com.example.deliveryhub.dto.ChatMessagePageDTO;
 import com.example.deliveryhub.model.Role;
+import com.example.deliveryhub.service.AttachmentStore;
 import com.example.deliveryhub.service.ChatService;
+import com.example.deliveryhub.service.ImageVariantService;
 
 import lombok.RequiredArgsConstructor;
 
@@ -28,6 +26,8 @@ import lombok.RequiredArgsConstructor;
 public class ChatController {
 
     private final ChatService chatService;
+    private final AttachmentStore attachmentStore;
+    private final ImageVariantService imageVariantService;
 
     @PostMapping("/send")
     public ResponseEntity<ChatMessageDTO> sendMessage(
@@ -49,6 +49,17 @@ public class ChatController {
          return ResponseEntity.ok(messages);
       }
 
+    // Older/newer windows of the same history, e.g. ?before=<first id> when scrolling up
+    @GetMapping("/delivery/{deliveryId}/messages/page")
+    public ResponseEntity<ChatMessagePageDTO> getMessagePage(
+            @PathVariable Long deliveryId,
+            @RequestParam(required = false) Long before,
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "50") int size
+    ) {
+        return ResponseEntity.ok(chatService.getMessagePage(deliveryId, before, after, size));
+    }
+
     @PostMapping("/delivery/{deliveryId}/mark-all-read")
     public ResponseEntity<Void> markAllAsRead(
               @PathVariable Long deliveryId,
@@ -83,27 +94,11 @@ public class ChatController {
     }
 
 
+    // Kept for older clients; new uploads land in the content-addressed AttachmentStore
     @PostMapping("/upload")
-    public ResponseEntity<String> uploadFile(@RequestParam("file") MultipartFile file) {
-        try {
-            String uploadDir = "uploads/chat/";
-            Path uploadPath = Paths.get(uploadDir);
-
-            if (!Files.exists(uploadPath)) {
-                Files.createDirectories(uploadPath);
-            }
-
-            String fileName = UUID.randomUUID() + "_" + file.getOriginalFilename();
-            Path filePath = uploadPath.resolve(fileName);
-
-            Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
-
-            String fileUrl = "/uploads/chat/" + fileName;
-            return ResponseEntity.ok(fileUrl);
-
-        } catch (IOException e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                                .body("File upload failed: " + e.getMessage());
-        }
+    public ResponseEntity<String> uploadFile(@RequestParam("file") MultipartFile file) throws IOException {
+        AttachmentDTO stored = attachmentStore.store(file.getInputStream(), file.getOriginalFilename());
+        imageVariantService.schedule(stored.getKey());
+        return ResponseEntity.ok(stored.getUrl());
     }
 }
@@ -3,10 +3,12 @@ package com.example.deliveryhub.controller;
 import com.example.deliveryhub.dto.CancelDeliveryRequest;
 import com.example.deliveryhub.dto.DeclineRequestDTO;
 import com.example.deliveryhub.dto.DeliveryApplicationDTO;
+import com.example.deliveryhub.dto.DeliveryFeedPageDTO;
 import com.example.deliveryhub.dto.DeliveryRequestDTO;
 import com.example.deliveryhub.dto.DeliveryResponseDTO;
 import com.example.deliveryhub.dto.DeliveryStatusUpdateDTO;
 import com.example.deliveryhub.dto.RatingDTO;
+import com.example.deliveryhub.exception.DeliveryConflictException;
 import com.example.deliveryhub.model.DeliveryRequest;
 import com.example.deliveryhub.model.Rating;
 import com.example.deliveryhub.model.Role;
@@ -16,9 +18,13 @@ import com.example.deliveryhub.service.RatingService;
 import com.example.deliveryhub.util.SecurityUtils;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -53,6 +59,24 @@ public class DeliveryController {
         return ResponseEntity.ok(deliveryService.getAvailableRequestsForTransporters());
     }
 
+    // Keyset-paginated feed: pass nextRequestedAt / nextId of the previous page as afterRequestedAt / afterId
+    @GetMapping("/available/feed")
+    public ResponseEntity<DeliveryFeedPageDTO> getAvailableFeed(
+            @RequestParam(required = false) String pickupCity,
+            @RequestParam(required = false) String dropoffCity,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate,
+            @RequestParam(required = false) Double maxWeight,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime afterRequestedAt,
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(defaultValue = "20") int size) {
+        User user = securityUtils.getCurrentUser();
+        securityUtils.assertRole(user, Role.TRANSPORTER);
+        securityUtils.assertVerified(user);
+        return ResponseEntity.ok(deliveryService.getAvailableFeed(
+                pickupCity, dropoffCity, fromDate, toDate, maxWeight, afterRequestedAt, afterId, size));
+    }
+
     @PostMapping("/{id}/accept")
     public ResponseEntity<DeliveryResponseDTO> acceptRequest(@PathVariable Long id) {
         User user = securityUtils.getCurrentUser();
@@ -70,6 +94,8 @@ public class DeliveryController {
         try {
             DeliveryRequest delivery = deliveryService.acceptDeliveryRequest(deliveryId, transporter.getId());
             return ResponseEntity.ok("Delivery " + delivery.getId() + " accepted successfully");
+        } catch (DeliveryConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
@@ -1,5 +1,8 @@
 package com.example.deliveryhub.controller;
 
+import java.time.LocalDate;
+
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -9,8 +12,11 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import java.util.List;
+
+import com.example.deliveryhub.dto.RouteMatchDTO;
 import com.example.deliveryhub.model.TransporterRoute;
 import com.example.deliveryhub.service.RouteService;
 
@@ -29,6 +35,16 @@ public class RouteController {
         return ResponseEntity.ok(routes);
     }
 
+    // Open to customers too (see SecurityConfig)
+    @GetMapping("/search")
+    public ResponseEntity<List<RouteMatchDTO>> searchRoutes(
+            @RequestParam String pickupCity,
+            @RequestParam String dropoffCity,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate pickupDate,
+            @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(routeService.searchRoutes(pickupCity, dropoffCity, pickupDate, limit));
+    }
+
     @PostMapping
     public ResponseEntity<TransporterRoute> createRoute(@RequestBody TransporterRoute routeRequest) {
         TransporterRoute createRoute = routeService.createRoute(routeRequest);
@@ -2,6 +2,7 @@ package com.example.deliveryhub.controller;
 
 import com.example.deliveryhub.dto.UserRegisterDTO;
 import com.example.deliveryhub.dto.UserResponseDTO;
+import com.example.deliveryhub.exception.PasswordHashingBusyException;
 import com.example.deliveryhub.service.UserService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -19,9 +20,13 @@ public class UserController {
     private final UserService userService;
 
     @PostMapping("/register")
-    public ResponseEntity<UserResponseDTO> registerUser(@Valid @RequestBody UserRegisterDTO dto) {
-        UserResponseDTO response = userService.registerUser(dto);
-        return ResponseEntity.ok(response);
+    public ResponseEntity<?> registerUser(@Valid @RequestBody UserRegisterDTO dto) {
+        try {
+            UserResponseDTO response = userService.registerUser(dto);
+            return ResponseEntity.ok(response);
+        } catch (PasswordHashingBusyException e) {
+            return AuthController.hashingBusy(e);
+        }
     }
     @GetMapping("/protected")
     public ResponseEntity<String> protectedEndpoint() {
@@ -0,0 +1,19 @@
+package com.example.deliveryhub.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+// A stored chat attachment. key is the sha256 of the content (plus extension),
+// so uploading the same bytes twice returns the same key and URL.
+public class AttachmentDTO {
+    private String key;
+    private String url;
+    private String fileName;
+    private String contentType;
+    private long size;
+    private String sha256;
+}
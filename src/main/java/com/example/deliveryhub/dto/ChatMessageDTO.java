@@ -2,9 +2,11 @@ package com.example.deliveryhub.dto;
 
 import java.time.LocalDateTime;
 
+import com.example.deliveryhub.enums.ImageVariant;
 import com.example.deliveryhub.enums.MessageType;
 import com.example.deliveryhub.model.Role;
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonProperty;
 
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -53,5 +55,17 @@ public class ChatMessageDTO {
 
     @Builder.Default
     private Boolean isDelivered = false;
+
+    // Downscaled image variants, derived from fileUrl; clients should show these and only
+    // fetch fileUrl when the user opens the original
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    public String getThumbnailUrl() {
+        return ImageVariant.THUMBNAIL.urlFor(fileUrl);
+    }
+
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    public String getWebUrl() {
+        return ImageVariant.WEB.urlFor(fileUrl);
+    }
 }
 
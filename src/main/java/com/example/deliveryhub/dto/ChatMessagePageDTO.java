@@ -0,0 +1,18 @@
+package com.example.deliveryhub.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+// One window of a delivery's chat history, items always oldest first.
+// hasMore tells if there are further messages in the direction that was asked for:
+// pass the first item's id as "before" to scroll back, the last item's id as "after" to catch up.
+public class ChatMessagePageDTO {
+    private List<ChatMessageDTO> items;
+    private boolean hasMore;
+}
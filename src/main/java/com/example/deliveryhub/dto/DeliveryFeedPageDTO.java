@@ -0,0 +1,21 @@
+package com.example.deliveryhub.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+// One page of the available deliveries feed.
+// nextRequestedAt / nextId are the (requestedAt, id) cursor of the last item,
+// pass them back as afterRequestedAt / afterId to get the next page.
+public class DeliveryFeedPageDTO {
+    private List<DeliveryResponseDTO> items;
+    private LocalDateTime nextRequestedAt;
+    private Long nextId;
+    private boolean hasMore;
+}
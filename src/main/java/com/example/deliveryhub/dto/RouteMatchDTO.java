@@ -0,0 +1,22 @@
+package com.example.deliveryhub.dto;
+
+import java.time.LocalDate;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RouteMatchDTO {
+    private Long routeId;
+    private Long transporterId;
+    private String transporterName;
+    private String pickupCity;
+    private String dropoffCity;
+    private LocalDate travelDate;
+    private LocalDate pickupStartDate;
+    private LocalDate pickupEndDate;
+    private String notes;
+}
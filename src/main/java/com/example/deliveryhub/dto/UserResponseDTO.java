@@ -1,9 +1,9 @@
 package com.example.deliveryhub.dto;
 
 import com.example.deliveryhub.model.Role;
-import com.google.auto.value.AutoValue.Builder;
 
 import lombok.AllArgsConstructor;
+import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
@@ -0,0 +1,6 @@
+package com.example.deliveryhub.enums;
+
+public enum ChatPersistenceMode {
+    SYNC,          // message is saved before it is broadcast
+    WRITE_BEHIND   // id assigned up front, row written later in a JDBC batch
+}
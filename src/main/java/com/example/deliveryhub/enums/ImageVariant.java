@@ -0,0 +1,61 @@
+package com.example.deliveryhub.enums;
+
+import java.util.Locale;
+import java.util.Set;
+
+// Downscaled copies generated for image attachments, served next to the original at
+// <attachment url>/<path>. maxEdge bounds the longer side in pixels.
+public enum ImageVariant {
+    THUMBNAIL("thumb", 320, 0.75f),
+    WEB("web", 1280, 0.82f);
+
+    // Public URL of a stored attachment is this prefix followed by its key
+    public static final String ATTACHMENT_URL_PREFIX = "/api/chat/attachments/";
+
+    private static final Set<String> SOURCE_EXTENSIONS = Set.of("jpg", "jpeg", "png", "gif", "bmp");
+
+    private final String path;
+    private final int maxEdge;
+    private final float jpegQuality;
+
+    ImageVariant(String path, int maxEdge, float jpegQuality) {
+        this.path = path;
+        this.maxEdge = maxEdge;
+        this.jpegQuality = jpegQuality;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public int getMaxEdge() {
+        return maxEdge;
+    }
+
+    public float getJpegQuality() {
+        return jpegQuality;
+    }
+
+    // Null unless fileUrl points at an image in the attachment store
+    public String urlFor(String fileUrl) {
+        if (fileUrl == null || !fileUrl.startsWith(ATTACHMENT_URL_PREFIX) || !isImageKey(fileUrl)) {
+            return null;
+        }
+        return fileUrl + "/" + path;
+    }
+
+    public static ImageVariant fromPath(String path) {
+        for (ImageVariant variant : values()) {
+            if (variant.path.equals(path)) {
+                return variant;
+            }
+        }
+        return null;
+    }
+
+    // Only attachment keys with an image extension get variants
+    public static boolean isImageKey(String key) {
+        int dot = key.lastIndexOf('.');
+        return dot > 0 && SOURCE_EXTENSIONS.contains(key.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.deliveryhub.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// Upload went past chat.attachments.max-size-bytes; nothing was kept on disk
+@ResponseStatus(HttpStatus.PAYLOAD_TOO_LARGE)
+public class AttachmentTooLargeException extends RuntimeException {
+
+    public AttachmentTooLargeException(long maxBytes) {
+        super("Attachment exceeds the " + maxBytes + " byte limit");
+    }
+}
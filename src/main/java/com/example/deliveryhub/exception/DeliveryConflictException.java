@@ -0,0 +1,14 @@
+package com.example.deliveryhub.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// Thrown when another user changed the delivery first (e.g. two transporters
+// accepting the same PENDING request). Mapped to 409 so clients can refresh.
+@ResponseStatus(HttpStatus.CONFLICT)
+public class DeliveryConflictException extends RuntimeException {
+
+    public DeliveryConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.deliveryhub.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// Thrown when the password-hashing pool is saturated (login storm). Mapped to 503 so
+// clients back off and retry instead of tying up request threads.
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class PasswordHashingBusyException extends RuntimeException {
+
+    public PasswordHashingBusyException(String message) {
+        super(message);
+    }
+}
@@ -11,6 +11,10 @@ import com.example.deliveryhub.enums.PaymentMethod;
 import com.example.deliveryhub.enums.PaymentStatus;
 
 @Entity
+@Table(indexes = {
+    // backs the keyset-paginated available deliveries feed
+    @Index(name = "idx_delivery_request_status_requested_at", columnList = "status, requested_at, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -41,6 +45,9 @@ public class DeliveryRequest {
     @PrePersist
     public void prePersist() {
       this.createdAt = LocalDateTime.now();
+      if (this.requestedAt == null) {
+        this.requestedAt = this.createdAt; // feed cursor is (requestedAt, id), NULL would never match
+      }
     }
     
     @Column(name = "requested_at")
@@ -88,4 +95,9 @@ public class DeliveryRequest {
     @Column(name = "decline_dismissed")
     private Boolean declineDismissed = false;
 
+    // Optimistic lock: concurrent read-modify-write on the same delivery fails instead of silently overwriting
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private long version;
+
 }
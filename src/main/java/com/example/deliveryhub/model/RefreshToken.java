@@ -9,7 +9,10 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "refresh_tokens")
+@Table(name = "refresh_tokens", indexes = {
+    @Index(name = "idx_refresh_tokens_expiry_date", columnList = "expiry_date"),
+    @Index(name = "idx_refresh_tokens_user_id", columnList = "user_id")
+})
 @Data
 @Builder
 @NoArgsConstructor
@@ -20,8 +23,9 @@ public class RefreshToken {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
-    @Column(nullable = false, unique = true)
-    private String token;
+    // SHA-256 (hex) of the token handed to the client; the token itself is never stored
+    @Column(name = "token", nullable = false, unique = true)
+    private String tokenHash;
     
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
@@ -32,6 +36,9 @@ public class RefreshToken {
     
     @Column(nullable = false)
     private LocalDateTime createdAt;
+
+    // Set when the token is exchanged for a new one; presenting it again means it leaked
+    private LocalDateTime rotatedAt;
     
     @PrePersist
     protected void onCreate() {
@@ -0,0 +1,54 @@
+package com.example.deliveryhub.model;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Read model for the marketplace: one row per transporter, kept up to date
+// by TransporterStatsService when ratings are submitted and deliveries complete.
+@Entity
+@Table(name = "transporter_stats")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransporterStats {
+
+    @Id
+    @Column(name = "transporter_id")
+    private Long transporterId;
+
+    @Column(name = "rating_sum", nullable = false)
+    private long ratingSum;
+
+    @Column(name = "rating_count", nullable = false)
+    private long ratingCount;
+
+    @Column(name = "completed_deliveries", nullable = false)
+    private long completedDeliveries;
+
+    // Latest 3 non-empty feedback texts, newest first
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "recent_feedback")
+    private List<String> recentFeedback;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Transient
+    public double getAverageRating() {
+        return ratingCount == 0 ? 0.0 : (double) ratingSum / ratingCount;
+    }
+}
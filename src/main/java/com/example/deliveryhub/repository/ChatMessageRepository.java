@@ -1,9 +1,17 @@
 package com.example.deliveryhub.repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import com.example.deliveryhub.dto.ChatMessageDTO;
 import com.example.deliveryhub.model.ChatMessage;
 
 import com.example.deliveryhub.model.User;
@@ -22,4 +30,73 @@ public interface ChatMessageRepository extends JpaRepository<ChatMessage, Long>{
 
     int countByDeliveryIdAndReceiverIdAndIsReadFalse(Long deliveryId, Long receiverId);
 
+    // Row layout: [receiver email, deliveryId, unread count]
+    @Query("SELECT r.email, m.delivery.id, COUNT(m) FROM ChatMessage m JOIN m.receiver r WHERE m.isRead = false GROUP BY r.email, m.delivery.id")
+    List<Object[]> countUnreadGroupedByReceiverAndDelivery();
+
+    // Chat history windows, projected straight into the DTO with the sender joined in.
+    // All of them walk idx_chat_message_delivery_timestamp_id with the (timestamp, id) cursor.
+    @Query("""
+        SELECT new com.example.deliveryhub.dto.ChatMessageDTO(
+            m.id, m.delivery.id, s.id, s.fullName, s.role, m.content, m.messageType, m.timestamp,
+            m.fileUrl, m.fileName, m.latitude, m.longitude, m.isRead, m.isDelivered
+        )
+        FROM ChatMessage m
+        JOIN m.sender s
+        WHERE m.delivery.id = :deliveryId
+        ORDER BY m.timestamp DESC, m.id DESC
+    """)
+    List<ChatMessageDTO> findLatestPage(@Param("deliveryId") Long deliveryId, Pageable pageable);
+
+    @Query("""
+        SELECT new com.example.deliveryhub.dto.ChatMessageDTO(
+            m.id, m.delivery.id, s.id, s.fullName, s.role, m.content, m.messageType, m.timestamp,
+            m.fileUrl, m.fileName, m.latitude, m.longitude, m.isRead, m.isDelivered
+        )
+        FROM ChatMessage m
+        JOIN m.sender s
+        WHERE m.delivery.id = :deliveryId
+        AND (m.timestamp < :cursorTimestamp
+             OR (m.timestamp = :cursorTimestamp AND m.id < :cursorId))
+        ORDER BY m.timestamp DESC, m.id DESC
+    """)
+    List<ChatMessageDTO> findPageBefore(@Param("deliveryId") Long deliveryId,
+                                        @Param("cursorTimestamp") LocalDateTime cursorTimestamp,
+                                        @Param("cursorId") Long cursorId,
+                                        Pageable pageable);
+
+    @Query("""
+        SELECT new com.example.deliveryhub.dto.ChatMessageDTO(
+            m.id, m.delivery.id, s.id, s.fullName, s.role, m.content, m.messageType, m.timestamp,
+            m.fileUrl, m.fileName, m.latitude, m.longitude, m.isRead, m.isDelivered
+        )
+        FROM ChatMessage m
+        JOIN m.sender s
+        WHERE m.delivery.id = :deliveryId
+        AND (m.timestamp > :cursorTimestamp
+             OR (m.timestamp = :cursorTimestamp AND m.id > :cursorId))
+        ORDER BY m.timestamp ASC, m.id ASC
+    """)
+    List<ChatMessageDTO> findPageAfter(@Param("deliveryId") Long deliveryId,
+                                       @Param("cursorTimestamp") LocalDateTime cursorTimestamp,
+                                       @Param("cursorId") Long cursorId,
+                                       Pageable pageable);
+
+    // Row layout: [id, deliveryId, sender email], only messages addressed to the receiver
+    @Query("""
+        SELECT m.id, m.delivery.id, s.email
+        FROM ChatMessage m
+        JOIN m.sender s
+        WHERE m.id IN :ids AND m.receiver.id = :receiverId AND m.isDelivered = false
+    """)
+    List<Object[]> findUndeliveredForReceiver(@Param("ids") Collection<Long> ids, @Param("receiverId") Long receiverId);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ChatMessage m SET m.isDelivered = true WHERE m.id IN :ids")
+    int markDelivered(@Param("ids") Collection<Long> ids);
+
+    // Position of a cursor message, scoped to its delivery
+    @Query("SELECT m.timestamp FROM ChatMessage m WHERE m.id = :id AND m.delivery.id = :deliveryId")
+    Optional<LocalDateTime> findTimestampByIdAndDeliveryId(@Param("id") Long id, @Param("deliveryId") Long deliveryId);
+
 }
@@ -3,13 +3,38 @@ package com.example.deliveryhub.repository;
 import com.example.deliveryhub.model.DeliveryApplication;
 import com.example.deliveryhub.model.DeliveryRequest;
 import com.example.deliveryhub.model.User;
+import com.example.deliveryhub.enums.ApplicationStatus;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import java.util.List;
 import java.util.Optional;
 
 public interface DeliveryApplicationRepository extends JpaRepository<DeliveryApplication, Long> {
+    // List loads pull transporter and delivery (with its users) in the same select
+    @EntityGraph(attributePaths = {"transporter", "deliveryRequest", "deliveryRequest.customer", "deliveryRequest.transporter"})
     List<DeliveryApplication> findByDeliveryRequest(DeliveryRequest deliveryRequest);
+    @EntityGraph(attributePaths = {"transporter", "deliveryRequest", "deliveryRequest.customer", "deliveryRequest.transporter"})
     List<DeliveryApplication> findByTransporter(User transporter);
     Optional<DeliveryApplication> findByDeliveryRequestAndTransporter(DeliveryRequest deliveryRequest, User transporter);
     boolean existsByDeliveryRequestAndTransporter(DeliveryRequest deliveryRequest, User transporter);
+
+    @Query("SELECT a.transporter.email FROM DeliveryApplication a WHERE a.deliveryRequest.id = :deliveryId AND a.status = :status")
+    List<String> findTransporterEmailsByDeliveryAndStatus(@Param("deliveryId") Long deliveryId,
+                                                          @Param("status") ApplicationStatus status);
+
+    // Set-based state transitions: one UPDATE each, only rows still in the expected status change
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE DeliveryApplication a SET a.status = :to WHERE a.id = :id AND a.status = :from")
+    int transitionStatus(@Param("id") Long id,
+                         @Param("from") ApplicationStatus from,
+                         @Param("to") ApplicationStatus to);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE DeliveryApplication a SET a.status = :to WHERE a.deliveryRequest.id = :deliveryId AND a.status = :from")
+    int transitionAllForDelivery(@Param("deliveryId") Long deliveryId,
+                                 @Param("from") ApplicationStatus from,
+                                 @Param("to") ApplicationStatus to);
 }
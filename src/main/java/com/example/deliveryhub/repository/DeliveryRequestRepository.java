@@ -1,13 +1,21 @@
 package com.example.deliveryhub.repository;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 import com.example.deliveryhub.dto.CancelledDeliveryDTO;
 import com.example.deliveryhub.dto.DailyDeliveryStatsDTO;
+import com.example.deliveryhub.dto.DeliveryResponseDTO;
 import com.example.deliveryhub.dto.DeliveryStatusPercentageDTO;
 import com.example.deliveryhub.dto.PendingDeliveryAgeDTO;
 //import com.example.deliveryhub.dto.TimeRangeDeliveryCountDTO;
@@ -16,27 +24,119 @@ import com.example.deliveryhub.dto.TopRouteDTO;
 import com.example.deliveryhub.dto.TopTransporterDTO;
 //import com.example.deliveryhub.dto.TransporterCompletionStatsDTO;
 import com.example.deliveryhub.dto.TransporterPerformanceDTO;
+import com.example.deliveryhub.exception.DeliveryConflictException;
 import com.example.deliveryhub.model.DeliveryRequest;
 import com.example.deliveryhub.model.User;
 
 public interface DeliveryRequestRepository extends  JpaRepository<DeliveryRequest, Long> {
 
+    // save() for a delivery read earlier in the request: flushes right away so a stale @Version
+    // fails here (also inside a transaction) and reaches the client as 409 instead of a 500
+    default DeliveryRequest saveChecked(DeliveryRequest delivery) {
+        try {
+            return saveAndFlush(delivery);
+        } catch (OptimisticLockingFailureException e) {
+            throw new DeliveryConflictException("Delivery " + delivery.getId()
+                    + " was changed by someone else, please refresh and try again");
+        }
+    }
+
+    // List queries fetch customer and transporter in the same select (no extra query per row)
+    @EntityGraph(attributePaths = {"customer", "transporter"})
     List<DeliveryRequest> findByCustomer(User user);
 
+    @EntityGraph(attributePaths = {"customer", "transporter"})
     List<DeliveryRequest> findByStatus(String status);
-    
+
     Optional<DeliveryRequest> findByIdAndStatus(Long id, String status);
-    
+
+    @EntityGraph(attributePaths = {"customer", "transporter"})
     List<DeliveryRequest> findByTransporterAndStatusIn(User transporter, List<String> statuses);
 
+    @EntityGraph(attributePaths = {"customer", "transporter"})
     List<DeliveryRequest> findByCustomerAndStatusIn(User customer, List<String> of);
 
+    @EntityGraph(attributePaths = {"customer", "transporter"})
     List<DeliveryRequest> findByCustomerAndStatus(User customer, String status);
 
+    @Query("""
+        SELECT dr FROM DeliveryRequest dr
+        LEFT JOIN FETCH dr.customer
+        LEFT JOIN FETCH dr.transporter
+    """)
+    List<DeliveryRequest> findAllWithUsers();
+
+    // Atomic claims: the status check and the write are one UPDATE, so only one caller can win.
+    // Return 1 for the winner and 0 for everyone else.
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+        UPDATE DeliveryRequest dr
+        SET dr.status = 'ASSIGNED', dr.transporter = :transporter, dr.assignedAt = :now,
+            dr.version = dr.version + 1
+        WHERE dr.id = :id AND dr.status = 'PENDING'
+    """)
+    int claimPending(@Param("id") Long id, @Param("transporter") User transporter, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+        UPDATE DeliveryRequest dr
+        SET dr.status = 'ASSIGNED', dr.acceptedAt = :now, dr.version = dr.version + 1
+        WHERE dr.id = :id AND dr.status = 'REQUESTED'
+        AND dr.transporter.id = :transporterId
+        AND (dr.requestedAt IS NULL OR dr.requestedAt >= :expiresBefore)
+    """)
+    int acceptRequested(@Param("id") Long id, @Param("transporterId") Long transporterId,
+                        @Param("now") LocalDateTime now, @Param("expiresBefore") LocalDateTime expiresBefore);
+
+    // The feed cursor compares requestedAt, so a PENDING row without one would never be listed.
+    // Rows written before requestedAt existed get their createdAt (or now) once, at startup.
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+        UPDATE DeliveryRequest dr
+        SET dr.requestedAt = COALESCE(dr.createdAt, :now), dr.version = dr.version + 1
+        WHERE dr.status = 'PENDING' AND dr.requestedAt IS NULL
+    """)
+    int backfillPendingRequestedAt(@Param("now") LocalDateTime now);
+
     Long countByTransporterAndStatus(User transporter, String status);
     
     long countByStatus(String status);
 
+    // Keyset page of PENDING deliveries, projected straight into the DTO (no entity loading).
+    // Cursor is (requestedAt, id) so every page is an index range scan, whatever the page number.
+    // requestedAt is never NULL here: prePersist fills it and backfillPendingRequestedAt covers old rows.
+    @Query("""
+        SELECT new com.example.deliveryhub.dto.DeliveryResponseDTO(
+            dr.id, dr.pickupCity, dr.dropoffCity, dr.itemType, dr.description, dr.pickupDate, dr.status,
+            c.email, t.email, c.fullName, t.fullName, dr.cancelReason,
+            CAST(dr.declineReason AS String), dr.declineMessage, dr.declinedAt, dr.declineDismissed,
+            c.id, t.id, dr.weightKg, dr.requestedAt, dr.acceptedAt
+        )
+        FROM DeliveryRequest dr
+        JOIN dr.customer c
+        LEFT JOIN dr.transporter t
+        WHERE dr.status = 'PENDING'
+        AND (dr.requestedAt > :afterRequestedAt
+             OR (dr.requestedAt = :afterRequestedAt AND dr.id > :afterId))
+        AND (:pickupCity IS NULL OR LOWER(dr.pickupCity) = LOWER(:pickupCity))
+        AND (:dropoffCity IS NULL OR LOWER(dr.dropoffCity) = LOWER(:dropoffCity))
+        AND (:fromDate IS NULL OR dr.pickupDate >= :fromDate)
+        AND (:toDate IS NULL OR dr.pickupDate <= :toDate)
+        AND (:maxWeight IS NULL OR dr.weightKg <= :maxWeight)
+        ORDER BY dr.requestedAt ASC, dr.id ASC
+    """)
+    List<DeliveryResponseDTO> findAvailableFeedPage(@Param("afterRequestedAt") LocalDateTime afterRequestedAt,
+                                                    @Param("afterId") Long afterId,
+                                                    @Param("pickupCity") String pickupCity,
+                                                    @Param("dropoffCity") String dropoffCity,
+                                                    @Param("fromDate") LocalDate fromDate,
+                                                    @Param("toDate") LocalDate toDate,
+                                                    @Param("maxWeight") Double maxWeight,
+                                                    Pageable pageable);
+
     @Query("""
         SELECT new com.example.deliveryhub.dto.DailyDeliveryStatsDTO(
             dr.pickupDate, dr.status, COUNT(dr)
@@ -178,6 +278,24 @@ public interface DeliveryRequestRepository extends  JpaRepository<DeliveryReques
     """)
     List<Object[]> getTransporterDeliveryStats();
 
+    // Row layout: [transporterId, delivered count]
+    @Query("""
+    SELECT dr.transporter.id, COUNT(dr)
+    FROM DeliveryRequest dr
+    WHERE dr.status = 'DELIVERED' AND dr.transporter IS NOT NULL
+    GROUP BY dr.transporter.id
+    """)
+    List<Object[]> countDeliveredGroupedByTransporter();
+
+    // Row layout: [transporterId, delivered count], only for the given transporters
+    @Query("""
+    SELECT dr.transporter.id, COUNT(dr)
+    FROM DeliveryRequest dr
+    WHERE dr.status = 'DELIVERED' AND dr.transporter.id IN :transporterIds
+    GROUP BY dr.transporter.id
+    """)
+    List<Object[]> countDeliveredByTransporterIds(@Param("transporterIds") Collection<Long> transporterIds);
+
 
     @Query(value = """
         SELECT 
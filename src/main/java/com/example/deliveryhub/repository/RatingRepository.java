@@ -1,5 +1,6 @@
 package com.example.deliveryhub.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -10,6 +11,7 @@ import org.springframework.data.repository.query.Param;
 
 import com.example.deliveryhub.model.DeliveryRequest;
 import com.example.deliveryhub.model.Rating;
+import com.example.deliveryhub.model.Role;
 import com.example.deliveryhub.model.User;
 
 public interface RatingRepository extends JpaRepository<Rating, Long> {
@@ -34,5 +36,13 @@ public interface RatingRepository extends JpaRepository<Rating, Long> {
 
     // Or simpler version:
     List<Rating> findTop3ByRevieweeIdOrderByTimestampDesc(Long revieweeId);
+
+    // Row layout: [revieweeId, sum of ratings, number of ratings]
+    @Query("SELECT r.reviewee.id, SUM(r.rating), COUNT(r) FROM Rating r WHERE r.revieweeRole = :role GROUP BY r.reviewee.id")
+    List<Object[]> sumAndCountGroupedByReviewee(@Param("role") Role role);
+
+    // Row layout: [revieweeId, average rating, number of ratings]
+    @Query("SELECT r.reviewee.id, AVG(r.rating), COUNT(r) FROM Rating r WHERE r.reviewee.id IN :revieweeIds GROUP BY r.reviewee.id")
+    List<Object[]> averageAndCountByRevieweeIds(@Param("revieweeIds") Collection<Long> revieweeIds);
     }
 
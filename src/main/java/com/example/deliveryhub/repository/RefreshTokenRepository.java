@@ -2,16 +2,23 @@ package com.example.deliveryhub.repository;
 
 import com.example.deliveryhub.model.RefreshToken;
 import com.example.deliveryhub.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
     
-    Optional<RefreshToken> findByToken(String token);
+    @Query("SELECT r FROM RefreshToken r JOIN FETCH r.user WHERE r.tokenHash = :tokenHash")
+    Optional<RefreshToken> findByTokenHash(@Param("tokenHash") String tokenHash);
     
     Optional<RefreshToken> findByUser(User user);
     
@@ -19,5 +26,20 @@ public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long
     
     void deleteByExpiryDateBefore(LocalDateTime now);
     
-    boolean existsByToken(String token);
+    boolean existsByTokenHash(String tokenHash);
+
+    // Compare-and-set on the primary key: exactly one caller wins a given token
+    @Transactional
+    @Modifying
+    @Query("UPDATE RefreshToken r SET r.rotatedAt = :now WHERE r.id = :id AND r.rotatedAt IS NULL")
+    int markRotated(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM RefreshToken r WHERE r.user.id = :userId")
+    int deleteByUserId(@Param("userId") Long userId);
+
+    // One purge chunk, served by the expiry_date index
+    @Query("SELECT r.id FROM RefreshToken r WHERE r.expiryDate < :now")
+    List<Long> findExpiredIds(@Param("now") LocalDateTime now, Pageable pageable);
 }
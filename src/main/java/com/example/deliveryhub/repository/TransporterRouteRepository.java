@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import com.example.deliveryhub.dto.RouteMatchDTO;
 import com.example.deliveryhub.model.TransporterRoute;
 import com.example.deliveryhub.model.User;
 
@@ -20,4 +21,11 @@ public interface TransporterRouteRepository extends JpaRepository<TransporterRou
     List<TransporterRoute> findAvailableRoutes(@Param("pickupCity") String pickupCity, 
                                               @Param("dropoffCity") String dropoffCity, 
                                               @Param("pickupDate") LocalDate pickupDate);
+
+    // Seeds RouteIndex: one row per active route still open for pickup, without loading entities
+    @Query("SELECT new com.example.deliveryhub.dto.RouteMatchDTO(tr.id, t.id, t.fullName, tr.pickupCity, " +
+           "tr.dropoffCity, tr.travelDate, tr.pickupStartDate, tr.pickupEndDate, tr.notes) " +
+           "FROM TransporterRoute tr JOIN tr.transporter t " +
+           "WHERE tr.active = true AND tr.pickupEndDate >= :from")
+    List<RouteMatchDTO> findActiveRouteMatches(@Param("from") LocalDate from);
 }
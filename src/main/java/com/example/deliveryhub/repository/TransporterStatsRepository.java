@@ -0,0 +1,79 @@
+package com.example.deliveryhub.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.example.deliveryhub.model.Role;
+import com.example.deliveryhub.model.TransporterStats;
+
+public interface TransporterStatsRepository extends JpaRepository<TransporterStats, Long> {
+
+    // Atomic increments, safe under concurrent writers (no read-modify-write)
+    @Modifying
+    @Query(value = """
+        INSERT INTO transporter_stats (transporter_id, rating_sum, rating_count, completed_deliveries, updated_at)
+        VALUES (:transporterId, :rating, 1, 0, NOW())
+        ON CONFLICT (transporter_id) DO UPDATE SET
+            rating_sum = transporter_stats.rating_sum + EXCLUDED.rating_sum,
+            rating_count = transporter_stats.rating_count + 1,
+            updated_at = NOW()
+        """, nativeQuery = true)
+    int addRating(@Param("transporterId") Long transporterId, @Param("rating") int rating);
+
+    @Modifying
+    @Query(value = """
+        INSERT INTO transporter_stats (transporter_id, rating_sum, rating_count, completed_deliveries, updated_at)
+        VALUES (:transporterId, 0, 0, 1, NOW())
+        ON CONFLICT (transporter_id) DO UPDATE SET
+            completed_deliveries = transporter_stats.completed_deliveries + 1,
+            updated_at = NOW()
+        """, nativeQuery = true)
+    int incrementCompletedDeliveries(@Param("transporterId") Long transporterId);
+
+    @Modifying
+    @Query(value = """
+        UPDATE transporter_stats
+        SET completed_deliveries = GREATEST(completed_deliveries - 1, 0), updated_at = NOW()
+        WHERE transporter_id = :transporterId
+        """, nativeQuery = true)
+    int decrementCompletedDeliveries(@Param("transporterId") Long transporterId);
+
+    @Modifying
+    @Query(value = """
+        UPDATE transporter_stats
+        SET recent_feedback = CAST(:feedbackJson AS jsonb), updated_at = NOW()
+        WHERE transporter_id = :transporterId
+        """, nativeQuery = true)
+    int updateRecentFeedback(@Param("transporterId") Long transporterId, @Param("feedbackJson") String feedbackJson);
+
+    // Row layout: [id, fullName, email, verified, ratePerKg, fixedPriceUnderThreshold,
+    //              weightThreshold, currency, TransporterStats (nullable)]
+    @Query("""
+        SELECT u.id, u.fullName, u.email, u.verified,
+               p.ratePerKg, p.fixedPriceUnderThreshold, p.weightThreshold, p.currency, s
+        FROM User u
+        JOIN TransporterPricing p ON p.transporter = u
+        LEFT JOIN TransporterStats s ON s.transporterId = u.id
+        WHERE u.role = :role
+        AND u.verified = true
+        AND u.availableForDeliveries = true
+        AND p.ratePerKg IS NOT NULL
+        """)
+    List<Object[]> findMarketplaceRows(@Param("role") Role role);
+
+    @Query("""
+        SELECT u.id, u.fullName, u.email, u.verified,
+               p.ratePerKg, p.fixedPriceUnderThreshold, p.weightThreshold, p.currency, s
+        FROM User u
+        LEFT JOIN TransporterPricing p ON p.transporter = u
+        LEFT JOIN TransporterStats s ON s.transporterId = u.id
+        WHERE u.id = :transporterId
+        AND u.role = :role
+        AND u.verified = true
+        """)
+    List<Object[]> findMarketplaceRow(@Param("transporterId") Long transporterId, @Param("role") Role role);
+}
@@ -6,6 +6,7 @@ import com.example.deliveryhub.model.User;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 
 
@@ -24,4 +25,8 @@ public interface UserRepository extends JpaRepository<User, Long> {
     List<User> findByRoleAndVerifiedTrueOrderByIdDesc(Role role);
     List<User> findByRoleAndVerifiedTrue(Role role);
 
+    // Row layout: [role, count]
+    @Query("SELECT u.role, COUNT(u) FROM User u GROUP BY u.role")
+    List<Object[]> countGroupedByRole();
+
 }
@@ -8,6 +8,7 @@ import java.util.Map;
 import java.util.stream.Collectors;
 
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.example.deliveryhub.dto.AdminDashboardDTO;
 import com.example.deliveryhub.dto.AdminDeliveryViewDTO;
@@ -29,6 +30,7 @@ import com.example.deliveryhub.model.DeliveryRequest;
 import com.example.deliveryhub.model.Role;
 import com.example.deliveryhub.repository.DeliveryRequestRepository;
 import com.example.deliveryhub.repository.UserRepository;
+import com.example.deliveryhub.util.DeliveryMapper;
 
 import lombok.RequiredArgsConstructor;
 
@@ -37,6 +39,9 @@ import lombok.RequiredArgsConstructor;
 public class AdminService {
     private final UserRepository userRepository;
     private final DeliveryRequestRepository deliveryRequestRepository;
+    private final DashboardCounterService dashboardCounterService;
+    private final UserCacheService userCacheService;
+    private final TransporterStatsService transporterStatsService;
 
     public List<TransporterAdminDTO> getPendingTransporters() {
         return userRepository.findByRoleAndVerifiedFalse(Role.TRANSPORTER)
@@ -65,6 +70,7 @@ public class AdminService {
 
         user.setVerified(true);
         userRepository.save(user);
+        userCacheService.evict(user.getEmail());
 
         TransporterAdminDTO dto = new TransporterAdminDTO();
         dto.setId(user.getId());
@@ -78,37 +84,14 @@ public class AdminService {
     }
 
     public List<AdminDeliveryViewDTO> getAllDeliveries() {
-        return deliveryRequestRepository.findAll().stream().map(req -> {
-            AdminDeliveryViewDTO dto = new AdminDeliveryViewDTO();
-            dto.setId(req.getId());
-            dto.setPickupCity(req.getPickupCity());
-            dto.setDropoffCity(req.getDropoffCity());
-            dto.setItemType(req.getItemType());
-            dto.setStatus(req.getStatus());
-            dto.setCustomerName(req.getCustomer() != null ? req.getCustomer().getFullName() : "N/A");
-            dto.setTransporterName(req.getTransporter() != null ? req.getTransporter().getFullName() : "Unassigned");
-                return dto;
-        }).toList();
+        return deliveryRequestRepository.findAllWithUsers().stream()
+                .map(DeliveryMapper::toAdminViewDTO)
+                .toList();
     }
 
+    // Served from in-memory counters, no COUNT(*) per call
     public AdminDashboardDTO getDashboardMetrics() {
-    long totalDeliveries = deliveryRequestRepository.count();
-    long totalCustomers = userRepository.countByRole(Role.CUSTOMER);
-    long totalTransporters = userRepository.countByRole(Role.TRANSPORTER);
-    long pendingDeliveries = deliveryRequestRepository.countByStatus("PENDING");
-    long assignedDeliveries = deliveryRequestRepository.countByStatus("ASSIGNED");
-    long pickedUpDeliveries = deliveryRequestRepository.countByStatus("PICKED_UP");
-    long deliveredDeliveries = deliveryRequestRepository.countByStatus("DELIVERED");
-
-        return new AdminDashboardDTO(
-            totalDeliveries,
-            totalCustomers,
-            totalTransporters,
-            pendingDeliveries,
-            assignedDeliveries,
-            pickedUpDeliveries,
-            deliveredDeliveries
-        );
+        return dashboardCounterService.snapshot();
     }
 
     public List<DailyDeliveryStatsDTO> getDailyDeliveryStats(LocalDate startDate) {
@@ -187,38 +170,22 @@ public class AdminService {
        return deliveryRequestRepository.findOldPendingDeliveries(thresholdDays);
     }
 
+    @Transactional
     public DeliveryResponseDTO cancelDelivery(CancelDeliveryRequest request) {
     DeliveryRequest delivery = deliveryRequestRepository.findById(request.getDeliveryId())
         .orElseThrow(() -> new RuntimeException("Delivery not found"));
 
+    String previousStatus = delivery.getStatus();
     delivery.setStatus("CANCELLED");
     delivery.setCancelReason(request.getCancelReason());
 
-    DeliveryRequest updated = deliveryRequestRepository.save(delivery);
-
-        return new DeliveryResponseDTO(
-            updated.getId(),
-            updated.getPickupCity(),
-            updated.getDropoffCity(),
-            updated.getItemType(),
-            updated.getDescription(),
-            updated.getPickupDate(),
-            updated.getStatus(),
-            updated.getCustomer().getEmail(),
-            updated.getTransporter() != null ? updated.getTransporter().getEmail() : null,
-            updated.getCustomer().getFullName(),
-            updated.getTransporter() != null ? updated.getTransporter().getFullName() : null, 
-            updated.getCancelReason(),
-            updated.getDeclineReason() != null ? updated.getDeclineReason().toString() : null,
-            updated.getDeclineMessage(),
-            updated.getDeclinedAt(),
-            updated.getDeclineDismissed(),
-            updated.getCustomer().getId(),
-            updated.getTransporter() != null ? updated.getTransporter().getId() : null,
-            updated.getWeightKg(),
-            updated.getRequestedAt(),
-            updated.getAcceptedAt()
-        );
+    DeliveryRequest updated = deliveryRequestRepository.saveChecked(delivery);
+    dashboardCounterService.statusChanged(previousStatus, "CANCELLED");
+    if (updated.getTransporter() != null) {
+        transporterStatsService.onDeliveryStatusChanged(updated.getTransporter().getId(), previousStatus, "CANCELLED");
+    }
+
+        return DeliveryMapper.toResponseDTO(updated);
     }
 
 
@@ -0,0 +1,185 @@
+package com.example.deliveryhub.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+
+import com.example.deliveryhub.dto.AttachmentDTO;
+import com.example.deliveryhub.enums.ImageVariant;
+import com.example.deliveryhub.exception.AttachmentTooLargeException;
+
+import lombok.extern.slf4j.Slf4j;
+
+// Content-addressed store for chat attachments.
+// Uploads are streamed through a fixed buffer into a temp file while the sha256 is computed,
+// so memory use doesn't depend on file size; going over the size cap aborts the copy.
+// The file is then moved to objects/<2 hex>/<sha256>.<ext>; if that object already exists
+// the upload is a duplicate and the temp file is dropped.
+@Service
+@Slf4j
+public class AttachmentStore {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final Pattern KEY = Pattern.compile("[0-9a-f]{64}(\\.[a-z0-9]{1,10})?");
+    private static final Pattern EXTENSION = Pattern.compile("[a-z0-9]{1,10}");
+    // Raster images only: a browser renders them but never runs script from them (unlike html/svg/xml)
+    private static final Set<String> INLINE_EXTENSIONS = Set.of("jpg", "jpeg", "png", "gif", "bmp", "webp");
+
+    private final Path objectsDir;
+    private final Path tmpDir;
+    private final long maxSizeBytes;
+
+    public AttachmentStore(@Value("${chat.attachments.dir:uploads/chat/objects}") String dir,
+                           @Value("${chat.attachments.max-size-bytes:20971520}") long maxSizeBytes) throws IOException {
+        this.objectsDir = Paths.get(dir).toAbsolutePath().normalize();
+        this.tmpDir = objectsDir.resolve("tmp");
+        this.maxSizeBytes = maxSizeBytes;
+        Files.createDirectories(tmpDir);
+    }
+
+    public AttachmentDTO store(InputStream content, String originalFileName) throws IOException {
+        Path tmp = Files.createTempFile(tmpDir, "upload-", ".part");
+        try {
+            MessageDigest sha256 = sha256();
+            long size = 0;
+            byte[] buffer = new byte[BUFFER_SIZE];
+            try (InputStream in = content; OutputStream out = Files.newOutputStream(tmp)) {
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    size += read;
+                    if (size > maxSizeBytes) {
+                        throw new AttachmentTooLargeException(maxSizeBytes);
+                    }
+                    sha256.update(buffer, 0, read);
+                    out.write(buffer, 0, read);
+                }
+            }
+
+            String hash = HexFormat.of().formatHex(sha256.digest());
+            String key = extension(originalFileName).map(ext -> hash + "." + ext).orElse(hash);
+            Path target = pathOf(key);
+
+            if (Files.exists(target)) {
+                log.debug("Attachment {} already stored, dropping duplicate upload", key);
+            } else {
+                Files.createDirectories(target.getParent());
+                moveIntoPlace(tmp, target);
+            }
+            return new AttachmentDTO(key, ImageVariant.ATTACHMENT_URL_PREFIX + key, originalFileName,
+                    contentType(key).toString(), size, hash);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    // Empty for malformed keys (never resolves outside the store) and missing objects
+    public Optional<Path> find(String key) {
+        if (key == null || !KEY.matcher(key).matches()) {
+            return Optional.empty();
+        }
+        Path path = pathOf(key);
+        return Files.isRegularFile(path) ? Optional.of(path) : Optional.empty();
+    }
+
+    // Empty when the key is malformed or the variant hasn't been generated (yet)
+    public Optional<Path> findVariant(String key, ImageVariant variant) {
+        if (key == null || !KEY.matcher(key).matches()) {
+            return Optional.empty();
+        }
+        Path path = variantPath(key, variant);
+        return Files.isRegularFile(path) ? Optional.of(path) : Optional.empty();
+    }
+
+    // Variants sit next to the original as <key>.<variant>.jpg
+    public Path variantPath(String key, ImageVariant variant) {
+        return pathOf(key).resolveSibling(key + "." + variant.getPath() + ".jpg");
+    }
+
+    // Writes through a temp file so readers never see a half-written variant
+    public void storeVariant(String key, ImageVariant variant, OutputWriter writer) throws IOException {
+        Path tmp = Files.createTempFile(tmpDir, "variant-", ".part");
+        try {
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                writer.writeTo(out);
+            }
+            moveIntoPlace(tmp, variantPath(key, variant));
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    @FunctionalInterface
+    public interface OutputWriter {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    // Guessed from the uploader's extension, so only trust it for display, see servesInline
+    public MediaType contentType(String key) {
+        return MediaTypeFactory.getMediaType(key).orElse(MediaType.APPLICATION_OCTET_STREAM);
+    }
+
+    // Whether the attachment may be shown in the browser; anything else is served as a download
+    public boolean servesInline(String key) {
+        return extension(key).filter(INLINE_EXTENSIONS::contains).isPresent();
+    }
+
+    public long getMaxSizeBytes() {
+        return maxSizeBytes;
+    }
+
+    private Path pathOf(String key) {
+        return objectsDir.resolve(key.substring(0, 2)).resolve(key);
+    }
+
+    private void moveIntoPlace(Path tmp, Path target) throws IOException {
+        try {
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            // same content stored concurrently; identical bytes, keep the existing object
+        } catch (AtomicMoveNotSupportedException e) {
+            try {
+                Files.move(tmp, target);
+            } catch (FileAlreadyExistsException ignored) {
+                // same as above
+            }
+        }
+    }
+
+    private static Optional<String> extension(String fileName) {
+        if (fileName == null) {
+            return Optional.empty();
+        }
+        int dot = fileName.lastIndexOf('.');
+        if (dot < 0 || dot == fileName.length() - 1) {
+            return Optional.empty();
+        }
+        String ext = fileName.substring(dot + 1).toLowerCase(Locale.ROOT);
+        return EXTENSION.matcher(ext).matches() ? Optional.of(ext) : Optional.empty();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
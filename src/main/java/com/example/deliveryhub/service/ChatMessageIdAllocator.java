@@ -0,0 +1,35 @@
+package com.example.deliveryhub.service;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+// Hands out chat_message ids before the row exists, so write-behind messages can be
+// broadcast with their final id. Ids come from the column's own identity sequence,
+// a block per round trip, so they never collide with rows inserted through JPA.
+@Component
+public class ChatMessageIdAllocator {
+
+    private static final String NEXT_BLOCK_SQL =
+            "SELECT nextval(pg_get_serial_sequence('chat_message', 'id')) FROM generate_series(1, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int blockSize;
+    private final Deque<Long> available = new ArrayDeque<>();
+
+    public ChatMessageIdAllocator(JdbcTemplate jdbcTemplate,
+                                  @Value("${chat.write-behind.id-block-size:100}") int blockSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.blockSize = Math.max(1, blockSize);
+    }
+
+    public synchronized long next() {
+        if (available.isEmpty()) {
+            available.addAll(jdbcTemplate.queryForList(NEXT_BLOCK_SQL, Long.class, blockSize));
+        }
+        return available.pollFirst();
+    }
+}
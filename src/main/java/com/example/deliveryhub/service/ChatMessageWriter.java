@@ -0,0 +1,325 @@
+package com.example.deliveryhub.service;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.example.deliveryhub.enums.ChatPersistenceMode;
+import com.example.deliveryhub.model.ChatMessage;
+import com.example.deliveryhub.repository.ChatMessageRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+// Persists chat messages for ChatService.
+// SYNC saves through JPA before returning, as before.
+// WRITE_BEHIND assigns the id up front and returns at once; a single writer thread drains a
+// bounded queue and inserts the rows in JDBC batches. When the queue is full the caller writes
+// its own message synchronously (and sees the error if that fails), so a burst slows senders
+// down instead of losing messages. Rows whose insert fails are kept and retried with exponential
+// backoff (chat.write-behind.retry-initial-ms .. retry-max-ms) until they go in; while
+// queue-capacity rows are waiting for a retry the writer stops draining the queue, so during an
+// outage the queue fills and new sends fail in the sender's own request.
+// Pending rows are flushed on shutdown and before any read that needs them (flushPending);
+// a read with nothing queued or due for retry doesn't take the write lock at all.
+@Component
+public class ChatMessageWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(ChatMessageWriter.class);
+
+    private static final String INSERT_SQL = """
+            INSERT INTO chat_message (id, delivery_id, sender_id, receiver_id, content, timestamp,
+                                      is_read, is_delivered, file_url, file_name, latitude, longitude, message_type)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    // A row that has failed `attempts` times and may be tried again from dueAt (epoch ms)
+    private record PendingRow(ChatMessage message, int attempts, long dueAt) {
+    }
+
+    private final ChatMessageRepository chatMessageRepository;
+    private final ChatMessageIdAllocator idAllocator;
+    private final JdbcTemplate jdbcTemplate;
+    private final ChatPersistenceMode mode;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final long retryInitialMs;
+    private final long retryMaxMs;
+    private final int maxRetrying;
+    private final LongSupplier clock;
+    private final BlockingQueue<ChatMessage> queue;
+
+    // Held while rows are being written so flushPending() never returns mid-batch;
+    // also guards `retrying`
+    private final Object writeLock = new Object();
+    private final List<PendingRow> retrying = new ArrayList<>();
+    // Messages accepted by persist() and neither written nor moved to `retrying` yet
+    private final AtomicLong unwritten = new AtomicLong();
+    // Earliest dueAt in `retrying` (Long.MAX_VALUE when empty), readable without the lock
+    private volatile long nextRetryAt = Long.MAX_VALUE;
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong overflowWrites = new AtomicLong();
+    private final AtomicLong failedAttempts = new AtomicLong();
+
+    private volatile boolean running;
+    private Thread writerThread;
+
+    @Autowired
+    public ChatMessageWriter(ChatMessageRepository chatMessageRepository,
+                             ChatMessageIdAllocator idAllocator,
+                             JdbcTemplate jdbcTemplate,
+                             @Value("${chat.persistence.mode:SYNC}") ChatPersistenceMode mode,
+                             @Value("${chat.write-behind.queue-capacity:10000}") int queueCapacity,
+                             @Value("${chat.write-behind.batch-size:200}") int batchSize,
+                             @Value("${chat.write-behind.flush-interval-ms:50}") long flushIntervalMs,
+                             @Value("${chat.write-behind.retry-initial-ms:500}") long retryInitialMs,
+                             @Value("${chat.write-behind.retry-max-ms:30000}") long retryMaxMs) {
+        this(chatMessageRepository, idAllocator, jdbcTemplate, mode, queueCapacity, batchSize, flushIntervalMs,
+                retryInitialMs, retryMaxMs, System::currentTimeMillis);
+    }
+
+    ChatMessageWriter(ChatMessageRepository chatMessageRepository, ChatMessageIdAllocator idAllocator,
+                      JdbcTemplate jdbcTemplate, ChatPersistenceMode mode, int queueCapacity, int batchSize,
+                      long flushIntervalMs, long retryInitialMs, long retryMaxMs, LongSupplier clock) {
+        this.chatMessageRepository = chatMessageRepository;
+        this.idAllocator = idAllocator;
+        this.jdbcTemplate = jdbcTemplate;
+        this.mode = mode;
+        this.batchSize = Math.max(1, batchSize);
+        this.flushIntervalMs = Math.max(1, flushIntervalMs);
+        this.retryInitialMs = Math.max(1, retryInitialMs);
+        this.retryMaxMs = Math.max(this.retryInitialMs, retryMaxMs);
+        this.maxRetrying = Math.max(1, queueCapacity);
+        this.clock = clock;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+    }
+
+    @PostConstruct
+    public void start() {
+        if (mode != ChatPersistenceMode.WRITE_BEHIND) {
+            return;
+        }
+        running = true;
+        writerThread = new Thread(this::drainLoop, "chat-write-behind");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        log.info("Chat write-behind enabled (batch size {}, flush every {} ms, queue capacity {})",
+                batchSize, flushIntervalMs, queue.remainingCapacity());
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (writerThread == null) {
+            return;
+        }
+        // The loop wakes up every flush interval, no interrupt needed (it could break an in-flight JDBC call)
+        running = false;
+        writerThread.join(TimeUnit.SECONDS.toMillis(10));
+        flushPending();
+        synchronized (writeLock) {
+            // Last chance for rows still backing off; whatever fails now dies with the process
+            List<PendingRow> last = new ArrayList<>(retrying);
+            retrying.clear();
+            writeRows(last);
+            if (!retrying.isEmpty()) {
+                log.error("Chat write-behind stopping with {} unwritten messages: {}", retrying.size(),
+                        retrying.stream().map(row -> row.message().getId()).toList());
+            }
+        }
+        log.info("Chat write-behind stopped: {} messages in {} batches, {} written synchronously on overflow, "
+                + "{} failed attempts", written.get(), batches.get(), overflowWrites.get(), failedAttempts.get());
+    }
+
+    public ChatPersistenceMode getMode() {
+        return mode;
+    }
+
+    // Returns the message with its id set; in WRITE_BEHIND mode the row may not exist yet
+    public ChatMessage persist(ChatMessage message) {
+        if (mode == ChatPersistenceMode.SYNC) {
+            return chatMessageRepository.save(message);
+        }
+
+        message.setId(idAllocator.next());
+        unwritten.incrementAndGet();
+        if (!queue.offer(message)) {
+            unwritten.decrementAndGet();
+            overflowWrites.incrementAndGet();
+            synchronized (writeLock) {
+                // Nothing has been broadcast yet, so a failure here goes back to the sender
+                insert(message);
+            }
+        }
+        return message;
+    }
+
+    // Writes everything queued so far on the calling thread, plus retries that are due;
+    // rows still backing off after a failure are left to the writer thread. Like the writer
+    // thread it stops draining once the retry buffer is full, so during an outage the queue
+    // fills up and senders fall back to their own insert. No-op in SYNC mode
+    public void flushPending() {
+        if (mode != ChatPersistenceMode.WRITE_BEHIND
+                || (unwritten.get() == 0 && clock.getAsLong() < nextRetryAt)) {
+            return;
+        }
+        synchronized (writeLock) {
+            retryDue();
+            List<ChatMessage> batch = new ArrayList<>(batchSize);
+            while (retrying.size() < maxRetrying && queue.drainTo(batch, batchSize) > 0) {
+                writeBatch(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    // Rows only ever leave the queue under writeLock, so once flushPending() returns
+    // nothing taken before it is still unwritten (or waiting for a retry)
+    private void drainLoop() {
+        while (running) {
+            try {
+                boolean wrote;
+                synchronized (writeLock) {
+                    wrote = writeDue();
+                }
+                if (!wrote) {
+                    Thread.sleep(flushIntervalMs);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                // writeBatch/writeRows keep every row they could not write, so nothing is lost here
+                log.error("Chat write-behind loop failed: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    // One round of the writer thread: due retries, then a batch from the queue unless the
+    // retry buffer is full. Caller holds writeLock
+    boolean writeDue() {
+        boolean wrote = retryDue();
+        if (retrying.size() < maxRetrying) {
+            List<ChatMessage> batch = new ArrayList<>(batchSize);
+            if (queue.drainTo(batch, batchSize) > 0) {
+                writeBatch(batch);
+                wrote = true;
+            }
+        }
+        return wrote;
+    }
+
+    int retryingCount() {
+        synchronized (writeLock) {
+            return retrying.size();
+        }
+    }
+
+    private boolean retryDue() {
+        if (retrying.isEmpty()) {
+            return false;
+        }
+        long now = clock.getAsLong();
+        List<PendingRow> due = new ArrayList<>();
+        retrying.removeIf(row -> row.dueAt() <= now && due.add(row));
+        writeRows(due);
+        return !due.isEmpty();
+    }
+
+    private void writeBatch(List<ChatMessage> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            try {
+                jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), this::bind);
+                written.addAndGet(batch.size());
+                batches.incrementAndGet();
+                return;
+            } catch (RuntimeException e) {
+                // One bad row must not take the rest of the batch down with it
+                log.warn("Chat batch insert of {} messages failed, retrying row by row: {}", batch.size(), e.getMessage());
+            }
+            writeRows(batch.stream().map(message -> new PendingRow(message, 0, 0)).toList());
+        } finally {
+            unwritten.addAndGet(-batch.size());
+        }
+    }
+
+    // Inserts rows one by one; failed rows go (back) into `retrying` with a longer backoff.
+    // After an error that isn't about the row itself (connection lost, timeout, ...) the
+    // remaining rows are rescheduled without trying them.
+    private void writeRows(List<PendingRow> rows) {
+        RuntimeException outage = null;
+        int failed = 0;
+        RuntimeException lastError = null;
+        for (PendingRow row : rows) {
+            if (outage == null) {
+                try {
+                    insert(row.message());
+                    continue;
+                } catch (DuplicateKeyException e) {
+                    // Ids are allocated once, so the row is already in (e.g. from a batch that partly committed)
+                    continue;
+                } catch (DataIntegrityViolationException e) {
+                    lastError = e;
+                } catch (RuntimeException e) {
+                    outage = e;
+                    lastError = e;
+                }
+            }
+            scheduleRetry(row);
+            failed++;
+        }
+        if (failed > 0) {
+            log.warn("{} chat messages not written, kept for retry ({} waiting): {}",
+                    failed, retrying.size(), lastError.getMessage());
+        }
+        nextRetryAt = retrying.stream().mapToLong(PendingRow::dueAt).min().orElse(Long.MAX_VALUE);
+    }
+
+    private void insert(ChatMessage message) {
+        jdbcTemplate.update(INSERT_SQL, ps -> bind(ps, message));
+        written.incrementAndGet();
+    }
+
+    private void scheduleRetry(PendingRow row) {
+        int attempts = row.attempts() + 1;
+        long backoff = Math.min(retryMaxMs, retryInitialMs << Math.min(attempts - 1, 20));
+        retrying.add(new PendingRow(row.message(), attempts, clock.getAsLong() + backoff));
+        failedAttempts.incrementAndGet();
+    }
+
+    private void bind(PreparedStatement ps, ChatMessage message) throws SQLException {
+        ps.setLong(1, message.getId());
+        ps.setLong(2, message.getDelivery().getId());
+        ps.setLong(3, message.getSender().getId());
+        ps.setObject(4, message.getReceiver() != null ? message.getReceiver().getId() : null, Types.BIGINT);
+        ps.setString(5, message.getContent());
+        ps.setTimestamp(6, message.getTimestamp() != null ? Timestamp.valueOf(message.getTimestamp()) : null);
+        ps.setObject(7, message.getIsRead(), Types.BOOLEAN);
+        ps.setObject(8, message.getIsDelivered(), Types.BOOLEAN);
+        ps.setString(9, message.getFileUrl());
+        ps.setString(10, message.getFileName());
+        ps.setObject(11, message.getLatitude(), Types.DOUBLE);
+        ps.setObject(12, message.getLongitude(), Types.DOUBLE);
+        ps.setString(13, message.getMessageType() != null ? message.getMessageType().name() : null);
+    }
+}
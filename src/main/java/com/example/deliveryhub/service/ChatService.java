@@ -3,16 +3,18 @@ package com.example.deliveryhub.service;
 import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import com.example.deliveryhub.dto.AttachmentDTO;
 import com.example.deliveryhub.dto.ChatMessageDTO;
+import com.example.deliveryhub.dto.ChatMessagePageDTO;
 import com.example.deliveryhub.dto.MessageReadEvent;
 import com.example.deliveryhub.enums.MessageType;
 import com.example.deliveryhub.model.ChatMessage;
@@ -21,7 +23,7 @@ import com.example.deliveryhub.model.Role;
 import com.example.deliveryhub.model.User;
 import com.example.deliveryhub.repository.ChatMessageRepository;
 import com.example.deliveryhub.repository.DeliveryRequestRepository;
-import com.example.deliveryhub.repository.UserRepository;
+import com.example.deliveryhub.websocket.ChatFanout;
 
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
@@ -30,15 +32,22 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class ChatService {
     
-    private final SimpMessagingTemplate messagingTemplate;
+    private final ChatFanout chatFanout;
     private final ChatMessageRepository chatMessageRepository;
-    private final UserRepository userRepository;
+    private final CurrentUserService currentUserService;
     private final DeliveryRequestRepository deliveryRequestRepository;
+    private final UnreadCounterService unreadCounterService;
+    private final ChatMessageWriter chatMessageWriter;
+    private final AttachmentStore attachmentStore;
+    private final ImageVariantService imageVariantService;
+
+    private static final int DEFAULT_HISTORY_PAGE_SIZE = 50;
+    private static final int MAX_HISTORY_PAGE_SIZE = 200;
 
 
         public ChatMessageDTO sendMessage(String senderEmail, ChatMessageDTO dto) {
                 // Step 1: Find sender by email
-                User sender = userRepository.findByEmail(senderEmail)
+                User sender = currentUserService.findByEmail(senderEmail)
                                 .orElseThrow(() -> new RuntimeException("Sender not found"));
                 if (!sender.getId().equals(dto.getSenderId())) {
                         throw new SecurityException("Sender ID does not match authenticated user");
@@ -60,7 +69,8 @@ public class ChatService {
                 message.setDelivery(delivery);
                 message.setContent(dto.getContent());
                 message.setTimestamp(dto.getTimestamp() != null ? dto.getTimestamp() : LocalDateTime.now());
-                message.setIsDelivered(true); // Assume message is delivered when saved
+                // Only the receiver's ack on /app/chat.delivered (markDelivered) sets this
+                message.setIsDelivered(false);
                 message.setIsRead(false);
                 message.setMessageType(dto.getMessageType());
                 message.setFileUrl(dto.getFileUrl());
@@ -68,7 +78,8 @@ public class ChatService {
                 message.setLatitude(dto.getLatitude());
                 message.setLongitude(dto.getLongitude());
 
-                ChatMessage saved = chatMessageRepository.save(message);
+                ChatMessage saved = chatMessageWriter.persist(message);
+                unreadCounterService.messageSent(receiver.getEmail(), delivery.getId());
 
                 ChatMessageDTO responseDTO = ChatMessageDTO.builder()
                                 .id(saved.getId())
@@ -86,39 +97,9 @@ public class ChatService {
                                 .isRead(saved.getIsRead())
                                 .isDelivered(saved.getIsDelivered())
                                 .build();
-                // ───────── new code ─────────
-// 1️⃣ broadcast the chat message as you already do
-messagingTemplate.convertAndSend(
-    "/topic/delivery." + delivery.getId() + ".chat",
-    responseDTO
-);
-
-// 2️⃣ compute the fresh unread‐count for the receiver
-int newUnread = chatMessageRepository
-    .countByDeliveryIdAndReceiverIdAndIsReadFalse(delivery.getId(), receiver.getId());
-
-// 3️⃣ send it *only* to that user’s personal queue
-messagingTemplate.convertAndSendToUser(
-    receiver.getEmail(),
-    "/queue/chat." + delivery.getId() + ".count",
-    newUnread
-);
-// ───────── end new code ─────────
-
-
-                // WEBSOCKET NOTIFICATION - Send to the chat room
-                String destination = "/topic/delivery." + delivery.getId() + ".chat";
-                messagingTemplate.convertAndSend(destination, responseDTO);
-
-                // WEBSOCKET NOTIFICATION - Send notification to specific receiver
-                String notificationDestination = "/user/" + receiver.getEmail() + "/queue/notifications";
-                Map<String, Object> notification = new HashMap<>();
-                notification.put("type", "NEW_MESSAGE");
-                notification.put("deliveryId", delivery.getId());
-                notification.put("senderName", sender.getFullName());
-                notification.put("message", saved.getContent());
-                notification.put("timestamp", saved.getTimestamp());
-                messagingTemplate.convertAndSend(notificationDestination, notification);
+                // Room broadcast, receiver notification and unread badge, each serialized once
+                chatFanout.publishMessage(responseDTO, receiver.getEmail(),
+                                unreadCounterService.countFor(receiver.getEmail(), delivery.getId()));
 
                 return responseDTO;
         }
@@ -126,33 +107,54 @@ messagingTemplate.convertAndSendToUser(
 
 
 
+    // First page of the history: the latest messages, oldest first
     public List<ChatMessageDTO> getMessagesForDelivery(Long deliveryId) {
-        DeliveryRequest delivery = deliveryRequestRepository.findById(deliveryId)
-                .orElseThrow(() -> new RuntimeException("Delivery not found"));
+        return getMessagePage(deliveryId, null, null, DEFAULT_HISTORY_PAGE_SIZE).getItems();
+    }
 
-        return chatMessageRepository.findByDeliveryIdOrderByTimestampAsc(delivery.getId())
-                .stream()
-                .map(msg -> ChatMessageDTO.builder()
-                        .id(msg.getId())
-                        .matchId(deliveryId)
-                        .senderId(msg.getSender().getId())
-                        .senderName(msg.getSender().getFullName())
-                        .senderRole(msg.getSender().getRole())
-                        .content(msg.getContent())
-                        .messageType(msg.getMessageType())
-                        .timestamp(msg.getTimestamp())
-                        .fileUrl(msg.getFileUrl())
-                        .fileName(msg.getFileName())
-                        .latitude(msg.getLatitude())
-                        .longitude(msg.getLongitude())
-                        .isRead(msg.getIsRead())
-                        .isDelivered(msg.getIsDelivered())
-                        .build()
-                ).collect(Collectors.toList());
+    public ChatMessagePageDTO getMessagePage(Long deliveryId, Long beforeId, Long afterId, int size) {
+        if (!deliveryRequestRepository.existsById(deliveryId)) {
+                throw new RuntimeException("Delivery not found");
+        }
+        if (beforeId != null && afterId != null) {
+                throw new IllegalArgumentException("Use either before or after, not both");
+        }
+
+        // Write-behind messages must be visible to the query
+        chatMessageWriter.flushPending();
+
+        int pageSize = Math.max(1, Math.min(size, MAX_HISTORY_PAGE_SIZE));
+        // One extra row tells if there is more without a COUNT query
+        PageRequest window = PageRequest.of(0, pageSize + 1);
+
+        List<ChatMessageDTO> rows;
+        if (afterId != null) {
+                LocalDateTime cursor = cursorTimestamp(afterId, deliveryId);
+                rows = chatMessageRepository.findPageAfter(deliveryId, cursor, afterId, window);
+        } else if (beforeId != null) {
+                LocalDateTime cursor = cursorTimestamp(beforeId, deliveryId);
+                rows = chatMessageRepository.findPageBefore(deliveryId, cursor, beforeId, window);
+        } else {
+                rows = chatMessageRepository.findLatestPage(deliveryId, window);
+        }
+
+        boolean hasMore = rows.size() > pageSize;
+        List<ChatMessageDTO> items = new ArrayList<>(hasMore ? rows.subList(0, pageSize) : rows);
+        if (afterId == null) {
+                // backwards windows come newest first from the index
+                Collections.reverse(items);
+        }
+        return new ChatMessagePageDTO(items, hasMore);
+    }
+
+    private LocalDateTime cursorTimestamp(Long messageId, Long deliveryId) {
+        return chatMessageRepository.findTimestampByIdAndDeliveryId(messageId, deliveryId)
+                .orElseThrow(() -> new RuntimeException("Message not found"));
     }
 
         @Transactional
         public ChatMessageDTO markMessageAsRead(Long messageId, String authenticatedEmail) {
+                chatMessageWriter.flushPending();
                 ChatMessage message = chatMessageRepository.findById(messageId)
                                 .orElseThrow(() -> new RuntimeException("Message not found"));
 
@@ -161,11 +163,14 @@ messagingTemplate.convertAndSendToUser(
                         throw new SecurityException("Only the receiver can mark the message as read.");
                 }
 
+                boolean wasUnread = !Boolean.TRUE.equals(message.getIsRead());
                 message.setIsRead(true);
                 ChatMessage saved = chatMessageRepository.save(message);
+                if (wasUnread) {
+                        unreadCounterService.messageRead(authenticatedEmail, saved.getDelivery().getId());
+                }
                 MessageReadEvent event = new MessageReadEvent(saved.getId(), saved.getDelivery().getId());
-                String topic = "/topic/delivery." + saved.getDelivery().getId() + ".read";
-                messagingTemplate.convertAndSend(topic, event);
+                chatFanout.publish("/topic/delivery." + saved.getDelivery().getId() + ".read", event);
 
                 return ChatMessageDTO.builder()
                                 .id(saved.getId())
@@ -185,14 +190,45 @@ messagingTemplate.convertAndSendToUser(
                                 .build();
         }
         
+        // Receiver-side delivery ack: flags the given messages as delivered and tells each
+        // sender which of theirs arrived, on /user/queue/chat.{deliveryId}.delivered
+        @Transactional
+        public List<Long> markDelivered(List<Long> messageIds, String receiverEmail) {
+                if (messageIds == null || messageIds.isEmpty()) {
+                        return List.of();
+                }
+                User receiver = currentUserService.findByEmail(receiverEmail)
+                                .orElseThrow(() -> new RuntimeException("User not found"));
+                chatMessageWriter.flushPending();
+
+                List<Object[]> rows = chatMessageRepository.findUndeliveredForReceiver(messageIds, receiver.getId());
+                if (rows.isEmpty()) {
+                        return List.of();
+                }
+                List<Long> ids = rows.stream().map(row -> (Long) row[0]).toList();
+                chatMessageRepository.markDelivered(ids);
+
+                // [id, deliveryId, senderEmail] grouped per sender and delivery
+                Map<String, List<Long>> bySenderAndDelivery = rows.stream().collect(Collectors.groupingBy(
+                                row -> row[2] + "|" + row[1],
+                                Collectors.mapping(row -> (Long) row[0], Collectors.toList())));
+                bySenderAndDelivery.forEach((key, delivered) -> {
+                        int separator = key.lastIndexOf('|');
+                        chatFanout.publishToUser(key.substring(0, separator),
+                                        "/queue/chat." + key.substring(separator + 1) + ".delivered", delivered);
+                });
+                return ids;
+        }
+
 //====> new code 
         @Transactional
 public List<Long> markAllMessagesAsReadForReceiver(
         Long deliveryId, 
         String receiverEmail
 ) {
-        User receiver = userRepository.findByEmail(receiverEmail)
+        User receiver = currentUserService.findByEmail(receiverEmail)
                         .orElseThrow(() -> new RuntimeException("User not found"));
+        chatMessageWriter.flushPending();
 
         // fetch and mark
         List<ChatMessage> unread = chatMessageRepository
@@ -204,6 +240,7 @@ public List<Long> markAllMessagesAsReadForReceiver(
 
         unread.forEach(m -> m.setIsRead(true));
         chatMessageRepository.saveAll(unread);
+        unreadCounterService.allRead(receiverEmail, deliveryId);
 
         return ids;
 }
@@ -236,7 +273,7 @@ public List<Long> markAllMessagesAsReadForReceiver(
         MultipartFile file
         ) throws IOException {
 
-                User sender = userRepository.findByEmail(senderEmail)
+                User sender = currentUserService.findByEmail(senderEmail)
                                 .orElseThrow(() -> new RuntimeException("Sender not found"));
 
                 if (!sender.getId().equals(senderId)) {
@@ -251,8 +288,9 @@ public List<Long> markAllMessagesAsReadForReceiver(
                         throw new SecurityException("User is not authorized to send messages for this delivery");
                 }
 
-                // Simulate storing the file (this should be replaced with actual cloud storage)
-                String fakeUrl = "http://localhost:8080/files/" + file.getOriginalFilename();
+                AttachmentDTO stored = attachmentStore.store(file.getInputStream(), file.getOriginalFilename());
+                imageVariantService.schedule(stored.getKey());
+                String fileUrl = stored.getUrl();
 
                 User receiver = sender.getRole() == Role.CUSTOMER
                                 ? delivery.getTransporter()
@@ -264,13 +302,14 @@ public List<Long> markAllMessagesAsReadForReceiver(
                 message.setDelivery(delivery);
                 message.setContent(file.getOriginalFilename());
                 message.setFileName(file.getOriginalFilename());
-                message.setFileUrl(fakeUrl);
+                message.setFileUrl(fileUrl);
                 message.setIsRead(false);
-                message.setIsDelivered(true);
+                message.setIsDelivered(false);
                 message.setMessageType(MessageType.FILE);
                 message.setTimestamp(LocalDateTime.now());
 
-                ChatMessage saved = chatMessageRepository.save(message);
+                ChatMessage saved = chatMessageWriter.persist(message);
+                unreadCounterService.messageSent(receiver.getEmail(), delivery.getId());
 
                 return ChatMessageDTO.builder()
                                 .id(saved.getId())
@@ -288,38 +327,9 @@ public List<Long> markAllMessagesAsReadForReceiver(
                                 .build();
         }
 
+        // Served from the in-memory counters, no DB access
         public Map<Long, Integer> getUnreadCountsForUser(String userEmail) {
-                User user = userRepository.findByEmail(userEmail)
-                                .orElseThrow(() -> new RuntimeException("User not found"));
-
-                Map<Long, Integer> unreadCounts = new HashMap<>();
-
-                // Get deliveries where user is customer (this method exists)
-                List<DeliveryRequest> customerDeliveries = deliveryRequestRepository.findByCustomer(user);
-
-                // For transporter deliveries, we need to add this method OR use a different approach
-                // Let's use a simple query for now
-                List<DeliveryRequest> allDeliveries = deliveryRequestRepository.findAll();
-                List<DeliveryRequest> transporterDeliveries = allDeliveries.stream()
-                                .filter(d -> d.getTransporter() != null
-                                                && d.getTransporter().getId().equals(user.getId()))
-                                .collect(Collectors.toList());
-
-                // Combine both lists
-                List<DeliveryRequest> allUserDeliveries = new ArrayList<>();
-                allUserDeliveries.addAll(customerDeliveries);
-                allUserDeliveries.addAll(transporterDeliveries);
-
-                for (DeliveryRequest delivery : allUserDeliveries) {
-                        int unreadCount = chatMessageRepository
-                                        .countByDeliveryIdAndReceiverIdAndIsReadFalse(delivery.getId(), user.getId());
-
-                        if (unreadCount > 0) {
-                                unreadCounts.put(delivery.getId(), unreadCount);
-                        }
-                }
-
-                return unreadCounts;
+                return unreadCounterService.countsFor(userEmail);
         }
 
         public String getOtherParticipantEmail(Long deliveryId, String meEmail) {
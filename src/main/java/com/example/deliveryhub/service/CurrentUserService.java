@@ -0,0 +1,138 @@
+package com.example.deliveryhub.service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpAttributes;
+import org.springframework.messaging.simp.SimpAttributesContextHolder;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import com.example.deliveryhub.model.User;
+import com.example.deliveryhub.util.ExpiringCache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Resolves users by email at most once per HTTP request or STOMP session, so the several
+// services (and SecurityUtils) touched by one call share a single lookup.
+// - HTTP: kept in a request attribute, gone when the request ends.
+// - STOMP: kept in the session attributes for users.cache.ttl-ms, since a session can
+//   outlive changes made to the user.
+// - Anything else (schedulers, startup): straight to UserCacheService.
+// users.current.lookups counts resolutions by scope, result=reused being the lookups avoided.
+@Service
+public class CurrentUserService {
+
+    private static final String ATTRIBUTE = CurrentUserService.class.getName() + ".users";
+    private static final int SESSION_CACHE_SIZE = 16;
+
+    private final UserCacheService userCacheService;
+    private final long sessionTtlMs;
+
+    private final Counter requestReused;
+    private final Counter requestLoaded;
+    private final Counter stompReused;
+    private final Counter stompLoaded;
+    private final Counter unscoped;
+
+    public CurrentUserService(UserCacheService userCacheService,
+                              MeterRegistry meterRegistry,
+                              @Value("${users.cache.ttl-ms:30000}") long sessionTtlMs) {
+        this.userCacheService = userCacheService;
+        this.sessionTtlMs = sessionTtlMs;
+
+        this.requestReused = lookups(meterRegistry, "request", "reused");
+        this.requestLoaded = lookups(meterRegistry, "request", "loaded");
+        this.stompReused = lookups(meterRegistry, "stomp", "reused");
+        this.stompLoaded = lookups(meterRegistry, "stomp", "loaded");
+        this.unscoped = lookups(meterRegistry, "none", "loaded");
+    }
+
+    // The authenticated caller of the current HTTP request
+    public User getCurrentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null) {
+            throw new RuntimeException("User not found");
+        }
+        return getByEmail(authentication.getName());
+    }
+
+    public User getByEmail(String email) {
+        return findByEmail(email).orElseThrow(() -> new RuntimeException("User not found"));
+    }
+
+    public Optional<User> findByEmail(String email) {
+        if (email == null) {
+            return Optional.empty();
+        }
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null) {
+            return fromRequest(request, email);
+        }
+        SimpAttributes session = SimpAttributesContextHolder.getAttributes();
+        if (session != null) {
+            return fromSession(session, email);
+        }
+        unscoped.increment();
+        return userCacheService.findByEmail(email);
+    }
+
+    // Single-threaded per request: callers in the same request share the instance
+    @SuppressWarnings("unchecked")
+    private Optional<User> fromRequest(RequestAttributes request, String email) {
+        Map<String, User> users = (Map<String, User>) request.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (users == null) {
+            users = new HashMap<>();
+            request.setAttribute(ATTRIBUTE, users, RequestAttributes.SCOPE_REQUEST);
+        }
+        User user = users.get(email);
+        if (user != null) {
+            requestReused.increment();
+            return Optional.of(user);
+        }
+        requestLoaded.increment();
+        Optional<User> loaded = userCacheService.findByEmail(email);
+        if (loaded.isPresent()) {
+            users.put(email, loaded.get());
+        }
+        return loaded;
+    }
+
+    // Messages of one session can be handled concurrently, so each gets its own copy
+    @SuppressWarnings("unchecked")
+    private Optional<User> fromSession(SimpAttributes session, String email) {
+        ExpiringCache<String, User> users;
+        synchronized (session.getSessionMutex()) {
+            users = (ExpiringCache<String, User>) session.getAttribute(ATTRIBUTE);
+            if (users == null) {
+                users = new ExpiringCache<>(SESSION_CACHE_SIZE);
+                session.setAttribute(ATTRIBUTE, users);
+            }
+        }
+        User user = users.get(email);
+        if (user != null) {
+            stompReused.increment();
+            return Optional.of(UserCacheService.copyOf(user));
+        }
+        stompLoaded.increment();
+        Optional<User> loaded = userCacheService.findByEmail(email);
+        if (loaded.isPresent()) {
+            users.put(email, UserCacheService.copyOf(loaded.get()), System.currentTimeMillis() + sessionTtlMs);
+        }
+        return loaded;
+    }
+
+    private static Counter lookups(MeterRegistry meterRegistry, String scope, String result) {
+        return Counter.builder("users.current.lookups")
+                .description("Current-user resolutions; result=reused are lookups avoided")
+                .tag("scope", scope)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
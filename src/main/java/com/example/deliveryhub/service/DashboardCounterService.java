@@ -0,0 +1,124 @@
+package com.example.deliveryhub.service;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.deliveryhub.dto.AdminDashboardDTO;
+import com.example.deliveryhub.dto.DeliveryStatusPercentageDTO;
+import com.example.deliveryhub.model.Role;
+import com.example.deliveryhub.repository.DeliveryRequestRepository;
+import com.example.deliveryhub.repository.UserRepository;
+import com.example.deliveryhub.util.TransactionHooks;
+
+import lombok.RequiredArgsConstructor;
+
+// In-memory delivery/user counters behind /api/admin/dashboard.
+// LongAdder cells are striped internally, so concurrent writers don't contend on one value.
+// Seeded on startup, moved by the status transitions, and periodically reconciled with the DB
+// to repair any drift (e.g. rows changed outside the app).
+@Service
+@RequiredArgsConstructor
+public class DashboardCounterService {
+
+    private final DeliveryRequestRepository deliveryRequestRepository;
+    private final UserRepository userRepository;
+
+    private final Map<String, LongAdder> deliveriesByStatus = new ConcurrentHashMap<>();
+    private final Map<Role, LongAdder> usersByRole = new EnumMap<>(Role.class);
+    private final LongAdder totalDeliveries = new LongAdder();
+
+    {
+        for (Role role : Role.values()) {
+            usersByRole.put(role, new LongAdder());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        reconcile();
+    }
+
+    // Two grouped queries replace the seven COUNT(*) calls; rows changed while this runs
+    // may be off by one until the next pass.
+    @Scheduled(fixedDelayString = "${dashboard.counters.reconcile-interval-ms:300000}",
+               initialDelayString = "${dashboard.counters.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        Map<String, Long> statusCounts = new HashMap<>();
+        long total = 0;
+        for (DeliveryStatusPercentageDTO row : deliveryRequestRepository.countDeliveriesByStatus()) {
+            if (row.getStatus() != null) {
+                statusCounts.put(row.getStatus(), row.getCount());
+            }
+            total += row.getCount();
+        }
+
+        Map<Role, Long> roleCounts = new EnumMap<>(Role.class);
+        for (Object[] row : userRepository.countGroupedByRole()) {
+            if (row[0] != null) {
+                roleCounts.put((Role) row[0], ((Number) row[1]).longValue());
+            }
+        }
+
+        deliveriesByStatus.forEach((status, adder) -> reset(adder, statusCounts.getOrDefault(status, 0L)));
+        statusCounts.forEach((status, count) -> reset(adder(status), count));
+        usersByRole.forEach((role, adder) -> reset(adder, roleCounts.getOrDefault(role, 0L)));
+        reset(totalDeliveries, total);
+    }
+
+    public AdminDashboardDTO snapshot() {
+        return new AdminDashboardDTO(
+                totalDeliveries.sum(),
+                usersByRole.get(Role.CUSTOMER).sum(),
+                usersByRole.get(Role.TRANSPORTER).sum(),
+                count("PENDING"),
+                count("ASSIGNED"),
+                count("PICKED_UP"),
+                count("DELIVERED"));
+    }
+
+    public void deliveryCreated(String status) {
+        TransactionHooks.afterCommit(() -> {
+            totalDeliveries.increment();
+            adder(status).increment();
+        });
+    }
+
+    public void statusChanged(String from, String to) {
+        if (from != null && from.equals(to)) {
+            return;
+        }
+        TransactionHooks.afterCommit(() -> {
+            if (from != null) {
+                adder(from).decrement();
+            }
+            adder(to).increment();
+        });
+    }
+
+    public void userCreated(Role role) {
+        if (role != null) {
+            TransactionHooks.afterCommit(() -> usersByRole.get(role).increment());
+        }
+    }
+
+    private long count(String status) {
+        LongAdder adder = deliveriesByStatus.get(status);
+        return adder != null ? adder.sum() : 0L;
+    }
+
+    private LongAdder adder(String status) {
+        return deliveriesByStatus.computeIfAbsent(status, s -> new LongAdder());
+    }
+
+    private void reset(LongAdder adder, long value) {
+        adder.add(value - adder.sum());
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.deliveryhub.service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.stereotype.Component;
+
+import com.example.deliveryhub.dto.DeliveryApplicationDTO;
+import com.example.deliveryhub.model.DeliveryApplication;
+import com.example.deliveryhub.model.User;
+import com.example.deliveryhub.repository.DeliveryRequestRepository;
+import com.example.deliveryhub.repository.RatingRepository;
+
+import lombok.RequiredArgsConstructor;
+
+// Builds DeliveryApplicationDTOs for a whole list at once: two grouped IN (...) queries
+// for ratings and completed deliveries, whatever the number of applications.
+@Component
+@RequiredArgsConstructor
+public class DeliveryApplicationEnricher {
+
+    private final RatingRepository ratingRepository;
+    private final DeliveryRequestRepository deliveryRequestRepository;
+
+    public List<DeliveryApplicationDTO> toDTOs(List<DeliveryApplication> applications) {
+        if (applications.isEmpty()) {
+            return List.of();
+        }
+
+        Set<Long> transporterIds = applications.stream()
+                .map(a -> a.getTransporter().getId())
+                .collect(Collectors.toSet());
+
+        Map<Long, Object[]> ratings = new HashMap<>();
+        for (Object[] row : ratingRepository.averageAndCountByRevieweeIds(transporterIds)) {
+            ratings.put((Long) row[0], row);
+        }
+
+        Map<Long, Long> completed = new HashMap<>();
+        for (Object[] row : deliveryRequestRepository.countDeliveredByTransporterIds(transporterIds)) {
+            completed.put((Long) row[0], ((Number) row[1]).longValue());
+        }
+
+        return applications.stream()
+                .map(a -> toDTO(a, ratings.get(a.getTransporter().getId()),
+                        completed.getOrDefault(a.getTransporter().getId(), 0L)))
+                .toList();
+    }
+
+    public DeliveryApplicationDTO toDTO(DeliveryApplication application) {
+        return toDTOs(List.of(application)).get(0);
+    }
+
+    private DeliveryApplicationDTO toDTO(DeliveryApplication application, Object[] rating, long completedDeliveries) {
+        User transporter = application.getTransporter();
+        Double averageRating = rating != null && rating[1] != null ? ((Number) rating[1]).doubleValue() : 0.0;
+        int totalRatings = rating != null ? ((Number) rating[2]).intValue() : 0;
+
+        return new DeliveryApplicationDTO(
+                application.getId(),
+                application.getDeliveryRequest().getId(),
+                transporter.getId(),
+                transporter.getFullName(),
+                transporter.getEmail(),
+                averageRating,
+                (int) completedDeliveries,
+                totalRatings,
+                application.getQuotedPrice(),
+                application.getAppliedAt(),
+                application.getStatus().toString());
+    }
+}
@@ -1,25 +1,34 @@
 package com.example.deliveryhub.service;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import com.example.deliveryhub.dto.DeclineRequestDTO;
 import com.example.deliveryhub.dto.DeliveryApplicationDTO;
+import com.example.deliveryhub.dto.DeliveryFeedPageDTO;
 import com.example.deliveryhub.dto.DeliveryRequestDTO;
 import com.example.deliveryhub.dto.DeliveryResponseDTO;
 import com.example.deliveryhub.enums.ApplicationStatus;
+import com.example.deliveryhub.exception.DeliveryConflictException;
 import com.example.deliveryhub.model.DeliveryApplication;
 import com.example.deliveryhub.model.DeliveryRequest;
 import com.example.deliveryhub.model.TransporterPricing;
 import com.example.deliveryhub.model.User;
 import com.example.deliveryhub.repository.DeliveryApplicationRepository;
 import com.example.deliveryhub.repository.DeliveryRequestRepository;
-import com.example.deliveryhub.repository.RatingRepository;
 import com.example.deliveryhub.repository.TransporterPricingRepository;
 import com.example.deliveryhub.repository.UserRepository;
+import com.example.deliveryhub.util.DeliveryMapper;
 import com.example.deliveryhub.util.SecurityUtils;
 
 import jakarta.transaction.Transactional;
@@ -33,12 +42,19 @@ public class DeliveryService {
     private final DeliveryApplicationRepository deliveryApplicationRepository;
     private final TransporterPricingRepository transporterPricingRepository;
     private final UserRepository userRepository;
-    private final RatingRepository ratingRepository;
+    private final CurrentUserService currentUserService;
     private final SecurityUtils securityUtils;
+    private final TransporterStatsService transporterStatsService;
+    private final DashboardCounterService dashboardCounterService;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final DeliveryApplicationEnricher deliveryApplicationEnricher;
+
+    private static final int MAX_FEED_PAGE_SIZE = 100;
+    private static final LocalDateTime FEED_START = LocalDateTime.of(1970, 1, 1, 0, 0);
 
     public DeliveryResponseDTO createRequest(DeliveryRequestDTO dto) {
         String email = SecurityContextHolder.getContext().getAuthentication().getName();
-        User customer = userRepository.findByEmail(email)
+        User customer = currentUserService.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         DeliveryRequest request = new DeliveryRequest();
@@ -59,137 +75,88 @@ public class DeliveryService {
                 request.setRequestedAt(LocalDateTime.now());
         } else {
                 request.setStatus("PENDING"); // Old flow - any transporter can accept
+                request.setRequestedAt(LocalDateTime.now()); // feed cursor is (requestedAt, id)
         }
 
         DeliveryRequest saved = deliveryRequestRepository.save(request);
+        dashboardCounterService.deliveryCreated(saved.getStatus());
 
-        return new DeliveryResponseDTO(
-                saved.getId(),
-                saved.getPickupCity(),
-                saved.getDropoffCity(),
-                saved.getItemType(),
-                saved.getDescription(),
-                saved.getPickupDate(),
-                saved.getStatus(),
-                saved.getCustomer().getEmail(),
-                saved.getTransporter() != null ? saved.getTransporter().getEmail() : null,
-                saved.getCustomer().getFullName(),
-                saved.getTransporter() != null ? saved.getTransporter().getFullName() : null,
-                saved.getCancelReason(),
-                saved.getDeclineReason() != null ? saved.getDeclineReason().toString() : null,
-                saved.getDeclineMessage(),
-                saved.getDeclinedAt(),
-                saved.getDeclineDismissed(),
-                saved.getCustomer().getId(),
-                saved.getTransporter() != null ? saved.getTransporter().getId() : null,
-                saved.getWeightKg(),
-                saved.getRequestedAt(),
-                saved.getAcceptedAt()
-        );
+        return DeliveryMapper.toResponseDTO(saved);
     }
     
     public List<DeliveryResponseDTO> getMyRequests() {
         String email = SecurityContextHolder.getContext().getAuthentication().getName();
-        User user = userRepository.findByEmail(email)
+        User user = currentUserService.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         List<DeliveryRequest> requests = deliveryRequestRepository.findByCustomer(user);
 
         return requests.stream()
-                .map(req -> new DeliveryResponseDTO(
-                        req.getId(),
-                        req.getPickupCity(),
-                        req.getDropoffCity(),
-                        req.getItemType(),
-                        req.getDescription(),
-                        req.getPickupDate(),
-                        req.getStatus(),
-                        req.getCustomer().getEmail(),
-                        req.getTransporter() != null ? req.getTransporter().getEmail() : null,
-                        req.getCustomer().getFullName(),
-                        req.getTransporter() !=null ? req.getTransporter().getFullName() : null, 
-                        req.getCancelReason(),
-                        req.getDeclineReason() != null ? req.getDeclineReason().toString() : null,
-                        req.getDeclineMessage(),
-                        req.getDeclinedAt(),
-                        req.getDeclineDismissed(),
-                        req.getCustomer().getId(),
-                        req.getTransporter() != null ? req.getTransporter().getId():null, 
-                        req.getWeightKg(),
-                        req.getRequestedAt(),
-                        req.getAcceptedAt())).toList();
+                .map(DeliveryMapper::toResponseDTO).toList();
     }
     
     public List<DeliveryResponseDTO> getAvailableRequestsForTransporters() {
         List<DeliveryRequest> pending = deliveryRequestRepository.findByStatus("PENDING");
 
-        return pending.stream().map(req -> new DeliveryResponseDTO(
-                req.getId(),
-                req.getPickupCity(),
-                req.getDropoffCity(),
-                req.getItemType(),
-                req.getDescription(),
-                req.getPickupDate(),
-                req.getStatus(),
-                req.getCustomer().getEmail(),
-                req.getTransporter() != null ? req.getTransporter().getEmail() : null,
-                req.getCustomer().getFullName(),
-                req.getTransporter() !=null ? req.getTransporter().getFullName() : null,
-                req.getCancelReason(),
-                req.getDeclineReason() != null ? req.getDeclineReason().toString() : null,
-                req.getDeclineMessage(),
-                req.getDeclinedAt(),
-                req.getDeclineDismissed(),
-                req.getCustomer().getId(),
-                req.getTransporter() != null ? req.getTransporter().getId(): null,
-                req.getWeightKg(),
-                req.getRequestedAt(),
-                req.getAcceptedAt())).toList();
+        return pending.stream().map(DeliveryMapper::toResponseDTO).toList();
+    }
+    
+    // Keyset-paginated variant of getAvailableRequestsForTransporters()
+    public DeliveryFeedPageDTO getAvailableFeed(String pickupCity, String dropoffCity,
+                                                LocalDate fromDate, LocalDate toDate, Double maxWeight,
+                                                LocalDateTime afterRequestedAt, Long afterId, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_FEED_PAGE_SIZE));
+
+        // First page starts before any possible cursor
+        LocalDateTime cursorRequestedAt = afterRequestedAt != null ? afterRequestedAt : FEED_START;
+        Long cursorId = afterRequestedAt != null && afterId != null ? afterId : 0L;
+
+        // Fetch one extra row to know if there is a next page without a COUNT query
+        List<DeliveryResponseDTO> rows = deliveryRequestRepository.findAvailableFeedPage(
+                cursorRequestedAt,
+                cursorId,
+                blankToNull(pickupCity),
+                blankToNull(dropoffCity),
+                fromDate,
+                toDate,
+                maxWeight,
+                PageRequest.of(0, pageSize + 1));
+
+        boolean hasMore = rows.size() > pageSize;
+        List<DeliveryResponseDTO> items = hasMore ? rows.subList(0, pageSize) : rows;
+        DeliveryResponseDTO last = items.isEmpty() ? null : items.get(items.size() - 1);
+
+        return new DeliveryFeedPageDTO(
+                items,
+                last != null ? last.getRequestedAt() : null,
+                last != null ? last.getId() : null,
+                hasMore);
+    }
+
+    private String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
     }
     
     public DeliveryResponseDTO acceptRequest(Long id) {
         String email = SecurityContextHolder.getContext().getAuthentication().getName();
-        User transporter = userRepository.findByEmail(email)
+        User transporter = currentUserService.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("Transporter not found"));
 
-        DeliveryRequest request = deliveryRequestRepository.findByIdAndStatus(id, "PENDING")
-                .orElseThrow(() -> new RuntimeException("Delivery not found or already taken"));
-
-        request.setStatus("ASSIGNED");
-        request.setTransporter(transporter);
-        request.setAssignedAt(LocalDateTime.now());
-
+        // Check-and-set in one UPDATE: with concurrent accepts exactly one transporter gets the row
+        if (deliveryRequestRepository.claimPending(id, transporter, LocalDateTime.now()) == 0) {
+                throw new DeliveryConflictException("Delivery not found or already taken");
+        }
+        dashboardCounterService.statusChanged("PENDING", "ASSIGNED");
 
-        DeliveryRequest saved = deliveryRequestRepository.save(request);
+        DeliveryRequest saved = deliveryRequestRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Delivery not found"));
 
-        return new DeliveryResponseDTO(
-                saved.getId(),
-                saved.getPickupCity(),
-                saved.getDropoffCity(),
-                saved.getItemType(),
-                saved.getDescription(),
-                saved.getPickupDate(),
-                saved.getStatus(),
-                saved.getCustomer().getEmail(),
-                saved.getTransporter() != null ? saved.getTransporter().getEmail() : null,
-                saved.getCustomer().getFullName(),
-                saved.getTransporter() != null ? saved.getTransporter().getFullName() : null,
-                saved.getCancelReason(),
-                saved.getDeclineReason() != null ? saved.getDeclineReason().toString() : null,
-                saved.getDeclineMessage(),
-                saved.getDeclinedAt(),
-                saved.getDeclineDismissed(),
-                saved.getCustomer().getId(),
-                saved.getTransporter() != null ? saved.getTransporter().getId() : null,
-                saved.getWeightKg(),
-                saved.getRequestedAt(),
-                saved.getAcceptedAt()
-        );
+        return DeliveryMapper.toResponseDTO(saved);
     }
     
     public List<DeliveryResponseDTO> getAssignedDeliveries() {
             String email = SecurityContextHolder.getContext().getAuthentication().getName();
-            User transporter = userRepository.findByEmail(email)
+            User transporter = currentUserService.findByEmail(email)
                             .orElseThrow(() -> new RuntimeException("Transporter not found"));
 
             // Include all statuses that represent "assigned" deliveries
@@ -198,34 +165,14 @@ public class DeliveryService {
                             statuses);
 
             return deliveries.stream()
-                            .map(req -> new DeliveryResponseDTO(
-                                            req.getId(),
-                                            req.getPickupCity(),
-                                            req.getDropoffCity(),
-                                            req.getItemType(),
-                                            req.getDescription(),
-                                            req.getPickupDate(),
-                                            req.getStatus(),
-                                            req.getCustomer().getEmail(),
-                                            req.getTransporter() != null ? req.getTransporter().getEmail() : null,
-                                            req.getCustomer().getFullName(),
-                                            req.getTransporter() != null ? req.getTransporter().getFullName() : null,
-                                            req.getCancelReason(),
-                                            req.getDeclineReason() != null ? req.getDeclineReason().toString() : null,
-                                            req.getDeclineMessage(),
-                                            req.getDeclinedAt(),
-                                            req.getDeclineDismissed(),
-                                            req.getCustomer().getId(),
-                                            req.getTransporter() != null ? req.getTransporter().getId() : null,
-                                            req.getWeightKg(),
-                                            req.getRequestedAt(),
-                                            req.getAcceptedAt()))
+                            .map(DeliveryMapper::toResponseDTO)
                             .toList();
     }
     
+    @Transactional
     public DeliveryResponseDTO updateDeliveryStatus(Long id, String newStatus) {
     String email = SecurityContextHolder.getContext().getAuthentication().getName();
-    User transporter = userRepository.findByEmail(email)
+    User transporter = currentUserService.findByEmail(email)
             .orElseThrow(() -> new RuntimeException("Transporter not found"));
 
     DeliveryRequest request = deliveryRequestRepository.findById(id)
@@ -259,31 +206,12 @@ public class DeliveryService {
     }
 
     request.setStatus(target);
-    DeliveryRequest updated = deliveryRequestRepository.save(request);
-
-    return new DeliveryResponseDTO(
-            updated.getId(),
-            updated.getPickupCity(),
-            updated.getDropoffCity(),
-            updated.getItemType(),
-            updated.getDescription(),
-            updated.getPickupDate(),
-            updated.getStatus(),
-            updated.getCustomer().getEmail(),
-            updated.getTransporter() != null ? updated.getTransporter().getEmail() : null,
-            updated.getCustomer().getFullName(),
-            updated.getTransporter() != null ? updated.getTransporter().getFullName() : null,
-            updated.getCancelReason(),
-            updated.getDeclineReason() != null ? updated.getDeclineReason().toString() : null,
-            updated.getDeclineMessage(),
-            updated.getDeclinedAt(),
-            updated.getDeclineDismissed(),
-            updated.getCustomer().getId(),
-            updated.getTransporter() != null ? updated.getTransporter().getId() : null,
-            updated.getWeightKg(),
-            updated.getRequestedAt(),
-            updated.getAcceptedAt()
-    );
+    DeliveryRequest updated = deliveryRequestRepository.saveChecked(request);
+
+    dashboardCounterService.statusChanged(current, target);
+    transporterStatsService.onDeliveryStatusChanged(transporter.getId(), current, target);
+
+    return DeliveryMapper.toResponseDTO(updated);
 }
 
     
@@ -347,39 +275,18 @@ public class DeliveryService {
     
     public List<DeliveryResponseDTO> trackCustomerDeliveries() {
         String email = SecurityContextHolder.getContext().getAuthentication().getName();
-        User customer = userRepository.findByEmail(email)
+        User customer = currentUserService.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("User not found"));
     
         List<DeliveryRequest> requests = deliveryRequestRepository.findByCustomerAndStatusIn(customer, List.of("ASSIGNED", "PICKED_UP", "IN_TRANSIT", "DELIVERED"));
     
         return requests.stream()
-                .map(req -> new DeliveryResponseDTO(
-                        req.getId(),
-                        req.getPickupCity(),
-                        req.getDropoffCity(),
-                        req.getItemType(),
-                        req.getDescription(),
-                        req.getPickupDate(),
-                        req.getStatus(),
-                        req.getCustomer().getEmail(),
-                        req.getTransporter() != null ? req.getTransporter().getEmail() : null,
-                        req.getCustomer().getFullName(),
-                        req.getTransporter() !=null ? req.getTransporter().getFullName() : null,
-                        req.getCancelReason(),
-                        req.getDeclineReason() != null ? req.getDeclineReason().toString() : null,
-                        req.getDeclineMessage(),
-                        req.getDeclinedAt(),
-                        req.getDeclineDismissed(),
-                        req.getCustomer().getId(),
-                        req.getTransporter() != null ? req.getTransporter().getId() : null,
-                        req.getWeightKg(),
-                        req.getRequestedAt(),
-                        req.getAcceptedAt())).toList();
+                .map(DeliveryMapper::toResponseDTO).toList();
     }
 
     public List<DeliveryResponseDTO> trackCustomerDeliveries(String status) {
         String email = SecurityContextHolder.getContext().getAuthentication().getName();
-        User customer = userRepository.findByEmail(email)
+        User customer = currentUserService.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("User not found"));
     
         List<DeliveryRequest> requests;
@@ -391,33 +298,12 @@ public class DeliveryService {
         }
     
         return requests.stream()
-                .map(req -> new DeliveryResponseDTO(
-                        req.getId(),
-                        req.getPickupCity(),
-                        req.getDropoffCity(),
-                        req.getItemType(),
-                        req.getDescription(),
-                        req.getPickupDate(),
-                        req.getStatus(),
-                        req.getCustomer().getEmail(),
-                        req.getTransporter() != null ? req.getTransporter().getEmail() : null,
-                        req.getCustomer().getFullName(),
-                        req.getTransporter() !=null ? req.getTransporter().getFullName() : null,
-                        req.getCancelReason(),
-                        req.getDeclineReason() != null ? req.getDeclineReason().toString() : null,
-                        req.getDeclineMessage(),
-                        req.getDeclinedAt(),
-                        req.getDeclineDismissed(),
-                        req.getCustomer().getId(),
-                        req.getTransporter() != null ? req.getTransporter().getId() : null,
-                        req.getWeightKg(),
-                        req.getRequestedAt(),
-                        req.getAcceptedAt())).toList();
+                .map(DeliveryMapper::toResponseDTO).toList();
     }
 
     public DeliveryResponseDTO cancelDelivery(Long id, String reason) {
             String email = SecurityContextHolder.getContext().getAuthentication().getName();
-            User customer = userRepository.findByEmail(email).orElseThrow(() -> new RuntimeException("User not found"));
+            User customer = currentUserService.findByEmail(email).orElseThrow(() -> new RuntimeException("User not found"));
 
             DeliveryRequest delivery = deliveryRequestRepository.findById(id)
                             .orElseThrow(() -> new RuntimeException("Delivery not found"));
@@ -435,31 +321,10 @@ public class DeliveryService {
             delivery.setStatus("CANCELLED");
             delivery.setCancelReason(reason);
 
-            deliveryRequestRepository.save(delivery);
-
-            return new DeliveryResponseDTO(
-                        delivery.getId(),
-                        delivery.getPickupCity(),
-                        delivery.getDropoffCity(),
-                        delivery.getItemType(),
-                        delivery.getDescription(),
-                        delivery.getPickupDate(),
-                        delivery.getStatus(),
-                        delivery.getCustomer().getEmail(),
-                        delivery.getTransporter() != null ? delivery.getTransporter().getEmail() : null,
-                        delivery.getCustomer().getFullName(),
-                        delivery.getTransporter() != null ? delivery.getTransporter().getFullName() : null,
-                        delivery.getCancelReason(),
-                        delivery.getDeclineReason() != null ? delivery.getDeclineReason().toString() : null,
-                        delivery.getDeclineMessage(),
-                        delivery.getDeclinedAt(),
-                        delivery.getDeclineDismissed(),
-                        delivery.getCustomer().getId(),
-                        delivery.getTransporter() != null ? delivery.getTransporter().getId() : null,
-                        delivery.getWeightKg(),
-                        delivery.getRequestedAt(),
-                        delivery.getAcceptedAt()
-                );
+            deliveryRequestRepository.saveChecked(delivery);
+            dashboardCounterService.statusChanged("ASSIGNED", "CANCELLED");
+
+            return DeliveryMapper.toResponseDTO(delivery);
     }
 
 
@@ -475,45 +340,25 @@ public class DeliveryService {
             User currentUser = securityUtils.getCurrentUser();
 
             // Update request with decline information
+            String previousStatus = request.getStatus();
             request.setStatus("DECLINED");
             request.setDeclineReason(declineDTO.getReason());
             request.setDeclineMessage(declineDTO.getCustomMessage());
             request.setDeclinedAt(LocalDateTime.now());
             request.setDeclinedBy(currentUser.getId());
 
-            DeliveryRequest savedRequest = deliveryRequestRepository.save(request);
+            DeliveryRequest savedRequest = deliveryRequestRepository.saveChecked(request);
+            dashboardCounterService.statusChanged(previousStatus, "DECLINED");
 
             // TODO: Send notification to customer about decline
             // Customer can then choose to repost or find another transporter
 
-            return new DeliveryResponseDTO(
-                            savedRequest.getId(),
-                            savedRequest.getPickupCity(),
-                            savedRequest.getDropoffCity(),
-                            savedRequest.getItemType(),
-                            savedRequest.getDescription(),
-                            savedRequest.getPickupDate(),
-                            savedRequest.getStatus(),
-                            savedRequest.getCustomer().getEmail(),
-                            savedRequest.getTransporter() != null ? savedRequest.getTransporter().getEmail() : null,
-                            savedRequest.getCustomer().getFullName(),
-                            savedRequest.getTransporter() != null ? savedRequest.getTransporter().getFullName() : null,
-                            savedRequest.getCancelReason(),
-                            savedRequest.getDeclineReason() != null ? savedRequest.getDeclineReason().toString() : null,
-                            savedRequest.getDeclineMessage(),
-                            savedRequest.getDeclinedAt(),
-                            savedRequest.getDeclineDismissed(),
-                            savedRequest.getCustomer().getId(),
-                            savedRequest.getTransporter() != null ? savedRequest.getTransporter().getId() : null,
-                            savedRequest.getWeightKg(),
-                            savedRequest.getRequestedAt(),
-                            savedRequest.getAcceptedAt()    
-                );
+            return DeliveryMapper.toResponseDTO(savedRequest);
     }
    
     public DeliveryResponseDTO dismissDecline(Long deliveryId) {
             String email = SecurityContextHolder.getContext().getAuthentication().getName();
-            User customer = userRepository.findByEmail(email)
+            User customer = currentUserService.findByEmail(email)
                             .orElseThrow(() -> new RuntimeException("User not found"));
 
             DeliveryRequest request = deliveryRequestRepository.findById(deliveryId).orElseThrow(() -> new RuntimeException("Delivery not found"));
@@ -524,31 +369,9 @@ public class DeliveryService {
             }
 
             request.setDeclineDismissed(true);
-            DeliveryRequest saved = deliveryRequestRepository.save(request);
-
-            return new DeliveryResponseDTO(
-                            saved.getId(),
-                            saved.getPickupCity(),
-                            saved.getDropoffCity(),
-                            saved.getItemType(),
-                            saved.getDescription(),
-                            saved.getPickupDate(),
-                            saved.getStatus(),
-                            saved.getCustomer().getEmail(),
-                            saved.getTransporter() != null ? saved.getTransporter().getEmail() : null,
-                            saved.getCustomer().getFullName(),
-                            saved.getTransporter() != null ? saved.getTransporter().getFullName() : null,
-                            saved.getCancelReason(),
-                            saved.getDeclineReason() != null ? saved.getDeclineReason().toString() : null,
-                            saved.getDeclineMessage(),
-                            saved.getDeclinedAt(),
-                            saved.getDeclineDismissed(),
-                            saved.getCustomer().getId(),
-                            saved.getTransporter() != null ? saved.getTransporter().getId() : null,
-                            saved.getWeightKg(),
-                            saved.getRequestedAt(),
-                            saved.getAcceptedAt()                
-                );
+            DeliveryRequest saved = deliveryRequestRepository.saveChecked(request);
+
+            return DeliveryMapper.toResponseDTO(saved);
     }
 
     // Apply to a PENDING delivery
@@ -580,7 +403,7 @@ public class DeliveryService {
 
             DeliveryApplication savedApplication = deliveryApplicationRepository.save(application);
 
-            return mapToApplicationDTO(savedApplication);
+            return deliveryApplicationEnricher.toDTO(savedApplication);
 
     }
     
@@ -596,11 +419,10 @@ public class DeliveryService {
 
             List<DeliveryApplication> applications = deliveryApplicationRepository.findByDeliveryRequest(deliveryRequest);
 
-            return applications.stream()
-                               .map(this::mapToApplicationDTO)
-                               .toList();
+            return deliveryApplicationEnricher.toDTOs(applications);
     }
 
+    @Transactional
     public DeliveryResponseDTO acceptApplication(Long applicationId) {
             User customer = securityUtils.getCurrentUser();
 
@@ -619,81 +441,56 @@ public class DeliveryService {
                     throw new RuntimeException("Delivery is no longer pending");
             }
 
+            // Claim the delivery first; if another accept won meanwhile nothing below is written
+            Long deliveryId = deliveryRequest.getId();
+            if (deliveryRequestRepository.claimPending(deliveryId, application.getTransporter(), LocalDateTime.now()) == 0) {
+                    throw new DeliveryConflictException("Delivery is no longer pending");
+            }
+
             // Accept this application
-            application.setStatus(ApplicationStatus.ACCEPTED);
-            deliveryApplicationRepository.save(application);
-
-            // Reject all other applications for this delivery
-            List<DeliveryApplication> otherApplications = deliveryApplicationRepository
-                            .findByDeliveryRequest(deliveryRequest);
-            for (DeliveryApplication otherApp : otherApplications) {
-                    if (!otherApp.getId().equals(applicationId) && otherApp.getStatus() == ApplicationStatus.PENDING) {
-                            otherApp.setStatus(ApplicationStatus.REJECTED);
-                            deliveryApplicationRepository.save(otherApp);
-                    }
+            if (deliveryApplicationRepository.transitionStatus(applicationId,
+                            ApplicationStatus.PENDING, ApplicationStatus.ACCEPTED) == 0) {
+                    throw new DeliveryConflictException("Application is no longer pending");
             }
 
-            // Update delivery status and assign transporter
-            deliveryRequest.setStatus("ASSIGNED");
-            deliveryRequest.setTransporter(application.getTransporter());
-            deliveryRequest.setAssignedAt(LocalDateTime.now());
-
-            DeliveryRequest savedDelivery = deliveryRequestRepository.save(deliveryRequest);
-
-            return new DeliveryResponseDTO(
-                            savedDelivery.getId(),
-                            savedDelivery.getPickupCity(),
-                            savedDelivery.getDropoffCity(),
-                            savedDelivery.getItemType(),
-                            savedDelivery.getDescription(),
-                            savedDelivery.getPickupDate(),
-                            savedDelivery.getStatus(),
-                            savedDelivery.getCustomer().getEmail(),
-                            savedDelivery.getTransporter() != null ? savedDelivery.getTransporter().getEmail() : null,
-                            savedDelivery.getCustomer().getFullName(),
-                            savedDelivery.getTransporter() != null ? savedDelivery.getTransporter().getFullName() : null,
-                            savedDelivery.getCancelReason(),
-                            savedDelivery.getDeclineReason() != null ? savedDelivery.getDeclineReason().toString() : null,
-                            savedDelivery.getDeclineMessage(),
-                            savedDelivery.getDeclinedAt(),
-                            savedDelivery.getDeclineDismissed(),
-                            savedDelivery.getCustomer().getId(),
-                            savedDelivery.getTransporter() != null ?         savedDelivery.getTransporter().getId() : null,
-                            savedDelivery.getWeightKg(),
-                            savedDelivery.getRequestedAt(),
-                            savedDelivery.getAcceptedAt()                
-                );
+            // Reject all other applications for this delivery in one UPDATE.
+            // The delivery row is locked by the claim above, so the set of losers can't change in between.
+            List<String> rejectedTransporters = deliveryApplicationRepository
+                            .findTransporterEmailsByDeliveryAndStatus(deliveryId, ApplicationStatus.PENDING);
+            deliveryApplicationRepository.transitionAllForDelivery(deliveryId,
+                            ApplicationStatus.PENDING, ApplicationStatus.REJECTED);
+
+            dashboardCounterService.statusChanged("PENDING", "ASSIGNED");
+            notifyRejectedAfterCommit(deliveryId, rejectedTransporters);
+
+            DeliveryRequest savedDelivery = deliveryRequestRepository.findById(deliveryId)
+                            .orElseThrow(() -> new RuntimeException("Delivery not found"));
+
+            return DeliveryMapper.toResponseDTO(savedDelivery);
 
     }
     
 
-    // Helper method to map DeliveryApplication to DeliveryApplicationDTO
-    private DeliveryApplicationDTO mapToApplicationDTO(DeliveryApplication application) {
-            User transporter = application.getTransporter();
-
-            // Get actual rating data
-            Double averageRating = ratingRepository.findAverageRatingByRevieweeId(transporter.getId());
-            Long totalRatings = ratingRepository.countByRevieweeId(transporter.getId());
-
-            // Calculate completed deliveries count
-            Long completedDeliveries = deliveryRequestRepository
-                                                .countByTransporterAndStatus(transporter, "DELIVERED");
-                
-            return new DeliveryApplicationDTO(
-                            application.getId(),
-                            application.getDeliveryRequest().getId(),
-                            transporter.getId(),
-                            transporter.getFullName(),
-                            transporter.getEmail(),
-                            averageRating != null ? averageRating : 0.0,
-                            completedDeliveries != null ? completedDeliveries.intValue() : 0,
-                            totalRatings != null ? totalRatings.intValue() : 0,
-                            application.getQuotedPrice(),
-                            application.getAppliedAt(),
-                            application.getStatus().toString());
+    // Notifications go out only once the accept has committed
+    private void notifyRejectedAfterCommit(Long deliveryId, List<String> transporterEmails) {
+            if (transporterEmails.isEmpty()) {
+                    return;
+            }
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                            Map<String, Object> notification = new HashMap<>();
+                            notification.put("type", "APPLICATION_REJECTED");
+                            notification.put("deliveryId", deliveryId);
+                            notification.put("message", "Another transporter was selected for this delivery");
+                            notification.put("timestamp", LocalDateTime.now());
+                            for (String email : transporterEmails) {
+                                    messagingTemplate.convertAndSendToUser(email, "/queue/notifications", notification);
+                            }
+                    }
+            });
     }
 
-
     private Double calculateEstimatedEarnings(Double weightKg, User transporter) {
             if (weightKg == null || weightKg <= 0 || transporter == null) {
                     return 0.0;
@@ -720,12 +517,9 @@ public class DeliveryService {
 
             List<DeliveryApplication> applications = deliveryApplicationRepository.findByTransporter(transporter);
 
-            return applications.stream()
-                               .map(this::mapToApplicationDTO)
-                               .toList();
+            return deliveryApplicationEnricher.toDTOs(applications);
     }
 
-        @Transactional
         public DeliveryRequest acceptDeliveryRequest(Long deliveryId, Long transporterId) {
         DeliveryRequest delivery = deliveryRequestRepository.findById(deliveryId)
                 .orElseThrow(() -> new RuntimeException("Delivery not found"));
@@ -746,11 +540,15 @@ public class DeliveryService {
                 throw new RuntimeException("Delivery request has expired");
         }
         
-        // Accept the delivery
-        delivery.setStatus("ASSIGNED");
-        delivery.setAcceptedAt(LocalDateTime.now());
-        
-        return deliveryRequestRepository.save(delivery);
+        // Accept the delivery; the UPDATE re-checks status, transporter and expiry atomically
+        LocalDateTime now = LocalDateTime.now();
+        if (deliveryRequestRepository.acceptRequested(deliveryId, transporterId, now, now.minusHours(48)) == 0) {
+                throw new DeliveryConflictException("Delivery was updated by another request");
+        }
+        dashboardCounterService.statusChanged("REQUESTED", "ASSIGNED");
+
+        return deliveryRequestRepository.findById(deliveryId)
+                .orElseThrow(() -> new RuntimeException("Delivery not found"));
         }
    
     
@@ -1,68 +1,50 @@
 package com.example.deliveryhub.service;
 
-import com.google.api.client.googleapis.auth.oauth2.GoogleIdToken;
-import com.google.api.client.googleapis.auth.oauth2.GoogleIdTokenVerifier;
-import com.google.api.client.http.javanet.NetHttpTransport;
-import com.google.api.client.json.gson.GsonFactory;
+import com.example.deliveryhub.auth.GoogleTokenVerifier;
 import com.example.deliveryhub.dto.GoogleUserDTO;
-import org.springframework.beans.factory.annotation.Value;
+import io.jsonwebtoken.Claims;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
-import java.util.Collections;
-
 @Service
+@RequiredArgsConstructor
 public class GoogleOAuthService {
 
-    @Value("${google.client.id}")
-    private String googleClientId;
-
-    private final GoogleIdTokenVerifier verifier;
-
-    public GoogleOAuthService(@Value("${google.client.id}") String googleClientId) {
-        this.verifier = new GoogleIdTokenVerifier.Builder(
-                new NetHttpTransport(),
-                GsonFactory.getDefaultInstance())
-                .setAudience(Collections.singletonList(googleClientId))
-                .build();
-    }
+    // Offline signature check against cached Google keys (no network on the hot path)
+    private final GoogleTokenVerifier googleTokenVerifier;
 
     /**
      * Verify Google ID token and extract user information
      */
     public GoogleUserDTO verifyGoogleToken(String idTokenString) throws Exception {
         try {
-            GoogleIdToken idToken = verifier.verify(idTokenString);
-            
-            if (idToken != null) {
-                GoogleIdToken.Payload payload = idToken.getPayload();
+            Claims payload = googleTokenVerifier.verify(idTokenString);
 
-                // Extract user information from the token
-                String userId = payload.getSubject();
-                String email = payload.getEmail();
-                boolean emailVerified = payload.getEmailVerified();
-                String name = (String) payload.get("name");
-                String pictureUrl = (String) payload.get("picture");
-                String givenName = (String) payload.get("given_name");
-                String familyName = (String) payload.get("family_name");
+            // Extract user information from the token
+            String userId = payload.getSubject();
+            String email = payload.get("email", String.class);
+            // Google sends a boolean, some older tokens the string "true"
+            boolean emailVerified = Boolean.parseBoolean(String.valueOf(payload.get("email_verified")));
+            String name = payload.get("name", String.class);
+            String pictureUrl = payload.get("picture", String.class);
+            String givenName = payload.get("given_name", String.class);
+            String familyName = payload.get("family_name", String.class);
 
-                // Validate essential information
-                if (email == null || !emailVerified) {
-                    throw new RuntimeException("Email not verified or not provided by Google");
-                }
-
-                return GoogleUserDTO.builder()
-                        .googleId(userId)
-                        .email(email)
-                        .name(name)
-                        .givenName(givenName)
-                        .familyName(familyName)
-                        .pictureUrl(pictureUrl)
-                        .emailVerified(emailVerified)
-                        .build();
-                        
-            } else {
-                throw new RuntimeException("Invalid Google ID token");
+            // Validate essential information
+            if (email == null || !emailVerified) {
+                throw new RuntimeException("Email not verified or not provided by Google");
             }
+
+            return GoogleUserDTO.builder()
+                    .googleId(userId)
+                    .email(email)
+                    .name(name)
+                    .givenName(givenName)
+                    .familyName(familyName)
+                    .pictureUrl(pictureUrl)
+                    .emailVerified(emailVerified)
+                    .build();
+
         } catch (Exception e) {
             throw new RuntimeException("Failed to verify Google token: " + e.getMessage(), e);
         }
@@ -0,0 +1,228 @@
+package com.example.deliveryhub.service;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.deliveryhub.enums.ImageVariant;
+import com.example.deliveryhub.util.ExpiringCache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+// Generates the downscaled ImageVariants for image attachments, off the request thread.
+// Work runs on a small fixed pool with a bounded queue; when it is full the job is dropped
+// (counted) and the variant is produced later on first request instead.
+// Sources are decoded with subsampling, so a 12 MP photo is never fully decoded to
+// build a 320px thumbnail.
+// Sources that can't be decoded are remembered for a while, so repeated variant requests for
+// them fall back to the original without queueing the same failing decode again.
+@Service
+@Slf4j
+public class ImageVariantService {
+
+    private static final int MAX_FAILED_KEYS = 10_000;
+    private static final long FAILED_RETRY_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private final AttachmentStore attachmentStore;
+    private final long maxSourcePixels;
+    private final ThreadPoolExecutor executor;
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+    private final ExpiringCache<String, Boolean> failedKeys = new ExpiringCache<>(MAX_FAILED_KEYS);
+
+    private final Counter generated;
+    private final Counter rejected;
+    private final Counter failed;
+    private final Timer processTimer;
+
+    public ImageVariantService(AttachmentStore attachmentStore,
+                               MeterRegistry meterRegistry,
+                               @Value("${chat.images.workers:2}") int workers,
+                               @Value("${chat.images.queue-capacity:100}") int queueCapacity,
+                               @Value("${chat.images.max-source-pixels:50000000}") long maxSourcePixels) {
+        this.attachmentStore = attachmentStore;
+        this.maxSourcePixels = maxSourcePixels;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                Math.max(1, workers), Math.max(1, workers), 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                r -> {
+                    Thread thread = new Thread(r, "chat-image-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    // decoding is CPU heavy; keep it behind request and STOMP threads
+                    thread.setPriority(Thread.NORM_PRIORITY - 1);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.generated = meterRegistry.counter("chat.images.variants.generated");
+        this.rejected = meterRegistry.counter("chat.images.rejected");
+        this.failed = meterRegistry.counter("chat.images.failed");
+        this.processTimer = Timer.builder("chat.images.process")
+                .description("Time to build all variants of one image attachment")
+                .register(meterRegistry);
+        meterRegistry.gauge("chat.images.queue", executor, e -> e.getQueue().size());
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    // Queues variant generation for a stored attachment; no-op for non-images.
+    // Returns false when the pool is saturated.
+    public boolean schedule(String key) {
+        if (!ImageVariant.isImageKey(key) || recentlyFailed(key) || variantsExist(key) || !inFlight.add(key)) {
+            return true;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    processTimer.record(() -> generate(key));
+                } finally {
+                    inFlight.remove(key);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(key);
+            rejected.increment();
+            log.debug("Image pool saturated, variants for {} deferred", key);
+            return false;
+        }
+    }
+
+    void generate(String key) {
+        Path source = attachmentStore.find(key).orElse(null);
+        if (source == null) {
+            return;
+        }
+        try {
+            // Largest variant first; smaller ones are scaled from it instead of the original
+            BufferedImage web = decode(source, ImageVariant.WEB.getMaxEdge());
+            if (web == null) {
+                markFailed(key);
+                return;
+            }
+            web = scale(web, ImageVariant.WEB.getMaxEdge());
+            write(key, ImageVariant.WEB, web);
+            write(key, ImageVariant.THUMBNAIL, scale(web, ImageVariant.THUMBNAIL.getMaxEdge()));
+        } catch (IOException | RuntimeException e) {
+            failed.increment();
+            markFailed(key);
+            log.warn("Could not build image variants for {}: {}", key, e.getMessage());
+        }
+    }
+
+    boolean recentlyFailed(String key) {
+        return failedKeys.get(key) != null;
+    }
+
+    private void markFailed(String key) {
+        failedKeys.put(key, Boolean.TRUE, System.currentTimeMillis() + FAILED_RETRY_MILLIS);
+    }
+
+    private boolean variantsExist(String key) {
+        for (ImageVariant variant : ImageVariant.values()) {
+            if (attachmentStore.findVariant(key, variant).isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Decodes with the coarsest subsampling that still leaves the image at least twice
+    // maxEdge, which keeps the final scale step sharp. Null if the file isn't a readable image.
+    private BufferedImage decode(Path source, int maxEdge) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(source.toFile())) {
+            Iterator<ImageReader> readers = in != null ? ImageIO.getImageReaders(in) : null;
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxSourcePixels) {
+                    throw new IOException("image is " + width + "x" + height + ", over the pixel limit");
+                }
+                int step = Math.max(1, Math.max(width, height) / (maxEdge * 2));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // Fits the image into maxEdge x maxEdge on an opaque RGB canvas (JPEG has no alpha)
+    static BufferedImage scale(BufferedImage image, int maxEdge) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        double ratio = Math.min(1.0, (double) maxEdge / Math.max(width, height));
+        int targetWidth = Math.max(1, (int) Math.round(width * ratio));
+        int targetHeight = Math.max(1, (int) Math.round(height * ratio));
+        if (ratio == 1.0 && image.getType() == BufferedImage.TYPE_INT_RGB) {
+            return image;
+        }
+
+        BufferedImage scaled = new BufferedImage(targetWidth, targetHeight, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = scaled.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, targetWidth, targetHeight);
+            g.drawImage(image, 0, 0, targetWidth, targetHeight, null);
+        } finally {
+            g.dispose();
+        }
+        return scaled;
+    }
+
+    private void write(String key, ImageVariant variant, BufferedImage image) throws IOException {
+        attachmentStore.storeVariant(key, variant, out -> {
+            ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+            try (ImageOutputStream ios = ImageIO.createImageOutputStream(out)) {
+                writer.setOutput(ios);
+                ImageWriteParam param = writer.getDefaultWriteParam();
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(variant.getJpegQuality());
+                param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+                writer.write(null, new IIOImage(image, null, null), param);
+            } finally {
+                writer.dispose();
+            }
+        });
+        generated.increment();
+    }
+}
@@ -42,7 +42,7 @@ public class PaymentService {
             case COD -> delivery.setPaymentStatus(PaymentStatus.AWAITING_CASH_PAYMENT);
             case PAYPAL, STRIPE -> delivery.setPaymentStatus(PaymentStatus.PENDING);
         }
-        return deliveryRequestRepository.save(delivery);
+        return deliveryRequestRepository.saveChecked(delivery);
     }
 
     public DeliveryRequest markCashAsPaid(Long deliveryId) {
@@ -53,7 +53,7 @@ public class PaymentService {
         }
 
         delivery.setPaymentStatus(PaymentStatus.PAID);
-        return deliveryRequestRepository.save(delivery);   
+        return deliveryRequestRepository.saveChecked(delivery);   
     }
 
     public DeliveryRequest confirmOnlinePayment(Long deliveryId) {
@@ -69,7 +69,7 @@ public class PaymentService {
         }
     
         delivery.setPaymentStatus(PaymentStatus.PAID);
-        return deliveryRequestRepository.save(delivery);
+        return deliveryRequestRepository.saveChecked(delivery);
     }
     
 
@@ -17,6 +17,7 @@ import com.example.deliveryhub.repository.DeliveryRequestRepository;
 import com.example.deliveryhub.repository.RatingRepository;
 import com.example.deliveryhub.repository.UserRepository;
 
+import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 
 @Service
@@ -26,7 +27,10 @@ public class RatingService {
     private final RatingRepository ratingRepository;
     private final DeliveryRequestRepository deliveryRequestRepository;
     private final UserRepository userRepository;
+    private final CurrentUserService currentUserService;
+    private final TransporterStatsService transporterStatsService;
 
+    @Transactional
     public Rating submitRating(RatingDTO ratingDTO, String userEmail) {
         DeliveryRequest delivery = deliveryRequestRepository.findById(ratingDTO.getDeliveryId())
                 .orElseThrow(() -> new IllegalArgumentException("Delivery not found"));
@@ -35,7 +39,7 @@ public class RatingService {
             throw new RuntimeException("Can only rate completed deliveries");
         }
 
-        User reviewer = userRepository.findByEmail(userEmail)
+        User reviewer = currentUserService.findByEmail(userEmail)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         User reviewee = userRepository.findById(ratingDTO.getRevieweeId())
@@ -68,7 +72,11 @@ public class RatingService {
                 .feedback(ratingDTO.getFeedback())
                 .timestamp(LocalDateTime.now())
                 .build();
-        return ratingRepository.save(rating);
+        Rating saved = ratingRepository.save(rating);
+
+        // same transaction: stats are only visible once the rating commits
+        transporterStatsService.onRatingSubmitted(saved);
+        return saved;
     }
 
     public Double getAverageRatingForUser(Long userId) {
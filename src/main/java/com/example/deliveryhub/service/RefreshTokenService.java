@@ -1,71 +1,206 @@
 package com.example.deliveryhub.service;
 
 import com.example.deliveryhub.auth.JwtUtils;
+import com.example.deliveryhub.dto.JwtResponse;
 import com.example.deliveryhub.model.RefreshToken;
 import com.example.deliveryhub.model.User;
 import com.example.deliveryhub.repository.RefreshTokenRepository;
 import com.example.deliveryhub.repository.UserRepository;
-import lombok.RequiredArgsConstructor;
+import com.example.deliveryhub.util.ExpiringCache;
+import com.example.deliveryhub.util.TransactionHooks;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Instant;
 import java.time.LocalDateTime;
-import java.util.Optional;
-import java.util.UUID;
+import java.time.ZoneId;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
 
+// Refresh tokens are opaque random strings; only their SHA-256 is stored.
+// Active tokens are also indexed in memory by hash (written through after commit, bounded by
+// refresh.tokens.cache.max-size), so a refresh does no read: one conditional UPDATE on the
+// primary key rotates the old token and one INSERT stores its replacement. Misses (other node,
+// restart, evicted) fall back to the unique index.
+// Rotation: each refresh returns a new token and retires the presented one. A retired token
+// coming back means it was copied, so every session of that user is revoked.
+// Expired rows are deleted by a scheduled job in chunks of refresh.tokens.purge-chunk-size.
 @Service
-@RequiredArgsConstructor
+@Slf4j
 public class RefreshTokenService {
 
+    private record Entry(Long id, Long userId, String email, long expiresAt) {
+    }
+
+    private static final int TOKEN_BYTES = 32;
+
     private final RefreshTokenRepository refreshTokenRepository;
     private final UserRepository userRepository;
+    private final UserCacheService userCacheService;
     private final JwtUtils jwtUtils;
+    private final ExpiringCache<String, Entry> index;
+    private final int purgeChunkSize;
+    private final SecureRandom random = new SecureRandom();
 
-    @Transactional
-    public RefreshToken createRefreshToken(String email) {
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
-        // Delete existing refresh token for this user
-        refreshTokenRepository.deleteByUser(user);
-
-        // Create new refresh token
-        RefreshToken refreshToken = RefreshToken.builder()
-                .user(user)
-                .token(UUID.randomUUID().toString())
-                .expiryDate(LocalDateTime.now().plusSeconds(jwtUtils.getRefreshExpirationMs() / 1000))
-                .build();
+    private final Counter indexHits;
+    private final Counter indexMisses;
+    private final Counter reused;
+    private final Counter purged;
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository,
+                               UserRepository userRepository,
+                               UserCacheService userCacheService,
+                               JwtUtils jwtUtils,
+                               MeterRegistry meterRegistry,
+                               @Value("${refresh.tokens.cache.max-size:50000}") int cacheMaxSize,
+                               @Value("${refresh.tokens.purge-chunk-size:1000}") int purgeChunkSize) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.userRepository = userRepository;
+        this.userCacheService = userCacheService;
+        this.jwtUtils = jwtUtils;
+        this.index = new ExpiringCache<>(cacheMaxSize);
+        this.purgeChunkSize = Math.max(1, purgeChunkSize);
 
-        return refreshTokenRepository.save(refreshToken);
+        this.indexHits = Counter.builder("refresh.tokens.index").tag("result", "hit").register(meterRegistry);
+        this.indexMisses = Counter.builder("refresh.tokens.index").tag("result", "miss").register(meterRegistry);
+        this.reused = Counter.builder("refresh.tokens.reused")
+                .description("Rotated refresh tokens presented again; the user's sessions were revoked")
+                .register(meterRegistry);
+        this.purged = Counter.builder("refresh.tokens.purged").register(meterRegistry);
     }
 
-    public Optional<RefreshToken> findByToken(String token) {
-        return refreshTokenRepository.findByToken(token);
+    // Returns the token for the client; sessions on other devices stay valid
+    @Transactional
+    public String createRefreshToken(User user) {
+        String token = newToken();
+        String hash = hash(token);
+        long expiresAt = System.currentTimeMillis() + jwtUtils.getRefreshExpirationMs();
+
+        // only the foreign key is needed, whether the caller's User is managed or a cached copy
+        RefreshToken saved = refreshTokenRepository.save(RefreshToken.builder()
+                .user(userRepository.getReferenceById(user.getId()))
+                .tokenHash(hash)
+                .expiryDate(LocalDateTime.ofInstant(Instant.ofEpochMilli(expiresAt), ZoneId.systemDefault()))
+                .build());
+
+        Entry entry = new Entry(saved.getId(), user.getId(), user.getEmail(), expiresAt);
+        TransactionHooks.afterCommit(() -> index.put(hash, entry, expiresAt));
+        return token;
     }
 
-    public RefreshToken verifyExpiration(RefreshToken token) {
-        if (token.getExpiryDate().isBefore(LocalDateTime.now())) {
-            refreshTokenRepository.delete(token);
+    // Exchanges a refresh token for a new access token and a new refresh token
+    public JwtResponse refresh(String presented) {
+        if (presented == null || presented.isEmpty()) {
+            throw new RuntimeException("Invalid refresh token");
+        }
+        String hash = hash(presented);
+        Entry entry = lookup(hash);
+
+        if (entry.expiresAt() <= System.currentTimeMillis()) {
+            index.invalidate(hash);
+            refreshTokenRepository.deleteById(entry.id());
             throw new RuntimeException("Refresh token was expired. Please make a new signin request");
         }
-        return token;
+        if (refreshTokenRepository.markRotated(entry.id(), LocalDateTime.now()) == 0) {
+            // Rotated (or revoked) concurrently, here or on another node
+            revokeReused(hash, entry);
+        }
+        index.invalidate(hash);
+
+        User user = userCacheService.getByEmail(entry.email());
+        return JwtResponse.builder()
+                .accessToken(jwtUtils.generateToken(user))
+                .refreshToken(createRefreshToken(user))
+                .tokenType("Bearer")
+                .email(user.getEmail())
+                .role(user.getRole().name())
+                .expiresIn(3600L) // 1 hour in seconds
+                .build();
     }
 
     @Transactional
     public void deleteByUser(User user) {
-        refreshTokenRepository.deleteByUser(user);
+        revokeAll(user.getId());
     }
 
-    @Transactional
+    // Rotated tokens are kept until they expire, so reuse can still be detected
+    @Scheduled(fixedDelayString = "${refresh.tokens.purge-interval-ms:3600000}",
+               initialDelayString = "${refresh.tokens.purge-interval-ms:3600000}")
     public void deleteExpiredTokens() {
-        refreshTokenRepository.deleteByExpiryDateBefore(LocalDateTime.now());
+        LocalDateTime now = LocalDateTime.now();
+        long deleted = 0;
+        List<Long> ids;
+        do {
+            // each chunk is its own short transaction, so the table is never locked for long
+            ids = refreshTokenRepository.findExpiredIds(now, PageRequest.of(0, purgeChunkSize));
+            if (!ids.isEmpty()) {
+                refreshTokenRepository.deleteAllByIdInBatch(ids);
+                deleted += ids.size();
+            }
+        } while (ids.size() == purgeChunkSize);
+
+        if (deleted > 0) {
+            purged.increment(deleted);
+            log.info("Purged {} expired refresh tokens", deleted);
+        }
     }
 
-    public String generateNewAccessToken(String refreshToken) {
-        return findByToken(refreshToken)
-                .map(this::verifyExpiration)
-                .map(RefreshToken::getUser)
-                .map(user -> jwtUtils.generateToken(user.getEmail()))
+    private Entry lookup(String hash) {
+        Entry entry = index.get(hash);
+        if (entry != null) {
+            indexHits.increment();
+            return entry;
+        }
+        indexMisses.increment();
+        RefreshToken stored = refreshTokenRepository.findByTokenHash(hash)
                 .orElseThrow(() -> new RuntimeException("Invalid refresh token"));
+        Entry loaded = new Entry(stored.getId(), stored.getUser().getId(), stored.getUser().getEmail(),
+                stored.getExpiryDate().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        if (stored.getRotatedAt() != null) {
+            revokeReused(hash, loaded);
+        }
+        index.put(hash, loaded, loaded.expiresAt());
+        return loaded;
+    }
+
+    private void revokeReused(String hash, Entry entry) {
+        reused.increment();
+        log.warn("Refresh token reuse for user {}; revoking all of their refresh tokens", entry.userId());
+        index.invalidate(hash);
+        revokeAll(entry.userId());
+        throw new RuntimeException("Refresh token was already used. Please make a new signin request");
+    }
+
+    private void revokeAll(Long userId) {
+        refreshTokenRepository.deleteByUserId(userId);
+        index.invalidateIf((hash, entry) -> entry.userId().equals(userId));
+    }
+
+    private String newToken() {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
-}
\ No newline at end of file
+}
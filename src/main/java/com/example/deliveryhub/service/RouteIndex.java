@@ -0,0 +1,201 @@
+package com.example.deliveryhub.service;
+
+import java.text.Normalizer;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.deliveryhub.dto.RouteMatchDTO;
+import com.example.deliveryhub.model.TransporterRoute;
+import com.example.deliveryhub.model.User;
+import com.example.deliveryhub.repository.TransporterRouteRepository;
+import com.example.deliveryhub.util.IntervalTree;
+import com.example.deliveryhub.util.IntervalTree.Interval;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+// In-memory index of active transporter routes behind GET /api/routes/search.
+// Routes are grouped by normalized (pickup, dropoff) city pair, then held in an IntervalTree over
+// their pickup window (epoch days), so a lookup is one hash probe plus one stabbing query instead
+// of a scan of transporter_routes. City names match ignoring case, accents and punctuation.
+// Seeded on startup, kept current by RouteService, and rebuilt from the DB every
+// routes.index.reload-interval-ms, which also drops routes whose pickup window has passed and
+// picks up routes written by other nodes.
+@Service
+public class RouteIndex {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Comparator<RouteMatchDTO> BY_TRAVEL_DATE =
+            Comparator.comparing(RouteMatchDTO::getTravelDate, Comparator.nullsLast(Comparator.<LocalDate>naturalOrder()))
+                    .thenComparing(RouteMatchDTO::getRouteId);
+
+    // Trees by city-pair key, plus each route's key so an edit can find its old entry
+    private record State(Map<String, IntervalTree<RouteMatchDTO>> trees, Map<Long, String> keys) {
+        State() {
+            this(new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
+        }
+    }
+
+    private final TransporterRouteRepository routeRepository;
+    private final int maxResults;
+
+    private final Object reloadLock = new Object();
+    private volatile State state = new State();
+    // Edits made while a reload queries the DB, replayed onto the rebuilt state (guarded by this)
+    private Map<Long, Optional<RouteMatchDTO>> pendingDuringReload;
+
+    public RouteIndex(TransporterRouteRepository routeRepository,
+                      MeterRegistry meterRegistry,
+                      @Value("${routes.search.max-results:100}") int maxResults) {
+        this.routeRepository = routeRepository;
+        this.maxResults = Math.max(1, maxResults);
+        meterRegistry.gauge("routes.index.size", this, RouteIndex::size);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        reload();
+    }
+
+    @Scheduled(fixedDelayString = "${routes.index.reload-interval-ms:300000}",
+               initialDelayString = "${routes.index.reload-interval-ms:300000}")
+    public void reload() {
+        synchronized (reloadLock) {
+            synchronized (this) {
+                pendingDuringReload = new HashMap<>();
+            }
+            try {
+                State rebuilt = build(routeRepository.findActiveRouteMatches(LocalDate.now()));
+                synchronized (this) {
+                    pendingDuringReload.forEach((routeId, match) -> {
+                        remove(rebuilt, routeId);
+                        match.ifPresent(m -> add(rebuilt, m));
+                    });
+                    state = rebuilt;
+                }
+            } finally {
+                synchronized (this) {
+                    pendingDuringReload = null;
+                }
+            }
+        }
+    }
+
+    // Call after the route is saved; inactive or expired routes are removed instead
+    public synchronized void put(TransporterRoute route, User transporter) {
+        RouteMatchDTO match = indexable(route) ? toMatch(route, transporter) : null;
+        State current = state;
+        remove(current, route.getId());
+        if (match != null) {
+            add(current, match);
+        }
+        if (pendingDuringReload != null) {
+            pendingDuringReload.put(route.getId(), Optional.ofNullable(match));
+        }
+    }
+
+    public synchronized void remove(Long routeId) {
+        remove(state, routeId);
+        if (pendingDuringReload != null) {
+            pendingDuringReload.put(routeId, Optional.empty());
+        }
+    }
+
+    // Active routes for this city pair whose pickup window contains the date, by travel date
+    public List<RouteMatchDTO> find(String pickupCity, String dropoffCity, LocalDate pickupDate, int limit) {
+        String pickup = normalize(pickupCity);
+        String dropoff = normalize(dropoffCity);
+        if (pickup.isEmpty() || dropoff.isEmpty() || pickupDate == null) {
+            return List.of();
+        }
+        IntervalTree<RouteMatchDTO> tree = state.trees().get(key(pickup, dropoff));
+        if (tree == null) {
+            return List.of();
+        }
+        List<RouteMatchDTO> matches = tree.stab(pickupDate.toEpochDay());
+        matches.sort(BY_TRAVEL_DATE);
+        int max = Math.min(maxResults, Math.max(1, limit));
+        return matches.size() > max ? new ArrayList<>(matches.subList(0, max)) : matches;
+    }
+
+    public int size() {
+        return state.keys().size();
+    }
+
+    static String normalize(String city) {
+        if (city == null) {
+            return "";
+        }
+        String stripped = MARKS.matcher(Normalizer.normalize(city, Normalizer.Form.NFD)).replaceAll("");
+        return SEPARATORS.matcher(stripped.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    private static boolean indexable(TransporterRoute route) {
+        return route.isActive()
+                && route.getPickupStartDate() != null
+                && route.getPickupEndDate() != null
+                && !route.getPickupEndDate().isBefore(LocalDate.now());
+    }
+
+    private static RouteMatchDTO toMatch(TransporterRoute route, User transporter) {
+        return new RouteMatchDTO(route.getId(), transporter.getId(), transporter.getFullName(),
+                route.getPickupCity(), route.getDropoffCity(), route.getTravelDate(),
+                route.getPickupStartDate(), route.getPickupEndDate(), route.getNotes());
+    }
+
+    private static String key(String normalizedPickup, String normalizedDropoff) {
+        return normalizedPickup + "|" + normalizedDropoff;
+    }
+
+    // Bulk load: one tree per city pair, built once from all its routes
+    private static State build(List<RouteMatchDTO> matches) {
+        Map<String, List<Interval<RouteMatchDTO>>> grouped = new HashMap<>();
+        State built = new State();
+        for (RouteMatchDTO match : matches) {
+            String key = key(match);
+            grouped.computeIfAbsent(key, k -> new ArrayList<>()).add(interval(match));
+            built.keys().put(match.getRouteId(), key);
+        }
+        grouped.forEach((key, intervals) -> built.trees().put(key, IntervalTree.of(intervals)));
+        return built;
+    }
+
+    private static String key(RouteMatchDTO match) {
+        return key(normalize(match.getPickupCity()), normalize(match.getDropoffCity()));
+    }
+
+    private static Interval<RouteMatchDTO> interval(RouteMatchDTO match) {
+        return new Interval<>(match.getPickupStartDate().toEpochDay(), match.getPickupEndDate().toEpochDay(), match);
+    }
+
+    private static void add(State target, RouteMatchDTO match) {
+        String key = key(match);
+        target.trees().compute(key, (k, tree) -> (tree == null ? IntervalTree.<RouteMatchDTO>empty() : tree)
+                .with(interval(match)));
+        target.keys().put(match.getRouteId(), key);
+    }
+
+    private static void remove(State target, Long routeId) {
+        String key = target.keys().remove(routeId);
+        if (key != null) {
+            target.trees().computeIfPresent(key, (k, tree) -> {
+                IntervalTree<RouteMatchDTO> remaining = tree.without(m -> m.getRouteId().equals(routeId));
+                return remaining.isEmpty() ? null : remaining;
+            });
+        }
+    }
+}
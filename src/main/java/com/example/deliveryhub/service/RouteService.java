@@ -1,15 +1,16 @@
 package com.example.deliveryhub.service;
 
+import java.time.LocalDate;
 import java.util.List;
 
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
+import com.example.deliveryhub.dto.RouteMatchDTO;
 import com.example.deliveryhub.model.Role;
 import com.example.deliveryhub.model.TransporterRoute;
 import com.example.deliveryhub.model.User;
 import com.example.deliveryhub.repository.TransporterRouteRepository;
-import com.example.deliveryhub.repository.UserRepository;
 
 import lombok.RequiredArgsConstructor;
 
@@ -18,11 +19,12 @@ import lombok.RequiredArgsConstructor;
 public class RouteService {
 
     private final TransporterRouteRepository routeRepository;
-    private final UserRepository userRepository;
+    private final CurrentUserService currentUserService;
+    private final RouteIndex routeIndex;
 
     public List<TransporterRoute> getMyRoutes() {
         String email = SecurityContextHolder.getContext().getAuthentication().getName();
-        User transporter = userRepository.findByEmail(email).orElseThrow(() -> new RuntimeException("User not found"));
+        User transporter = currentUserService.findByEmail(email).orElseThrow(() -> new RuntimeException("User not found"));
 
         if (transporter.getRole() != Role.TRANSPORTER) {
             throw new RuntimeException("Only transporters can access their routes");
@@ -34,7 +36,7 @@ public class RouteService {
 
         String email = SecurityContextHolder.getContext().getAuthentication().getName();
        
-        User transporter = userRepository.findByEmail(email).orElseThrow(() -> new RuntimeException("User not found"));
+        User transporter = currentUserService.findByEmail(email).orElseThrow(() -> new RuntimeException("User not found"));
 
         if (transporter.getRole() != Role.TRANSPORTER) {
             throw new RuntimeException("Only transporters can create routes");
@@ -51,18 +53,20 @@ public class RouteService {
                 .active(true)
                 .build();
 
-        return routeRepository.save(route); 
+        TransporterRoute saved = routeRepository.save(route);
+        routeIndex.put(saved, transporter);
+        return saved;
     }
 
     public TransporterRoute updateRoute(Long routeId, TransporterRoute routeRequest) {
         String email = SecurityContextHolder.getContext().getAuthentication().getName();
-        User transporter = userRepository.findByEmail(email)
+        User transporter = currentUserService.findByEmail(email)
             .orElseThrow(() -> new RuntimeException("User not found"));
     
         TransporterRoute route = routeRepository.findById(routeId)
             .orElseThrow(() -> new RuntimeException("Route not found"));
     
-        if (!route.getTransporter().equals(transporter)) {
+        if (!route.getTransporter().getId().equals(transporter.getId())) {
             throw new RuntimeException("You can only edit your own routes");
         }
     
@@ -74,23 +78,32 @@ public class RouteService {
         route.setPickupEndDate(routeRequest.getPickupEndDate());
         route.setNotes(routeRequest.getNotes());
     
-        return routeRepository.save(route);
+        TransporterRoute saved = routeRepository.save(route);
+        routeIndex.put(saved, transporter);
+        return saved;
     }
 
     public TransporterRoute deleteRoute(Long routeId) {
         String email = SecurityContextHolder.getContext().getAuthentication().getName();
-        User transporter = userRepository.findByEmail(email).orElseThrow(() -> new RuntimeException("User not found"));
+        User transporter = currentUserService.findByEmail(email).orElseThrow(() -> new RuntimeException("User not found"));
 
         TransporterRoute route = routeRepository.findById(routeId).orElseThrow(() -> new RuntimeException("Route not found"));
 
-        if (!route.getTransporter().equals(transporter)) {
+        if (!route.getTransporter().getId().equals(transporter.getId())) {
             throw new RuntimeException("You can only delete your own routes");
         }
 
         // Soft delete by setting active to false
         route.setActive(false);
-        return routeRepository.save(route);
+        TransporterRoute saved = routeRepository.save(route);
+        routeIndex.remove(saved.getId());
+        return saved;
 
     }
 
+    // Served from RouteIndex: exact city pair (ignoring case/accents), pickup window containing the date
+    public List<RouteMatchDTO> searchRoutes(String pickupCity, String dropoffCity, LocalDate pickupDate, int limit) {
+        return routeIndex.find(pickupCity, dropoffCity, pickupDate, limit);
+    }
+
 }
@@ -7,10 +7,10 @@ import org.springframework.stereotype.Service;
 
 import com.example.deliveryhub.dto.TransporterMarketplaceDTO;
 import com.example.deliveryhub.model.Role;
+import com.example.deliveryhub.model.TransporterStats;
 import com.example.deliveryhub.model.User;
-import com.example.deliveryhub.repository.DeliveryRequestRepository;
-import com.example.deliveryhub.repository.RatingRepository;
 import com.example.deliveryhub.repository.TransporterPricingRepository;
+import com.example.deliveryhub.repository.TransporterStatsRepository;
 import com.example.deliveryhub.repository.UserRepository;
 
 import lombok.RequiredArgsConstructor;
@@ -22,23 +22,20 @@ public class TransporterMarketplaceService {
 
     private final UserRepository userRepository;
     private final TransporterPricingRepository transporterPricingRepository;
-    private final RatingRepository ratingRepository;
-    private final DeliveryRequestRepository deliveryRequestRepository;
+    private final TransporterStatsRepository transporterStatsRepository;
 
+    // Single query: user + pricing + precomputed transporter_stats
     public List<TransporterMarketplaceDTO> getAvailableTransporters() {
-        List<User> transporters = userRepository.findByRoleAndVerifiedAndAvailableForDeliveries(
-            Role.TRANSPORTER, true, true);
-
-        return transporters.stream()
-            .filter(this::isEligibleTransporter)
+        return transporterStatsRepository.findMarketplaceRows(Role.TRANSPORTER)
+            .stream()
             .map(this::mapToMarketplaceDTO)
-            .filter(dto -> dto.getRatePerKg() != null)
             .collect(Collectors.toList());
     }
 
     public Optional<TransporterMarketplaceDTO> getTransporterDetails(Long transporterId) {
-        return userRepository.findById(transporterId)
-            .filter(this::isEligibleTransporter)
+        return transporterStatsRepository.findMarketplaceRow(transporterId, Role.TRANSPORTER)
+            .stream()
+            .findFirst()
             .map(this::mapToMarketplaceDTO);
     }
 
@@ -57,50 +54,32 @@ public class TransporterMarketplaceService {
 
     // ======================== PRIVATE HELPERS ========================
 
-    private boolean isEligibleTransporter(User user) {
-        return user.getRole() == Role.TRANSPORTER && user.isVerified();
-    }
-
-    private TransporterMarketplaceDTO mapToMarketplaceDTO(User transporter) {
+    // Row layout documented on TransporterStatsRepository.findMarketplaceRows
+    private TransporterMarketplaceDTO mapToMarketplaceDTO(Object[] row) {
         TransporterMarketplaceDTO dto = new TransporterMarketplaceDTO();
-        dto.setId(transporter.getId());
-        dto.setFullName(transporter.getFullName());
-        dto.setEmail(transporter.getEmail());
-        dto.setVerified(transporter.isVerified());
-
-        setPricingDetails(transporter, dto);
-        setRatingDetails(transporter, dto);
-        setDeliveryStats(transporter, dto);
+        dto.setId((Long) row[0]);
+        dto.setFullName((String) row[1]);
+        dto.setEmail((String) row[2]);
+        dto.setVerified((Boolean) row[3]);
+
+        dto.setRatePerKg((Double) row[4]);
+        dto.setFixedPriceUnderThreshold((Double) row[5]);
+        dto.setWeightThreshold((Double) row[6]);
+        dto.setCurrency((String) row[7]);
+
+        TransporterStats stats = (TransporterStats) row[8];
+        if (stats != null) {
+            dto.setAverageRating(stats.getAverageRating());
+            dto.setTotalRatings(stats.getRatingCount());
+            dto.setRecentFeedback(stats.getRecentFeedback() != null ? stats.getRecentFeedback() : List.of());
+            dto.setCompletedDeliveries((int) stats.getCompletedDeliveries());
+        } else {
+            dto.setAverageRating(0.0);
+            dto.setTotalRatings(0L);
+            dto.setRecentFeedback(List.of());
+            dto.setCompletedDeliveries(0);
+        }
 
         return dto;
     }
-
-    private void setPricingDetails(User transporter, TransporterMarketplaceDTO dto) {
-        transporterPricingRepository.findByTransporter(transporter).ifPresent(pricing -> {
-            dto.setRatePerKg(pricing.getRatePerKg());
-            dto.setFixedPriceUnderThreshold(pricing.getFixedPriceUnderThreshold());
-            dto.setWeightThreshold(pricing.getWeightThreshold());
-            dto.setCurrency(pricing.getCurrency());
-        });
-    }
-
-    private void setRatingDetails(User transporter, TransporterMarketplaceDTO dto) {
-        Double avgRating = ratingRepository.findAverageRatingByRevieweeId(transporter.getId());
-        dto.setAverageRating(avgRating != null ? avgRating : 0.0);
-
-        Long totalRatings = ratingRepository.countByRevieweeId(transporter.getId());
-        dto.setTotalRatings(totalRatings != null ? totalRatings : 0L);
-
-        List<String> feedback = ratingRepository.findTop3ByRevieweeIdOrderByTimestampDesc(transporter.getId())
-            .stream()
-            .map(r -> r.getFeedback())
-            .filter(f -> f != null && !f.trim().isEmpty())
-            .collect(Collectors.toList());
-        dto.setRecentFeedback(feedback);
-    }
-
-    private void setDeliveryStats(User transporter, TransporterMarketplaceDTO dto) {
-        Long completedDeliveries = deliveryRequestRepository.countByTransporterAndStatus(transporter, "DELIVERED");
-        dto.setCompletedDeliveries(completedDeliveries != null ? completedDeliveries.intValue() : 0);
-    }
 }
@@ -0,0 +1,108 @@
+package com.example.deliveryhub.service;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.stereotype.Service;
+
+import com.example.deliveryhub.model.Rating;
+import com.example.deliveryhub.model.Role;
+import com.example.deliveryhub.model.TransporterStats;
+import com.example.deliveryhub.repository.DeliveryRequestRepository;
+import com.example.deliveryhub.repository.RatingRepository;
+import com.example.deliveryhub.repository.TransporterStatsRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+
+// Maintains the transporter_stats read model. The on* hooks run inside the
+// caller's transaction, so the stats commit (or roll back) with the change itself.
+@Service
+@RequiredArgsConstructor
+public class TransporterStatsService {
+
+    private static final String DELIVERED = "DELIVERED";
+
+    private final TransporterStatsRepository transporterStatsRepository;
+    private final RatingRepository ratingRepository;
+    private final DeliveryRequestRepository deliveryRequestRepository;
+    private final ObjectMapper objectMapper;
+
+    @Transactional
+    public void onRatingSubmitted(Rating rating) {
+        if (rating.getRevieweeRole() != Role.TRANSPORTER) {
+            return;
+        }
+
+        Long transporterId = rating.getReviewee().getId();
+        transporterStatsRepository.addRating(transporterId, rating.getRating());
+
+        if (rating.getFeedback() != null && !rating.getFeedback().trim().isEmpty()) {
+            transporterStatsRepository.updateRecentFeedback(transporterId, toJson(loadRecentFeedback(transporterId)));
+        }
+    }
+
+    // Moves completed_deliveries when a delivery enters or leaves DELIVERED
+    // (e.g. an admin cancelling a delivered one), so it keeps matching the COUNT it replaced
+    @Transactional
+    public void onDeliveryStatusChanged(Long transporterId, String from, String to) {
+        if (transporterId == null) {
+            return;
+        }
+        boolean wasDelivered = DELIVERED.equals(from);
+        boolean isDelivered = DELIVERED.equals(to);
+        if (isDelivered && !wasDelivered) {
+            transporterStatsRepository.incrementCompletedDeliveries(transporterId);
+        } else if (wasDelivered && !isDelivered) {
+            transporterStatsRepository.decrementCompletedDeliveries(transporterId);
+        }
+    }
+
+    // Full rebuild from ratings and deliveries, used to backfill an empty table
+    @Transactional
+    public void rebuildAll() {
+        Map<Long, TransporterStats> stats = new HashMap<>();
+
+        for (Object[] row : ratingRepository.sumAndCountGroupedByReviewee(Role.TRANSPORTER)) {
+            TransporterStats s = stats.computeIfAbsent((Long) row[0], this::emptyStats);
+            s.setRatingSum(((Number) row[1]).longValue());
+            s.setRatingCount(((Number) row[2]).longValue());
+            s.setRecentFeedback(loadRecentFeedback(s.getTransporterId()));
+        }
+
+        for (Object[] row : deliveryRequestRepository.countDeliveredGroupedByTransporter()) {
+            TransporterStats s = stats.computeIfAbsent((Long) row[0], this::emptyStats);
+            s.setCompletedDeliveries(((Number) row[1]).longValue());
+        }
+
+        transporterStatsRepository.deleteAllInBatch();
+        transporterStatsRepository.saveAll(stats.values());
+    }
+
+    private TransporterStats emptyStats(Long transporterId) {
+        return TransporterStats.builder()
+                .transporterId(transporterId)
+                .updatedAt(LocalDateTime.now())
+                .build();
+    }
+
+    private String toJson(List<String> feedback) {
+        try {
+            return objectMapper.writeValueAsString(feedback);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Could not serialize feedback", e);
+        }
+    }
+
+    private List<String> loadRecentFeedback(Long transporterId) {
+        return ratingRepository.findTop3ByRevieweeIdOrderByTimestampDesc(transporterId)
+                .stream()
+                .map(Rating::getFeedback)
+                .filter(f -> f != null && !f.trim().isEmpty())
+                .toList();
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.deliveryhub.service;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.deliveryhub.repository.ChatMessageRepository;
+import com.example.deliveryhub.util.TransactionHooks;
+
+import lombok.RequiredArgsConstructor;
+
+// Unread chat message counts per (receiver email, delivery), kept in memory so the
+// unread-counts endpoint and the per-message badge push don't hit the DB.
+// Seeded with one grouped query on startup, moved by ChatService, and periodically
+// reconciled to repair drift (e.g. rows changed outside the app).
+// Counts are node-local: with websocket.broker.mode=relay each node only sees the sends and
+// reads it handled itself, so another node's counts lag until its next reconcile pass.
+@Service
+@RequiredArgsConstructor
+public class UnreadCounterService {
+
+    private final ChatMessageRepository chatMessageRepository;
+
+    // Every write goes through compute() on the receiver's entry, so changes to one
+    // receiver's counts (including reconcile's) never interleave. Zero counts are not stored.
+    private final Map<String, Map<Long, Integer>> unreadByReceiver = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        reconcile();
+    }
+
+    // A count only takes the DB value if it still holds what it held before the query ran;
+    // counts that moved meanwhile keep their live value and are repaired by the next pass
+    @Scheduled(fixedDelayString = "${chat.unread.reconcile-interval-ms:300000}",
+               initialDelayString = "${chat.unread.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        Map<String, Map<Long, Integer>> before = new HashMap<>();
+        unreadByReceiver.forEach((receiver, counts) -> before.put(receiver, new HashMap<>(counts)));
+
+        Map<String, Map<Long, Integer>> fresh = new HashMap<>();
+        for (Object[] row : chatMessageRepository.countUnreadGroupedByReceiverAndDelivery()) {
+            fresh.computeIfAbsent((String) row[0], e -> new HashMap<>())
+                 .put((Long) row[1], ((Number) row[2]).intValue());
+        }
+
+        Set<String> receivers = new HashSet<>(before.keySet());
+        receivers.addAll(fresh.keySet());
+        for (String receiver : receivers) {
+            Map<Long, Integer> seen = before.getOrDefault(receiver, Map.of());
+            Map<Long, Integer> counted = fresh.getOrDefault(receiver, Map.of());
+            update(receiver, counts -> {
+                Set<Long> deliveryIds = new HashSet<>(seen.keySet());
+                deliveryIds.addAll(counted.keySet());
+                for (Long deliveryId : deliveryIds) {
+                    if (Objects.equals(counts.get(deliveryId), seen.get(deliveryId))) {
+                        put(counts, deliveryId, counted.getOrDefault(deliveryId, 0));
+                    }
+                }
+            });
+        }
+    }
+
+    // Deliveries with at least one unread message for this user
+    public Map<Long, Integer> countsFor(String receiverEmail) {
+        Map<Long, Integer> counts = unreadByReceiver.get(receiverEmail);
+        return counts != null ? new HashMap<>(counts) : new HashMap<>();
+    }
+
+    public int countFor(String receiverEmail, Long deliveryId) {
+        Map<Long, Integer> counts = unreadByReceiver.get(receiverEmail);
+        return counts != null ? counts.getOrDefault(deliveryId, 0) : 0;
+    }
+
+    public void messageSent(String receiverEmail, Long deliveryId) {
+        TransactionHooks.afterCommit(() -> update(receiverEmail, counts -> counts.merge(deliveryId, 1, Integer::sum)));
+    }
+
+    public void messageRead(String receiverEmail, Long deliveryId) {
+        TransactionHooks.afterCommit(() -> update(receiverEmail, counts -> counts.computeIfPresent(deliveryId, (id, c) -> c > 1 ? c - 1 : null)));
+    }
+
+    public void allRead(String receiverEmail, Long deliveryId) {
+        TransactionHooks.afterCommit(() -> update(receiverEmail, counts -> counts.remove(deliveryId)));
+    }
+
+    // Runs the change under the receiver's entry lock and drops the receiver once nothing is unread
+    private void update(String receiverEmail, Consumer<Map<Long, Integer>> change) {
+        unreadByReceiver.compute(receiverEmail, (email, counts) -> {
+            Map<Long, Integer> target = counts != null ? counts : new ConcurrentHashMap<>();
+            change.accept(target);
+            return target.isEmpty() ? null : target;
+        });
+    }
+
+    private static void put(Map<Long, Integer> counts, Long deliveryId, int count) {
+        if (count > 0) {
+            counts.put(deliveryId, count);
+        } else {
+            counts.remove(deliveryId);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.deliveryhub.service;
+
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.deliveryhub.model.User;
+import com.example.deliveryhub.repository.UserRepository;
+import com.example.deliveryhub.util.ExpiringCache;
+
+// Short-lived cache of users by email for the read-only lookups services do on every call
+// ("who is the caller"). Entries live users.cache.ttl-ms; code that changes a user must
+// evict it. Callers get their own detached copy, so mutating it never leaks into the cache;
+// anything that updates a user should load it from UserRepository instead.
+@Service
+public class UserCacheService {
+
+    private final UserRepository userRepository;
+    private final ExpiringCache<String, User> users;
+    private final long ttlMs;
+
+    public UserCacheService(UserRepository userRepository,
+                            @Value("${users.cache.ttl-ms:30000}") long ttlMs,
+                            @Value("${users.cache.max-size:10000}") int maxSize) {
+        this.userRepository = userRepository;
+        this.ttlMs = ttlMs;
+        this.users = new ExpiringCache<>(maxSize);
+    }
+
+    public Optional<User> findByEmail(String email) {
+        if (email == null) {
+            return Optional.empty();
+        }
+        User cached = users.get(email);
+        if (cached == null) {
+            Optional<User> loaded = userRepository.findByEmail(email);
+            if (loaded.isEmpty()) {
+                return Optional.empty();
+            }
+            cached = copyOf(loaded.get());
+            users.put(email, cached, System.currentTimeMillis() + ttlMs);
+        }
+        return Optional.of(copyOf(cached));
+    }
+
+    public User getByEmail(String email) {
+        return findByEmail(email).orElseThrow(() -> new RuntimeException("User not found"));
+    }
+
+    public void evict(String email) {
+        users.invalidate(email);
+    }
+
+    static User copyOf(User user) {
+        return new User(user.getId(), user.getFullName(), user.getEmail(), user.getPhone(), user.getPassword(),
+                user.getRole(), user.isVerified(), user.getAvailableForDeliveries());
+    }
+}
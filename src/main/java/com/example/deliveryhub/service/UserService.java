@@ -8,7 +8,7 @@ import com.example.deliveryhub.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -16,7 +16,10 @@ import org.springframework.stereotype.Service;
 public class UserService {
 
     private final UserRepository userRepository;
-    private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+    private final DashboardCounterService dashboardCounterService;
+    private final UserCacheService userCacheService;
+    private final CurrentUserService currentUserService;
+    private final PasswordEncoder passwordEncoder;
 
     public UserResponseDTO registerUser(UserRegisterDTO dto) {
         if (userRepository.findByEmail(dto.getEmail()).isPresent()) {
@@ -39,6 +42,7 @@ public class UserService {
         }
         
         User saved = userRepository.save(user);
+        dashboardCounterService.userCreated(saved.getRole());
 
         return new UserResponseDTO(
                 saved.getId(),
@@ -57,18 +61,19 @@ public class UserService {
         
         user.setAvailableForDeliveries(available);
         userRepository.save(user);
+        userCacheService.evict(email);
     }
 
     public Boolean getAvailability() {
         String email = SecurityContextHolder.getContext().getAuthentication().getName();
-        User user = userRepository.findByEmail(email)
+        User user = currentUserService.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         return user.getAvailableForDeliveries() != null ? user.getAvailableForDeliveries() : true;
     }
     // Add this method to your UserService.java
     public UserResponseDTO getCurrentUser(String email) {
-        User user = userRepository.findByEmail(email)
+        User user = currentUserService.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         // Use constructor instead of builder
@@ -0,0 +1,55 @@
+package com.example.deliveryhub.util;
+
+import com.example.deliveryhub.dto.AdminDeliveryViewDTO;
+import com.example.deliveryhub.dto.DeliveryResponseDTO;
+import com.example.deliveryhub.model.DeliveryRequest;
+import com.example.deliveryhub.model.User;
+
+// Single place that turns a DeliveryRequest into its API DTOs.
+// Callers that map lists should load customer/transporter with the
+// fetch-joined repository methods so this never triggers extra selects.
+public final class DeliveryMapper {
+
+    private DeliveryMapper() {
+    }
+
+    public static DeliveryResponseDTO toResponseDTO(DeliveryRequest req) {
+        User customer = req.getCustomer();
+        User transporter = req.getTransporter();
+
+        return new DeliveryResponseDTO(
+                req.getId(),
+                req.getPickupCity(),
+                req.getDropoffCity(),
+                req.getItemType(),
+                req.getDescription(),
+                req.getPickupDate(),
+                req.getStatus(),
+                customer != null ? customer.getEmail() : null,
+                transporter != null ? transporter.getEmail() : null,
+                customer != null ? customer.getFullName() : null,
+                transporter != null ? transporter.getFullName() : null,
+                req.getCancelReason(),
+                req.getDeclineReason() != null ? req.getDeclineReason().toString() : null,
+                req.getDeclineMessage(),
+                req.getDeclinedAt(),
+                req.getDeclineDismissed(),
+                customer != null ? customer.getId() : null,
+                transporter != null ? transporter.getId() : null,
+                req.getWeightKg(),
+                req.getRequestedAt(),
+                req.getAcceptedAt());
+    }
+
+    public static AdminDeliveryViewDTO toAdminViewDTO(DeliveryRequest req) {
+        AdminDeliveryViewDTO dto = new AdminDeliveryViewDTO();
+        dto.setId(req.getId());
+        dto.setPickupCity(req.getPickupCity());
+        dto.setDropoffCity(req.getDropoffCity());
+        dto.setItemType(req.getItemType());
+        dto.setStatus(req.getStatus());
+        dto.setCustomerName(req.getCustomer() != null ? req.getCustomer().getFullName() : "N/A");
+        dto.setTransporterName(req.getTransporter() != null ? req.getTransporter().getFullName() : "Unassigned");
+        return dto;
+    }
+}
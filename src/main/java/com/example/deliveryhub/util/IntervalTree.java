@@ -0,0 +1,104 @@
+package com.example.deliveryhub.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+
+// Immutable interval tree answering "which intervals contain this point" (bounds inclusive).
+// Intervals are kept sorted by start in an array read as an implicit balanced BST (the middle
+// of each range is its root), and every node stores the largest end in its subtree, so a
+// stabbing query skips whole subtrees that end too early or start too late.
+// Writes return a new tree (copy-on-write): readers never lock, and each write costs
+// O(n log n) for the n intervals of this tree.
+public final class IntervalTree<T> {
+
+    public record Interval<T>(long start, long end, T value) {
+    }
+
+    private static final IntervalTree<?> EMPTY = new IntervalTree<>(List.of());
+
+    private final Interval<T>[] intervals;
+    private final long[] maxEnd;
+
+    @SuppressWarnings("unchecked")
+    private IntervalTree(Collection<Interval<T>> source) {
+        this.intervals = source.toArray(new Interval[0]);
+        Arrays.sort(intervals, Comparator.comparingLong(Interval<T>::start));
+        this.maxEnd = new long[intervals.length];
+        fillMaxEnd(0, intervals.length);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> IntervalTree<T> empty() {
+        return (IntervalTree<T>) EMPTY;
+    }
+
+    public static <T> IntervalTree<T> of(Collection<Interval<T>> intervals) {
+        return intervals.isEmpty() ? empty() : new IntervalTree<>(intervals);
+    }
+
+    public int size() {
+        return intervals.length;
+    }
+
+    public boolean isEmpty() {
+        return intervals.length == 0;
+    }
+
+    public IntervalTree<T> with(Interval<T> interval) {
+        List<Interval<T>> copy = new ArrayList<>(intervals.length + 1);
+        copy.addAll(List.of(intervals));
+        copy.add(interval);
+        return new IntervalTree<>(copy);
+    }
+
+    // Drops every interval whose value matches
+    public IntervalTree<T> without(Predicate<T> match) {
+        List<Interval<T>> copy = new ArrayList<>(intervals.length);
+        for (Interval<T> interval : intervals) {
+            if (!match.test(interval.value())) {
+                copy.add(interval);
+            }
+        }
+        return copy.size() == intervals.length ? this : of(copy);
+    }
+
+    // Values of the intervals with start <= point <= end, in start order
+    public List<T> stab(long point) {
+        List<T> found = new ArrayList<>();
+        stab(0, intervals.length, point, found);
+        return found;
+    }
+
+    private void stab(int lo, int hi, long point, List<T> found) {
+        if (lo >= hi) {
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        if (maxEnd[mid] < point) {
+            return;
+        }
+        stab(lo, mid, point, found);
+        Interval<T> interval = intervals[mid];
+        if (interval.start() <= point) {
+            if (interval.end() >= point) {
+                found.add(interval.value());
+            }
+            // everything to the right starts at or after this one
+            stab(mid + 1, hi, point, found);
+        }
+    }
+
+    private long fillMaxEnd(int lo, int hi) {
+        if (lo >= hi) {
+            return Long.MIN_VALUE;
+        }
+        int mid = (lo + hi) >>> 1;
+        long max = Math.max(intervals[mid].end(), Math.max(fillMaxEnd(lo, mid), fillMaxEnd(mid + 1, hi)));
+        maxEnd[mid] = max;
+        return max;
+    }
+}
@@ -2,25 +2,23 @@ package com.example.deliveryhub.util;
 
 import com.example.deliveryhub.model.Role;
 import com.example.deliveryhub.model.User;
-import com.example.deliveryhub.repository.UserRepository;
+import com.example.deliveryhub.service.CurrentUserService;
 
 import org.springframework.security.access.AccessDeniedException;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 
 @Component
 public class SecurityUtils {
 
-    private final UserRepository userRepository;
+    private final CurrentUserService currentUserService;
 
-    public SecurityUtils(UserRepository userRepository) {
-        this.userRepository = userRepository;
+    public SecurityUtils(CurrentUserService currentUserService) {
+        this.currentUserService = currentUserService;
     }
 
+    // Resolved once per request (see CurrentUserService); load from UserRepository to modify the user
     public User getCurrentUser() {
-        String email = SecurityContextHolder.getContext().getAuthentication().getName();
-        return userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        return currentUserService.getCurrentUser();
     }
 
     public void assertRole(User user, Role expectedRole) {
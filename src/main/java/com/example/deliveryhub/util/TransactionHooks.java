@@ -0,0 +1,26 @@
+package com.example.deliveryhub.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// For in-memory state that mirrors DB writes (counters, caches, indexes)
+public final class TransactionHooks {
+
+    private TransactionHooks() {
+    }
+
+    // Runs the update once the current transaction commits, and never if it rolls back;
+    // outside a transaction the write has already happened, so it runs right away
+    public static void afterCommit(Runnable update) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    update.run();
+                }
+            });
+        } else {
+            update.run();
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.deliveryhub.websocket;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+
+import com.example.deliveryhub.dto.ChatMessageDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+// Single outbound stage for chat traffic.
+// Every payload is serialized to JSON once and sent as a pre-built frame, so the broker
+// doesn't run the message converter again per destination.
+// Unread badge pushes (/queue/chat.{id}.count) are coalesced per (user, delivery): within
+// chat.fanout.badge-window-ms only the latest value goes out.
+@Component
+@Slf4j
+public class ChatFanout {
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ObjectMapper objectMapper;
+    private final WebSocketSessionRegistry sessionRegistry;
+    private final long badgeWindowMs;
+
+    private final Map<String, Integer> pendingBadges = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService badgeScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "chat-badge-coalescer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Counter framesSent;
+    private final Counter bytesSent;
+    private final Counter badgesCoalesced;
+    private final Counter skippedOffline;
+    private final DistributionSummary framesPerMessage;
+    private final DistributionSummary bytesPerMessage;
+
+    public ChatFanout(SimpMessagingTemplate messagingTemplate,
+                      ObjectMapper objectMapper,
+                      WebSocketSessionRegistry sessionRegistry,
+                      MeterRegistry meterRegistry,
+                      @Value("${chat.fanout.badge-window-ms:100}") long badgeWindowMs) {
+        this.messagingTemplate = messagingTemplate;
+        this.objectMapper = objectMapper;
+        this.sessionRegistry = sessionRegistry;
+        this.badgeWindowMs = Math.max(0, badgeWindowMs);
+
+        this.framesSent = meterRegistry.counter("chat.fanout.frames");
+        this.bytesSent = meterRegistry.counter("chat.fanout.bytes");
+        this.badgesCoalesced = meterRegistry.counter("chat.fanout.badges.coalesced");
+        this.skippedOffline = meterRegistry.counter("chat.fanout.skipped.offline");
+        this.framesPerMessage = DistributionSummary.builder("chat.fanout.message.frames")
+                .description("Outbound frames published for one chat message (badge excluded, it is coalesced)")
+                .register(meterRegistry);
+        this.bytesPerMessage = DistributionSummary.builder("chat.fanout.message.bytes")
+                .description("Outbound payload bytes published for one chat message")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void stop() {
+        badgeScheduler.shutdownNow();
+    }
+
+    // A new chat message: once to the room topic, once as a notification to the receiver,
+    // plus a (coalesced) badge update with the receiver's unread count.
+    // Per-user frames are skipped when the receiver has no live session; the client
+    // reloads counts and history when it reconnects.
+    public void publishMessage(ChatMessageDTO message, String receiverEmail, int receiverUnread) {
+        Long deliveryId = message.getMatchId();
+        byte[] payload = serialize(message);
+
+        if (!sessionRegistry.isOnline(receiverEmail)) {
+            skippedOffline.increment();
+            int bytes = send("/topic/delivery." + deliveryId + ".chat", payload);
+            framesPerMessage.record(1);
+            bytesPerMessage.record(bytes);
+            return;
+        }
+
+        Map<String, Object> notification = new HashMap<>();
+        notification.put("type", "NEW_MESSAGE");
+        notification.put("deliveryId", deliveryId);
+        notification.put("senderName", message.getSenderName());
+        notification.put("message", message.getContent());
+        notification.put("timestamp", message.getTimestamp());
+
+        int bytes = send("/topic/delivery." + deliveryId + ".chat", payload)
+                + sendToUser(receiverEmail, "/queue/notifications", serialize(notification));
+        framesPerMessage.record(2);
+        bytesPerMessage.record(bytes);
+
+        badge(receiverEmail, deliveryId, receiverUnread);
+    }
+
+    public void publish(String destination, Object payload) {
+        send(destination, serialize(payload));
+    }
+
+    public void publishToUser(String email, String destination, Object payload) {
+        if (!sessionRegistry.isOnline(email)) {
+            skippedOffline.increment();
+            return;
+        }
+        sendToUser(email, destination, serialize(payload));
+    }
+
+    // Only the latest count per (user, delivery) inside the window is sent
+    public void badge(String email, Long deliveryId, int unread) {
+        if (!sessionRegistry.isOnline(email)) {
+            skippedOffline.increment();
+            return;
+        }
+        if (badgeWindowMs == 0) {
+            sendToUser(email, "/queue/chat." + deliveryId + ".count", serialize(unread));
+            return;
+        }
+
+        String key = deliveryId + "|" + email;
+        if (pendingBadges.put(key, unread) != null) {
+            badgesCoalesced.increment();
+            return;
+        }
+        badgeScheduler.schedule(() -> {
+            Integer latest = pendingBadges.remove(key);
+            if (latest != null) {
+                sendToUser(email, "/queue/chat." + deliveryId + ".count", serialize(latest));
+            }
+        }, badgeWindowMs, TimeUnit.MILLISECONDS);
+    }
+
+    private int sendToUser(String email, String destination, byte[] payload) {
+        // Same destination convertAndSendToUser builds; '/' in a user name has to be encoded
+        return send("/user/" + email.replace("/", "%2F") + destination, payload);
+    }
+
+    private int send(String destination, byte[] payload) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create();
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        accessor.setLeaveMutable(true);
+        Message<byte[]> frame = MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+
+        messagingTemplate.send(destination, frame);
+        framesSent.increment();
+        bytesSent.increment(payload.length);
+        return payload.length;
+    }
+
+    private byte[] serialize(Object payload) {
+        try {
+            return objectMapper.writeValueAsBytes(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize chat payload", e);
+        }
+    }
+}
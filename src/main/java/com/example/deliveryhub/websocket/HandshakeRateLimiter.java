@@ -0,0 +1,130 @@
+package com.example.deliveryhub.websocket;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Token buckets limiting WebSocket handshakes per client IP and per user, so a fleet
+// reconnecting at once (or one misbehaving client) is spread out instead of all
+// accepted in the same second. A bucket holds up to "burst" handshakes and refills at
+// "per-second"; the IP bucket is checked before the token is verified, the user bucket after.
+// Idle buckets are full again and are dropped once the map grows past max-keys.
+// websocket.handshake.throttled{key=ip|user} counts rejections.
+@Component
+public class HandshakeRateLimiter {
+
+    private static final class Bucket {
+        private double tokens;
+        private long updatedAt;
+
+        Bucket(double tokens, long updatedAt) {
+            this.tokens = tokens;
+            this.updatedAt = updatedAt;
+        }
+    }
+
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final int ipBurst;
+    private final double ipPerSecond;
+    private final int userBurst;
+    private final double userPerSecond;
+    private final int maxKeys;
+    private final LongSupplier clock;
+
+    private final Counter ipThrottled;
+    private final Counter userThrottled;
+
+    @Autowired
+    public HandshakeRateLimiter(MeterRegistry meterRegistry,
+                                @Value("${websocket.handshake.ip.burst:30}") int ipBurst,
+                                @Value("${websocket.handshake.ip.per-second:10}") double ipPerSecond,
+                                @Value("${websocket.handshake.user.burst:5}") int userBurst,
+                                @Value("${websocket.handshake.user.per-second:0.5}") double userPerSecond,
+                                @Value("${websocket.handshake.max-keys:100000}") int maxKeys) {
+        this(meterRegistry, ipBurst, ipPerSecond, userBurst, userPerSecond, maxKeys, System::currentTimeMillis);
+    }
+
+    HandshakeRateLimiter(MeterRegistry meterRegistry, int ipBurst, double ipPerSecond,
+                         int userBurst, double userPerSecond, int maxKeys, LongSupplier clock) {
+        this.ipBurst = Math.max(1, ipBurst);
+        this.ipPerSecond = ipPerSecond;
+        this.userBurst = Math.max(1, userBurst);
+        this.userPerSecond = userPerSecond;
+        this.maxKeys = Math.max(1, maxKeys);
+        this.clock = clock;
+
+        this.ipThrottled = throttled(meterRegistry, "ip");
+        this.userThrottled = throttled(meterRegistry, "user");
+    }
+
+    // A null address (unknown peer) is not limited here
+    public boolean tryAcquireForIp(String remoteAddress) {
+        if (remoteAddress == null || tryAcquire("ip:" + remoteAddress, ipBurst, ipPerSecond)) {
+            return true;
+        }
+        ipThrottled.increment();
+        return false;
+    }
+
+    public boolean tryAcquireForUser(String email) {
+        if (tryAcquire("user:" + email, userBurst, userPerSecond)) {
+            return true;
+        }
+        userThrottled.increment();
+        return false;
+    }
+
+    int size() {
+        return buckets.size();
+    }
+
+    private boolean tryAcquire(String key, int burst, double perSecond) {
+        long now = clock.getAsLong();
+        if (buckets.size() >= maxKeys && !buckets.containsKey(key)) {
+            purgeIdle(now);
+        }
+        Bucket bucket = buckets.computeIfAbsent(key, k -> new Bucket(burst, now));
+        synchronized (bucket) {
+            refill(bucket, now, burst, perSecond);
+            if (bucket.tokens < 1) {
+                return false;
+            }
+            bucket.tokens -= 1;
+            return true;
+        }
+    }
+
+    // A bucket that has refilled to the top carries no state worth keeping
+    private void purgeIdle(long now) {
+        buckets.entrySet().removeIf(e -> {
+            Bucket bucket = e.getValue();
+            synchronized (bucket) {
+                boolean user = e.getKey().startsWith("user:");
+                refill(bucket, now, user ? userBurst : ipBurst, user ? userPerSecond : ipPerSecond);
+                return bucket.tokens >= (user ? userBurst : ipBurst);
+            }
+        });
+    }
+
+    private static void refill(Bucket bucket, long now, int burst, double perSecond) {
+        long elapsed = now - bucket.updatedAt;
+        if (elapsed > 0) {
+            bucket.tokens = Math.min(burst, bucket.tokens + elapsed * perSecond / 1000.0);
+            bucket.updatedAt = now;
+        }
+    }
+
+    private static Counter throttled(MeterRegistry meterRegistry, String key) {
+        return Counter.builder("websocket.handshake.throttled")
+                .description("WebSocket handshakes rejected by the rate limiter")
+                .tag("key", key)
+                .register(meterRegistry);
+    }
+}
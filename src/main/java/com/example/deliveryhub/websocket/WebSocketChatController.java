@@ -9,11 +9,12 @@ import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.messaging.handler.annotation.SendTo;
 import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.example.deliveryhub.auth.JwtUserPrincipal;
+import com.example.deliveryhub.config.WebSocketJwtInterceptor;
 import com.example.deliveryhub.dto.ChatMessageDTO;
 import com.example.deliveryhub.service.ChatService;
 
@@ -27,27 +28,23 @@ import lombok.extern.slf4j.Slf4j;
 public class WebSocketChatController {
 
     private final ChatService chatService;
-    private final SimpMessagingTemplate messagingTemplate;
+    private final ChatFanout chatFanout;
 
     @MessageMapping("/chat.send")
     public void sendMessage(ChatMessageDTO chatMessageDTO, Principal principal, SimpMessageHeaderAccessor headerAccessor) {
         
-        log.info("📨 WebSocket message received from frontend");
-        log.info("Message content: {}", chatMessageDTO);
-        
         String authenticatedEmail = null;
         
         // Primary: Get from Principal (set by ChannelInterceptor)
         if (principal != null) {
             authenticatedEmail = principal.getName();
-            log.info("Authenticated user from Principal: {}", authenticatedEmail);
+            log.debug("Authenticated user from Principal: {}", authenticatedEmail);
         } else {
             // Fallback: Get from User object in session (set by HandshakeInterceptor)
-            Object userObj = headerAccessor.getSessionAttributes().get("user");
-            if (userObj instanceof com.example.deliveryhub.model.User) {
-                com.example.deliveryhub.model.User user = (com.example.deliveryhub.model.User) userObj;
-                authenticatedEmail = user.getEmail();
-                log.info("Authenticated user from session: {}", authenticatedEmail);
+            Object userObj = headerAccessor.getSessionAttributes().get(WebSocketJwtInterceptor.USER_ATTRIBUTE);
+            if (userObj instanceof JwtUserPrincipal user) {
+                authenticatedEmail = user.getUsername();
+                log.debug("Authenticated user from session: {}", authenticatedEmail);
             }
         }
         
@@ -57,16 +54,10 @@ public class WebSocketChatController {
         }
 
         try {
-            log.info("Sending message to ChatService for user: {}", authenticatedEmail);
-            
-            // Send message securely
+            // Send message securely; ChatService also publishes it to the room
             ChatMessageDTO saved = chatService.sendMessage(authenticatedEmail, chatMessageDTO);
 
-            // Broadcast to room: /topic/delivery.{matchId}.chat
-            String destination = "/topic/delivery." + saved.getMatchId() + ".chat";
-            messagingTemplate.convertAndSend(destination, saved);
-            
-            log.info("Message broadcast to {} with content: {}", destination, saved);
+            log.debug("Message {} broadcast to delivery {}", saved.getId(), saved.getMatchId());
             
         } catch (Exception e) {
             log.error("Error sending message for user {}: {}", authenticatedEmail, e.getMessage());
@@ -83,8 +74,7 @@ public class WebSocketChatController {
         ChatMessageDTO updated = chatService.markMessageAsRead(messageId, email);
 
         // 🔔 Notify the sender that their message was read
-        String senderDestination = "/topic/chat.read." + updated.getSenderId();
-        messagingTemplate.convertAndSend(senderDestination, updated);
+        chatFanout.publish("/topic/chat.read." + updated.getSenderId(), updated);
     }
      
     // Add this method to your WebSocketChatController class:
@@ -99,6 +89,14 @@ public class WebSocketChatController {
         return ResponseEntity.ok(counts);
     }
 
+    // Client acks the ids of messages it has received (live or on reconnect)
+    @MessageMapping("/chat.delivered")
+    public void markDelivered(@Payload List<Long> messageIds, Principal principal) {
+        if (principal == null) throw new SecurityException("Unauthorized");
+
+        chatService.markDelivered(messageIds, principal.getName());
+    }
+
     @MessageMapping("/chat.readAll")
     public void readAll(@Payload Long deliveryId, Principal principal) {
         if (principal == null) throw new SecurityException("Unauthorized");
@@ -107,19 +105,11 @@ public class WebSocketChatController {
         List<Long> readIds = chatService.markAllMessagesAsReadForReceiver(deliveryId, me);
 
         // 1️⃣ reset my badge to zero
-        messagingTemplate.convertAndSendToUser(
-            me,
-            "/queue/chat." + deliveryId + ".count",
-            0
-        );
+        chatFanout.badge(me, deliveryId, 0);
 
         // 2️⃣ notify the *other* user which message‐IDs got read
         String other = chatService.getOtherParticipantEmail(deliveryId, me);
-        messagingTemplate.convertAndSendToUser(
-            other,
-            "/queue/chat." + deliveryId + ".receipt",
-            readIds
-        );
+        chatFanout.publishToUser(other, "/queue/chat." + deliveryId + ".receipt", readIds);
     }
 
     
@@ -0,0 +1,147 @@
+package com.example.deliveryhub.websocket;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import lombok.Getter;
+
+// Live STOMP sessions on this node, by session, user id and email.
+// Sessions are added on CONNECT (tryConnect, called from the inbound interceptor so the
+// per-user cap is checked atomically) and removed on SessionDisconnectEvent;
+// subscriptions follow the subscribe/unsubscribe events.
+// isOnline(email) also consults Spring's SimpUserRegistry, which in relay mode knows the
+// users connected to the other nodes.
+@Component
+public class WebSocketSessionRegistry {
+
+    @Getter
+    public static class SessionInfo {
+        private final String sessionId;
+        private final Long userId;
+        private final String email;
+        private final LocalDateTime connectedAt = LocalDateTime.now();
+        // subscription id -> destination
+        private final Map<String, String> subscriptions = new ConcurrentHashMap<>();
+
+        SessionInfo(String sessionId, Long userId, String email) {
+            this.sessionId = sessionId;
+            this.userId = userId;
+            this.email = email;
+        }
+    }
+
+    private final ObjectProvider<SimpUserRegistry> simpUserRegistry;
+    private final int maxSessionsPerUser;
+
+    private final Map<String, SessionInfo> sessions = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> sessionsByEmail = new ConcurrentHashMap<>();
+    private final Map<Long, Set<String>> sessionsByUserId = new ConcurrentHashMap<>();
+
+    // SimpUserRegistry is created by the broker configuration, which itself needs this bean
+    public WebSocketSessionRegistry(ObjectProvider<SimpUserRegistry> simpUserRegistry,
+                                    @Value("${websocket.sessions.max-per-user:5}") int maxSessionsPerUser) {
+        this.simpUserRegistry = simpUserRegistry;
+        this.maxSessionsPerUser = Math.max(1, maxSessionsPerUser);
+    }
+
+    // False when the user already has maxSessionsPerUser live sessions on this node
+    public boolean tryConnect(String sessionId, Long userId, String email) {
+        boolean[] accepted = {false};
+        sessionsByEmail.compute(email, (key, ids) -> {
+            Set<String> current = ids != null ? ids : ConcurrentHashMap.newKeySet();
+            if (current.size() < maxSessionsPerUser || current.contains(sessionId)) {
+                current.add(sessionId);
+                accepted[0] = true;
+            }
+            return current.isEmpty() ? null : current;
+        });
+        if (!accepted[0]) {
+            return false;
+        }
+
+        sessions.put(sessionId, new SessionInfo(sessionId, userId, email));
+        if (userId != null) {
+            sessionsByUserId.computeIfAbsent(userId, id -> ConcurrentHashMap.newKeySet()).add(sessionId);
+        }
+        return true;
+    }
+
+    public void disconnect(String sessionId) {
+        SessionInfo info = sessions.remove(sessionId);
+        if (info == null) {
+            return;
+        }
+        sessionsByEmail.computeIfPresent(info.getEmail(), (key, ids) -> {
+            ids.remove(sessionId);
+            return ids.isEmpty() ? null : ids;
+        });
+        if (info.getUserId() != null) {
+            sessionsByUserId.computeIfPresent(info.getUserId(), (key, ids) -> {
+                ids.remove(sessionId);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+
+    // Connected to this node
+    public boolean isOnline(Long userId) {
+        return sessionsByUserId.containsKey(userId);
+    }
+
+    // Connected to this node or, in relay mode, to any other node
+    public boolean isOnline(String email) {
+        if (sessionsByEmail.containsKey(email)) {
+            return true;
+        }
+        SimpUserRegistry registry = simpUserRegistry.getIfAvailable();
+        return registry != null && registry.getUser(email) != null;
+    }
+
+    public int sessionCount(String email) {
+        Set<String> ids = sessionsByEmail.get(email);
+        return ids != null ? ids.size() : 0;
+    }
+
+    public Map<String, SessionInfo> getSessions() {
+        return sessions;
+    }
+
+    public int getMaxSessionsPerUser() {
+        return maxSessionsPerUser;
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        disconnect(event.getSessionId());
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        SessionInfo info = accessor.getSessionId() != null ? sessions.get(accessor.getSessionId()) : null;
+        if (info != null && accessor.getSubscriptionId() != null && accessor.getDestination() != null) {
+            info.getSubscriptions().put(accessor.getSubscriptionId(), accessor.getDestination());
+        }
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        SessionInfo info = accessor.getSessionId() != null ? sessions.get(accessor.getSessionId()) : null;
+        if (info != null && accessor.getSubscriptionId() != null) {
+            info.getSubscriptions().remove(accessor.getSubscriptionId());
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.deliveryhub.websocket;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import com.example.deliveryhub.websocket.WebSocketSessionRegistry.SessionInfo;
+
+import lombok.RequiredArgsConstructor;
+
+// /actuator/websocketsessions: live STOMP sessions and their subscriptions on this node.
+// Lists users' emails, so SecurityConfig restricts /actuator/** to ADMIN.
+@Component
+@Endpoint(id = "websocketsessions")
+@RequiredArgsConstructor
+public class WebSocketSessionsEndpoint {
+
+    private final WebSocketSessionRegistry sessionRegistry;
+
+    @ReadOperation
+    public Map<String, Object> sessions() {
+        List<SessionInfo> sessions = sessionRegistry.getSessions().values().stream()
+                .sorted(Comparator.comparing(SessionInfo::getConnectedAt))
+                .toList();
+
+        Map<String, Integer> sessionsPerUser = new HashMap<>();
+        int subscriptions = 0;
+        for (SessionInfo session : sessions) {
+            sessionsPerUser.merge(session.getEmail(), 1, Integer::sum);
+            subscriptions += session.getSubscriptions().size();
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("sessionCount", sessions.size());
+        result.put("userCount", sessionsPerUser.size());
+        result.put("subscriptionCount", subscriptions);
+        result.put("maxSessionsPerUser", sessionRegistry.getMaxSessionsPerUser());
+        result.put("sessions", sessions.stream().map(session -> {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("sessionId", session.getSessionId());
+            entry.put("userId", session.getUserId());
+            entry.put("email", session.getEmail());
+            entry.put("connectedAt", session.getConnectedAt());
+            entry.put("subscriptions", session.getSubscriptions().values());
+            return entry;
+        }).toList());
+        return result;
+    }
+}
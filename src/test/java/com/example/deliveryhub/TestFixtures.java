@@ -0,0 +1,45 @@
+package com.example.deliveryhub;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import com.example.deliveryhub.model.DeliveryRequest;
+import com.example.deliveryhub.model.Role;
+import com.example.deliveryhub.model.User;
+
+// Unsaved users and deliveries shared by the repository/service tests; callers persist them
+public final class TestFixtures {
+
+    private TestFixtures() {
+    }
+
+    public static User customer() {
+        return User.builder().fullName("Customer").email("customer@test.com").role(Role.CUSTOMER).build();
+    }
+
+    public static User transporter() {
+        return User.builder().fullName("Transporter").email("transporter@test.com")
+                .role(Role.TRANSPORTER).verified(true).build();
+    }
+
+    // Distinct name/email per n, for tests that need many transporters
+    public static User transporter(int n) {
+        return User.builder().fullName("Transporter " + n).email("transporter" + n + "@test.com")
+                .role(Role.TRANSPORTER).verified(true).build();
+    }
+
+    // A 5 kg box from Casablanca to Rabat, picked up tomorrow; transporter may be null
+    public static DeliveryRequest delivery(User customer, User transporter, String status) {
+        DeliveryRequest request = new DeliveryRequest();
+        request.setPickupCity("Casablanca");
+        request.setDropoffCity("Rabat");
+        request.setItemType("box");
+        request.setPickupDate(LocalDate.now().plusDays(1));
+        request.setWeightKg(5.0);
+        request.setStatus(status);
+        request.setRequestedAt(LocalDateTime.now());
+        request.setCustomer(customer);
+        request.setTransporter(transporter);
+        return request;
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.deliveryhub.auth;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.example.deliveryhub.exception.PasswordHashingBusyException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class BoundedPasswordEncoderTest {
+
+    private static final Logger log = LoggerFactory.getLogger(BoundedPasswordEncoderTest.class);
+    private static final int CORES = Runtime.getRuntime().availableProcessors();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private BoundedPasswordEncoder encoder;
+
+    @AfterEach
+    void tearDown() {
+        if (encoder != null) {
+            encoder.stop();
+        }
+    }
+
+    @Test
+    void encodesAndMatchesOnThePool() {
+        encoder = new BoundedPasswordEncoder(meterRegistry, 6, 2, 10, 10_000);
+
+        String hash = encoder.encode("secret");
+
+        assertThat(hash).startsWith("$2a$06$");
+        assertThat(encoder.matches("secret", hash)).isTrue();
+        assertThat(encoder.matches("wrong", hash)).isFalse();
+        assertThat(meterRegistry.get("security.password.hash").timer().count()).isEqualTo(3);
+    }
+
+    @Test
+    void flagsWeakerHashesForUpgrade() {
+        encoder = new BoundedPasswordEncoder(meterRegistry, 8, 1, 10, 10_000);
+
+        assertThat(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("secret"))).isTrue();
+        assertThat(encoder.upgradeEncoding(new BCryptPasswordEncoder(8).encode("secret"))).isFalse();
+    }
+
+    @Test
+    void failsFastWhenSaturated() throws Exception {
+        encoder = new BoundedPasswordEncoder(meterRegistry, 10, 1, 1, 10_000);
+        String hash = new BCryptPasswordEncoder(10).encode("secret");
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger busy = new AtomicInteger();
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(callers.submit(() -> {
+                    start.await();
+                    try {
+                        encoder.matches("secret", hash);
+                    } catch (PasswordHashingBusyException e) {
+                        busy.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> result : results) {
+                result.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+
+        assertThat(busy.get()).isPositive();
+        assertThat(meterRegistry.get("security.password.rejected").counter().count()).isEqualTo(busy.get());
+    }
+
+    // Stand-in for a load test (no JMH or load tool in this build): a login storm on all
+    // cores, once hashing on the caller threads as before and once through the bounded pool,
+    // while other "request" threads do short CPU work. Logs logins/s and the p99 of the
+    // other requests for both; nothing is asserted on timings.
+    @Test
+    @Tag("benchmark")
+    void logsLoginThroughputAgainstOtherRequestLatency() throws Exception {
+        String hash = new BCryptPasswordEncoder(8).encode("secret");
+        BCryptPasswordEncoder direct = new BCryptPasswordEncoder(8);
+        encoder = new BoundedPasswordEncoder(meterRegistry, 8, Math.max(1, CORES / 2), 4 * CORES, 10_000);
+
+        long[] before = storm(direct, hash);
+        long[] after = storm(encoder, hash);
+
+        log.info("Login storm, {} cores: {} logins/s, other requests p99 {} us (request-thread bcrypt); "
+                + "{} logins/s, p99 {} us, {} rejected (bounded pool)",
+                CORES, before[0], before[1], after[0], after[1], after[2]);
+        assertThat(after[0]).isPositive();
+    }
+
+    // {logins per second, p99 of other requests in microseconds, logins rejected}
+    private static long[] storm(PasswordEncoder passwordEncoder, String hash) throws Exception {
+        int loginThreads = 4 * CORES;
+        int otherThreads = Math.max(2, CORES / 2);
+        long durationMs = 1_500;
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger logins = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+
+        ExecutorService pool = Executors.newFixedThreadPool(loginThreads + otherThreads);
+        try {
+            for (int i = 0; i < loginThreads; i++) {
+                pool.submit(() -> {
+                    while (running.get()) {
+                        try {
+                            passwordEncoder.matches("secret", hash);
+                            logins.incrementAndGet();
+                        } catch (PasswordHashingBusyException e) {
+                            rejected.incrementAndGet();
+                            Thread.sleep(5); // client backs off
+                        }
+                    }
+                    return null;
+                });
+            }
+            for (int i = 0; i < otherThreads; i++) {
+                pool.submit(() -> {
+                    MessageDigest digest = MessageDigest.getInstance("SHA-256");
+                    byte[] payload = new byte[4096];
+                    Arrays.fill(payload, (byte) 'x');
+                    while (running.get()) {
+                        long start = System.nanoTime();
+                        for (int n = 0; n < 20; n++) {
+                            payload[0] = digest.digest(payload)[0];
+                        }
+                        latencies.add((System.nanoTime() - start) / 1_000);
+                        Thread.sleep(1);
+                    }
+                    return null;
+                });
+            }
+            Thread.sleep(durationMs);
+            running.set(false);
+        } finally {
+            pool.shutdown();
+            pool.awaitTermination(30, TimeUnit.SECONDS);
+        }
+
+        long[] sorted;
+        synchronized (latencies) {
+            sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+        }
+        long p99 = sorted.length == 0 ? 0 : sorted[Math.min(sorted.length - 1, (int) (sorted.length * 0.99))];
+        return new long[] { logins.get() * 1000L / durationMs, p99, rejected.get() };
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.deliveryhub.auth;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.security.KeyPair;
+import java.security.PublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Base64;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+
+class GoogleTokenVerifierTest {
+
+    private static final String CLIENT_ID = "client-123.apps.googleusercontent.com";
+    private static final KeyPair KEY_1 = Keys.keyPairFor(SignatureAlgorithm.RS256);
+    private static final KeyPair KEY_2 = Keys.keyPairFor(SignatureAlgorithm.RS256);
+
+    private final AtomicLong now = new AtomicLong(System.currentTimeMillis());
+    private final Map<String, PublicKey> published = new HashMap<>();
+    private final AtomicInteger fetches = new AtomicInteger();
+    private GoogleTokenVerifier verifier;
+
+    @BeforeEach
+    void setUp() {
+        published.put("k1", KEY_1.getPublic());
+        // local stand-in for Google's JWKS endpoint
+        GoogleKeySource keySource = () -> {
+            fetches.incrementAndGet();
+            return Map.copyOf(published);
+        };
+        verifier = new GoogleTokenVerifier(keySource, CLIENT_ID, 60_000, 100, now::get);
+        verifier.warmUp();
+    }
+
+    @Test
+    void verifiesOfflineAndCachesTheResult() {
+        String token = token("k1", KEY_1, CLIENT_ID, "https://accounts.google.com");
+
+        Claims claims = verifier.verify(token);
+        Claims again = verifier.verify(token);
+
+        assertThat(claims.get("email", String.class)).isEqualTo("user@gmail.com");
+        assertThat(again).isSameAs(claims);
+        assertThat(fetches).hasValue(1);
+    }
+
+    @Test
+    void rejectsWrongAudienceIssuerAndSignature() {
+        assertThatThrownBy(() -> verifier.verify(token("k1", KEY_1, "someone-else", "accounts.google.com")))
+                .isInstanceOf(JwtException.class);
+        assertThatThrownBy(() -> verifier.verify(token("k1", KEY_1, CLIENT_ID, "https://evil.example")))
+                .isInstanceOf(JwtException.class);
+        // signed with a key that isn't the one published under k1
+        assertThatThrownBy(() -> verifier.verify(token("k1", KEY_2, CLIENT_ID, "accounts.google.com")))
+                .isInstanceOf(JwtException.class);
+    }
+
+    @Test
+    void rejectsExpiredTokens() {
+        String token = token("k1", KEY_1, CLIENT_ID, "accounts.google.com");
+        now.addAndGet(2 * 3_600_000L);
+
+        assertThatThrownBy(() -> verifier.verify(token)).isInstanceOf(JwtException.class);
+    }
+
+    @Test
+    void unknownKeyIdRefetchesAtMostOncePerInterval() {
+        // Google rotated: k2 is published after our last fetch
+        published.put("k2", KEY_2.getPublic());
+        now.addAndGet(61_000);
+
+        assertThat(verifier.verify(token("k2", KEY_2, CLIENT_ID, "accounts.google.com")).getSubject()).isEqualTo("1234");
+        assertThat(fetches).hasValue(2);
+
+        // a made-up key id can't make every request hit the network
+        for (int i = 0; i < 5; i++) {
+            assertThatThrownBy(() -> verifier.verify(token("k9", KEY_2, CLIENT_ID, "accounts.google.com")))
+                    .isInstanceOf(JwtException.class);
+        }
+        assertThat(fetches).hasValue(2);
+    }
+
+    @Test
+    void keepsCurrentKeysWhenRefreshFails() {
+        GoogleTokenVerifier offline = new GoogleTokenVerifier(() -> {
+            throw new IOException("no network");
+        }, CLIENT_ID, 0, 100, now::get);
+
+        offline.refreshKeys();
+
+        assertThatThrownBy(() -> offline.verify(token("k1", KEY_1, CLIENT_ID, "accounts.google.com")))
+                .isInstanceOf(JwtException.class);
+    }
+
+    @Test
+    void parsesPublishedJwks() throws Exception {
+        RSAPublicKey key = (RSAPublicKey) KEY_1.getPublic();
+        Base64.Encoder b64 = Base64.getUrlEncoder().withoutPadding();
+        String jwks = "{\"keys\":[{\"kty\":\"RSA\",\"alg\":\"RS256\",\"use\":\"sig\",\"kid\":\"k1\","
+                + "\"n\":\"" + b64.encodeToString(key.getModulus().toByteArray()) + "\","
+                + "\"e\":\"" + b64.encodeToString(key.getPublicExponent().toByteArray()) + "\"}]}";
+
+        Map<String, PublicKey> keys = GoogleJwksKeySource.parse(new ObjectMapper().readTree(jwks));
+
+        assertThat(keys).containsOnlyKeys("k1");
+        assertThat(keys.get("k1").getEncoded()).isEqualTo(key.getEncoded());
+    }
+
+    private String token(String keyId, KeyPair signer, String audience, String issuer) {
+        return Jwts.builder()
+                .setHeaderParam("kid", keyId)
+                .setIssuer(issuer)
+                .setAudience(audience)
+                .setSubject("1234")
+                .claim("email", "user@gmail.com")
+                .claim("email_verified", true)
+                .setIssuedAt(new Date(now.get()))
+                .setExpiration(new Date(now.get() + 3_600_000L))
+                .signWith(signer.getPrivate(), SignatureAlgorithm.RS256)
+                .compact();
+    }
+}
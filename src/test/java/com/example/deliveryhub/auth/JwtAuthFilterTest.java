@@ -0,0 +1,135 @@
+package com.example.deliveryhub.auth;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.example.deliveryhub.model.Role;
+import com.example.deliveryhub.model.User;
+import com.example.deliveryhub.service.UserCacheService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class JwtAuthFilterTest {
+
+    private static final Logger log = LoggerFactory.getLogger(JwtAuthFilterTest.class);
+    private static final String SECRET = "test-secret-test-secret-test-secret-0123456789";
+    private static final int ITERATIONS = 20_000;
+    private static final User CUSTOMER = User.builder().id(7L).email("customer@test.com").role(Role.CUSTOMER).build();
+
+    private final AtomicLong now = new AtomicLong(System.currentTimeMillis());
+    private JwtUtils jwtUtils;
+    private UserCacheService userCacheService;
+    private SimpleMeterRegistry meterRegistry;
+    private JwtAuthFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtils = new JwtUtils(SECRET, 60_000, 600_000, 100, now::get);
+        userCacheService = mock(UserCacheService.class);
+        meterRegistry = new SimpleMeterRegistry();
+        // writer thread not started: lines queue up (or are dropped) without touching the appender
+        filter = new JwtAuthFilter(jwtUtils, userCacheService, new SecurityEventLogger(meterRegistry, 100, 20, 100));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void authenticatesFromClaimsAndCountsSuccess() throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(bearer(jwtUtils.generateToken(CUSTOMER)), new MockHttpServletResponse(), chain);
+
+        assertThat(chain.getRequest()).isNotNull();
+        assertThat(SecurityContextHolder.getContext().getAuthentication().getName()).isEqualTo("customer@test.com");
+        assertThat(count("success")).isEqualTo(1);
+        verifyNoInteractions(userCacheService);
+    }
+
+    @Test
+    void rejectsInvalidTokenWith401() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(bearer("not-a-jwt"), response, chain);
+
+        assertThat(response.getStatus()).isEqualTo(401);
+        assertThat(chain.getRequest()).isNull();
+        assertThat(count("failure")).isEqualTo(1);
+    }
+
+    @Test
+    void countsExpiredTokensSeparately() throws Exception {
+        String token = jwtUtils.generateToken(CUSTOMER);
+        now.addAndGet(61_000);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(bearer(token), response, new MockFilterChain());
+
+        assertThat(response.getStatus()).isEqualTo(401);
+        assertThat(count("expired")).isEqualTo(1);
+        assertThat(count("failure")).isZero();
+    }
+
+    @Test
+    void requestsWithoutTokenPassThroughUncounted() throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/auth/login"), new MockHttpServletResponse(), chain);
+
+        assertThat(chain.getRequest()).isNotNull();
+        assertThat(count("success") + count("failure") + count("expired")).isZero();
+    }
+
+    // Stand-in for a JMH run (JMH isn't part of this build): per-request cost of the filter
+    // with a cached token, i.e. what every authenticated request pays
+    @Test
+    @Tag("benchmark")
+    void logsFilterOverheadPerRequest() throws Exception {
+        String token = jwtUtils.generateToken(CUSTOMER);
+        MockHttpServletRequest request = bearer(token);
+
+        for (int i = 0; i < ITERATIONS; i++) {
+            runOnce(request);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            runOnce(request);
+        }
+        long nanosPerOp = (System.nanoTime() - start) / ITERATIONS;
+
+        log.info("JwtAuthFilter with cached token: {} ns/op", nanosPerOp);
+        assertThat(count("success")).isEqualTo(2.0 * ITERATIONS);
+    }
+
+    private void runOnce(MockHttpServletRequest request) throws Exception {
+        SecurityContextHolder.clearContext();
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+    }
+
+    private static MockHttpServletRequest bearer(String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/deliveries");
+        request.addHeader("Authorization", "Bearer " + token);
+        return request;
+    }
+
+    private double count(String outcome) {
+        return meterRegistry.get("security.auth").tag("channel", "http").tag("outcome", outcome).counter().count();
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.deliveryhub.auth;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.example.deliveryhub.model.Role;
+import com.example.deliveryhub.model.User;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+
+class JwtUtilsTest {
+
+    private static final Logger log = LoggerFactory.getLogger(JwtUtilsTest.class);
+    private static final String SECRET = "test-secret-test-secret-test-secret-0123456789";
+    private static final int ITERATIONS = 20_000;
+    private static final User CUSTOMER = User.builder().id(7L).email("customer@test.com").role(Role.CUSTOMER).build();
+
+    private final AtomicLong now = new AtomicLong(1_700_000_000_000L);
+    private JwtUtils jwtUtils;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtils = new JwtUtils(SECRET, 60_000, 600_000, 100, now::get);
+    }
+
+    @Test
+    void validatesAndExtractsInOneCall() {
+        String token = jwtUtils.generateToken(CUSTOMER);
+
+        assertThat(jwtUtils.validateAndGetClaims(token)).get()
+                .extracting(c -> c.getSubject()).isEqualTo("customer@test.com");
+        // second call is served from the cache and must agree
+        assertThat(jwtUtils.getUsernameFromToken(token)).isEqualTo("customer@test.com");
+        assertThat(jwtUtils.validateToken(token)).isTrue();
+    }
+
+    @Test
+    void accessTokenCarriesIdAndRoleForClaimsOnlyAuthentication() {
+        Claims claims = jwtUtils.getClaims(jwtUtils.generateToken(CUSTOMER));
+
+        JwtUserPrincipal principal = jwtUtils.toPrincipal(claims);
+
+        assertThat(principal.getUserId()).isEqualTo(7L);
+        assertThat(principal.getUsername()).isEqualTo("customer@test.com");
+        assertThat(principal.getAuthorities()).extracting(a -> a.getAuthority()).containsExactly("ROLE_CUSTOMER");
+        // refresh tokens (and tokens issued before these claims) carry no principal
+        assertThat(jwtUtils.toPrincipal(jwtUtils.getClaims(jwtUtils.generateRefreshToken("customer@test.com")))).isNull();
+    }
+
+    @Test
+    void rejectsTamperedAndForeignTokens() {
+        String token = jwtUtils.generateToken(CUSTOMER);
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+        JwtUtils other = new JwtUtils(SECRET.replace('0', '1'), 60_000, 600_000, 100, now::get);
+
+        assertThat(jwtUtils.validateToken(tampered)).isFalse();
+        assertThat(jwtUtils.validateToken(other.generateToken(CUSTOMER))).isFalse();
+        assertThat(jwtUtils.validateAndGetClaims("not-a-jwt")).isEmpty();
+        assertThatThrownBy(() -> jwtUtils.getClaims(tampered)).isInstanceOf(JwtException.class);
+    }
+
+    @Test
+    void cachedTokenStopsValidatingAtExpiry() {
+        String token = jwtUtils.generateToken(CUSTOMER);
+        assertThat(jwtUtils.validateToken(token)).isTrue();
+
+        now.addAndGet(61_000);
+
+        assertThat(jwtUtils.validateToken(token)).isFalse();
+        assertThatThrownBy(() -> jwtUtils.getClaims(token)).isInstanceOf(ExpiredJwtException.class);
+    }
+
+    // Stand-in for a JMH run (JMH isn't part of this build): logs ns/op for the old
+    // per-call parser (parsed twice, as JwtAuthFilter used to) against the shared parser + cache
+    @Test
+    @Tag("benchmark")
+    void logsParseCostBeforeAndAfter() {
+        JwtUtils real = new JwtUtils(SECRET, 60_000, 600_000, 100, System::currentTimeMillis);
+        String token = real.generateToken(CUSTOMER);
+
+        long before = nanosPerOp(() -> {
+            for (int i = 0; i < 2; i++) {
+                Jwts.parserBuilder()
+                        .setSigningKey(SECRET.getBytes(StandardCharsets.UTF_8))
+                        .build()
+                        .parseClaimsJws(token);
+            }
+        });
+        long after = nanosPerOp(() -> real.getClaims(token));
+
+        log.info("JWT verify per request: {} ns/op before, {} ns/op after", before, after);
+    }
+
+    private static long nanosPerOp(Runnable op) {
+        for (int i = 0; i < ITERATIONS; i++) {
+            op.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            op.run();
+        }
+        return (System.nanoTime() - start) / ITERATIONS;
+    }
+}
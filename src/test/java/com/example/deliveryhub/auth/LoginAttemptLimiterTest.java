@@ -0,0 +1,72 @@
+package com.example.deliveryhub.auth;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.deliveryhub.exception.TooManyLoginAttemptsException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class LoginAttemptLimiterTest {
+
+    private final AtomicLong now = new AtomicLong(1_700_000_000_000L);
+    private SimpleMeterRegistry meterRegistry;
+    private LoginAttemptLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        limiter = new LoginAttemptLimiter(meterRegistry, 3, 5, 60_000, 4, now::get);
+    }
+
+    @Test
+    void blocksAccountAfterTooManyFailuresUntilWindowEnds() {
+        for (int i = 0; i < 3; i++) {
+            limiter.check("User@Test.com", "10.0.0.1");
+            limiter.recordFailure("User@Test.com", "10.0.0.1");
+        }
+
+        // same account from anywhere, any letter case
+        assertThatThrownBy(() -> limiter.check("user@test.com", "10.0.0.2"))
+                .isInstanceOf(TooManyLoginAttemptsException.class)
+                .extracting(e -> ((TooManyLoginAttemptsException) e).getRetryAfterSeconds()).isEqualTo(60L);
+        assertThat(meterRegistry.get("security.login.blocked").tag("key", "account").counter().count()).isEqualTo(1);
+
+        now.addAndGet(60_000);
+        assertThatCode(() -> limiter.check("user@test.com", "10.0.0.2")).doesNotThrowAnyException();
+    }
+
+    @Test
+    void successClearsTheAccountButNotTheAddress() {
+        limiter.recordFailure("a@test.com", "10.0.0.1");
+        limiter.recordFailure("a@test.com", "10.0.0.1");
+        limiter.recordSuccess("a@test.com");
+        limiter.recordFailure("a@test.com", "10.0.0.1");
+        limiter.recordFailure("a@test.com", "10.0.0.1");
+        assertThatCode(() -> limiter.check("a@test.com", "10.0.0.1")).doesNotThrowAnyException();
+
+        // the address has now failed 4 times; one more on another account reaches its limit of 5
+        limiter.recordFailure("b@test.com", "10.0.0.1");
+        assertThatThrownBy(() -> limiter.check("c@test.com", "10.0.0.1"))
+                .isInstanceOf(TooManyLoginAttemptsException.class);
+        assertThat(meterRegistry.get("security.login.blocked").tag("key", "ip").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void dropsExpiredWindowsWhenFull() {
+        limiter.recordFailure("a@test.com", "10.0.0.1");
+        limiter.recordFailure("b@test.com", "10.0.0.2");
+        assertThat(limiter.size()).isEqualTo(4);
+
+        now.addAndGet(60_000);
+        limiter.recordFailure("c@test.com", null);
+
+        assertThat(limiter.size()).isEqualTo(1);
+    }
+}
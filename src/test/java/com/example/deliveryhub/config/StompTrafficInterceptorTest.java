@@ -0,0 +1,46 @@
+package com.example.deliveryhub.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class StompTrafficInterceptorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final StompTrafficInterceptor interceptor = new StompTrafficInterceptor("inbound", meterRegistry, 1);
+
+    @Test
+    void countsAndTimesFramesPerCommand() {
+        Message<byte[]> send = frame(StompCommand.SEND);
+        Message<byte[]> subscribe = frame(StompCommand.SUBSCRIBE);
+
+        interceptor.preSend(send, null);
+        interceptor.preSend(send, null);
+        interceptor.preSend(subscribe, null);
+        interceptor.beforeHandle(send, null, null);
+        interceptor.afterMessageHandled(send, null, null, null);
+
+        assertThat(meterRegistry.get("websocket.inbound.frames").tag("command", "SEND").counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("websocket.inbound.frames").tag("command", "SUBSCRIBE").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("websocket.inbound.handle").tag("command", "SEND").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void countsRefusedSends() {
+        interceptor.postSend(frame(StompCommand.SEND), null, false);
+
+        assertThat(meterRegistry.get("websocket.inbound.failed").counter().count()).isEqualTo(1);
+    }
+
+    private static Message<byte[]> frame(StompCommand command) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+        accessor.setDestination("/app/chat.send");
+        return MessageBuilder.createMessage(new byte[] {1, 2, 3}, accessor.getMessageHeaders());
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.deliveryhub.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.example.deliveryhub.auth.JwtUserPrincipal;
+import com.example.deliveryhub.auth.JwtUtils;
+import com.example.deliveryhub.auth.SecurityEventLogger;
+import com.example.deliveryhub.model.Role;
+import com.example.deliveryhub.model.User;
+import com.example.deliveryhub.service.UserCacheService;
+import com.example.deliveryhub.websocket.HandshakeRateLimiter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class WebSocketJwtInterceptorTest {
+
+    private static final Logger log = LoggerFactory.getLogger(WebSocketJwtInterceptorTest.class);
+    private static final String SECRET = "test-secret-test-secret-test-secret-0123456789";
+    private static final int FLEET = 2_000;
+    private static final int THREADS = 8;
+
+    private JwtUtils jwtUtils;
+    private UserCacheService userCacheService;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtils = new JwtUtils(SECRET, 60_000, 600_000, 10_000);
+        userCacheService = mock(UserCacheService.class);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void storesLightweightPrincipalFromClaims() {
+        WebSocketJwtInterceptor interceptor = interceptor(100, 100);
+        Map<String, Object> attributes = new HashMap<>();
+
+        boolean accepted = handshake(interceptor, "10.0.0.1", "v=1&token=" + token(7L, "driver@test.com"), attributes).accepted();
+
+        assertThat(accepted).isTrue();
+        JwtUserPrincipal principal = (JwtUserPrincipal) attributes.get(WebSocketJwtInterceptor.USER_ATTRIBUTE);
+        assertThat(principal.getUserId()).isEqualTo(7L);
+        assertThat(principal.getUsername()).isEqualTo("driver@test.com");
+        verifyNoInteractions(userCacheService);
+    }
+
+    @Test
+    void fallsBackToUserCacheForTokensWithoutIdClaims() {
+        when(userCacheService.findByEmail("old@test.com")).thenReturn(Optional.of(
+                User.builder().id(3L).email("old@test.com").role(Role.TRANSPORTER).build()));
+        Map<String, Object> attributes = new HashMap<>();
+
+        handshake(interceptor(100, 100), "10.0.0.1", "token=" + jwtUtils.generateRefreshToken("old@test.com"), attributes);
+
+        assertThat(((JwtUserPrincipal) attributes.get(WebSocketJwtInterceptor.USER_ATTRIBUTE)).getUserId()).isEqualTo(3L);
+    }
+
+    @Test
+    void rejectsMissingAndInvalidTokens() {
+        WebSocketJwtInterceptor interceptor = interceptor(100, 100);
+
+        assertThat(handshake(interceptor, "10.0.0.1", null, new HashMap<>()).accepted()).isFalse();
+        assertThat(handshake(interceptor, "10.0.0.1", "token=", new HashMap<>()).accepted()).isFalse();
+        assertThat(handshake(interceptor, "10.0.0.1", "token=not-a-jwt", new HashMap<>()).accepted()).isFalse();
+        assertThat(meterRegistry.get("security.auth").tag("channel", "websocket").tag("outcome", "failure")
+                .counter().count()).isEqualTo(3);
+    }
+
+    @Test
+    void throttlesReconnectLoopsWith429() {
+        WebSocketJwtInterceptor interceptor = interceptor(100, 2);
+        String query = "token=" + token(7L, "driver@test.com");
+
+        assertThat(handshake(interceptor, "10.0.0.1", query, new HashMap<>()).accepted()).isTrue();
+        assertThat(handshake(interceptor, "10.0.0.2", query, new HashMap<>()).accepted()).isTrue();
+        Handshake third = handshake(interceptor, "10.0.0.3", query, new HashMap<>());
+
+        assertThat(third.accepted()).isFalse();
+        assertThat(third.status()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+    }
+
+    @Test
+    void parsesTokenParameterAnywhereInQuery() {
+        assertThat(WebSocketJwtInterceptor.tokenFrom("token=abc")).isEqualTo("abc");
+        assertThat(WebSocketJwtInterceptor.tokenFrom("t=1&token=abc&x=2")).isEqualTo("abc");
+        assertThat(WebSocketJwtInterceptor.tokenFrom("mytoken=abc")).isNull();
+        assertThat(WebSocketJwtInterceptor.tokenFrom("")).isNull();
+    }
+
+    // Stand-in for a reconnect-storm benchmark (no JMH in this build): a whole fleet handshakes
+    // at once from THREADS threads, then every client reconnects after a network blip.
+    // Neither wave may reach the user store; the log line gives handshakes/s for each wave.
+    @Test
+    @Tag("benchmark")
+    void reconnectStormNeverTouchesTheUserStore() throws Exception {
+        WebSocketJwtInterceptor interceptor = interceptor(10, 10);
+        String[] queries = new String[FLEET];
+        for (int i = 0; i < FLEET; i++) {
+            queries[i] = "token=" + token((long) i, "driver" + i + "@test.com");
+        }
+
+        long firstWave = storm(interceptor, queries);
+        long reconnect = storm(interceptor, queries);
+
+        log.info("Handshake storm, {} clients on {} threads: {} handshakes/s cold, {} handshakes/s reconnect",
+                FLEET, THREADS, firstWave, reconnect);
+        verifyNoInteractions(userCacheService);
+        assertThat(meterRegistry.get("security.auth").tag("channel", "websocket").tag("outcome", "success")
+                .counter().count()).isEqualTo(2.0 * FLEET);
+    }
+
+    private long storm(WebSocketJwtInterceptor interceptor, String[] queries) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            long start = System.nanoTime();
+            List<Future<Boolean>> results = new ArrayList<>(FLEET);
+            for (int i = 0; i < FLEET; i++) {
+                String ip = "10.0." + (i / 250) + "." + (i % 250);
+                String query = queries[i];
+                results.add(pool.submit(() -> handshake(interceptor, ip, query, new HashMap<>()).accepted()));
+            }
+            for (Future<Boolean> result : results) {
+                assertThat(result.get(30, TimeUnit.SECONDS)).isTrue();
+            }
+            long elapsed = Math.max(1, System.nanoTime() - start);
+            return FLEET * TimeUnit.SECONDS.toNanos(1) / elapsed;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private record Handshake(boolean accepted, int status) {
+    }
+
+    private Handshake handshake(WebSocketJwtInterceptor interceptor, String ip, String query, Map<String, Object> attributes) {
+        MockHttpServletRequest servletRequest = new MockHttpServletRequest("GET", "/ws/123/abc/websocket");
+        servletRequest.setRemoteAddr(ip);
+        servletRequest.setRemoteHost(ip);
+        servletRequest.setQueryString(query);
+        MockHttpServletResponse servletResponse = new MockHttpServletResponse();
+        ServletServerHttpResponse response = new ServletServerHttpResponse(servletResponse);
+
+        boolean accepted = interceptor.beforeHandshake(new ServletServerHttpRequest(servletRequest), response, null, attributes);
+        return new Handshake(accepted, servletResponse.getStatus());
+    }
+
+    private WebSocketJwtInterceptor interceptor(int ipBurst, int userBurst) {
+        HandshakeRateLimiter limiter = new HandshakeRateLimiter(meterRegistry, ipBurst, 0, userBurst, 0, 100_000);
+        SecurityEventLogger events = new SecurityEventLogger(meterRegistry, 100, 20, 100);
+        return new WebSocketJwtInterceptor(jwtUtils, userCacheService, events, limiter);
+    }
+
+    private String token(Long id, String email) {
+        return jwtUtils.generateToken(User.builder().id(id).email(email).role(Role.TRANSPORTER).build());
+    }
+}
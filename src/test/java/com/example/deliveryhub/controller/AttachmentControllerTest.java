@@ -0,0 +1,141 @@
+package com.example.deliveryhub.controller;
+
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.example.deliveryhub.enums.ImageVariant;
+import com.example.deliveryhub.service.AttachmentStore;
+import com.example.deliveryhub.service.ImageVariantService;
+
+class AttachmentControllerTest {
+
+    private static final String URL = ImageVariant.ATTACHMENT_URL_PREFIX;
+    private static final byte[] CONTENT = "0123456789".getBytes(StandardCharsets.US_ASCII);
+
+    @TempDir
+    Path dir;
+
+    private AttachmentStore attachmentStore;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        attachmentStore = new AttachmentStore(dir.toString(), 1024 * 1024);
+        mockMvc = MockMvcBuilders
+                .standaloneSetup(new AttachmentController(attachmentStore, mock(ImageVariantService.class)))
+                .build();
+    }
+
+    @Test
+    void servesImagesInlineWithCachingHeaders() throws Exception {
+        String key = store("photo.png");
+
+        mockMvc.perform(get(URL + key))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "image/png"))
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_DISPOSITION))
+                .andExpect(header().string("X-Content-Type-Options", "nosniff"))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + key + "\""))
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, CONTENT.length))
+                .andExpect(content().bytes(CONTENT));
+    }
+
+    @Test
+    void servesScriptableTypesAsDownloads() throws Exception {
+        for (String name : new String[] { "x.html", "x.svg", "x.xml", "x" }) {
+            String key = store(name);
+
+            mockMvc.perform(get(URL + key))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "application/octet-stream"))
+                    .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + key + "\""))
+                    .andExpect(header().string("X-Content-Type-Options", "nosniff"));
+        }
+    }
+
+    @Test
+    void answersMatchingEtagWithNotModified() throws Exception {
+        String key = store("photo.png");
+
+        mockMvc.perform(get(URL + key).header(HttpHeaders.IF_NONE_MATCH, "\"other\", \"" + key + "\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]));
+        mockMvc.perform(get(URL + key).header(HttpHeaders.IF_NONE_MATCH, "\"other\""))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void servesASingleRange() throws Exception {
+        String key = store("photo.png");
+
+        mockMvc.perform(get(URL + key).header(HttpHeaders.RANGE, "bytes=2-5"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 2-5/10"))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 4))
+                .andExpect(content().string("2345"));
+
+        mockMvc.perform(get(URL + key).header(HttpHeaders.RANGE, "bytes=-3"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 7-9/10"))
+                .andExpect(content().string("789"));
+    }
+
+    @Test
+    void ignoresTheRangeWhenIfRangeIsStale() throws Exception {
+        String key = store("photo.png");
+
+        mockMvc.perform(get(URL + key).header(HttpHeaders.RANGE, "bytes=2-5").header(HttpHeaders.IF_RANGE, "\"old\""))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_RANGE))
+                .andExpect(content().bytes(CONTENT));
+        mockMvc.perform(get(URL + key).header(HttpHeaders.RANGE, "bytes=2-5").header(HttpHeaders.IF_RANGE, "\"" + key + "\""))
+                .andExpect(status().isPartialContent())
+                .andExpect(content().string("2345"));
+    }
+
+    @Test
+    void rejectsAnUnsatisfiableRange() throws Exception {
+        String key = store("photo.png");
+
+        mockMvc.perform(get(URL + key).header(HttpHeaders.RANGE, "bytes=20-30"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */10"));
+    }
+
+    @Test
+    void servesTheWholeFileForMultipleOrUnparseableRanges() throws Exception {
+        String key = store("photo.png");
+
+        for (String range : new String[] { "bytes=0-1,4-5", "pages=1", "bytes=oops" }) {
+            mockMvc.perform(get(URL + key).header(HttpHeaders.RANGE, range))
+                    .andExpect(status().isOk())
+                    .andExpect(header().doesNotExist(HttpHeaders.CONTENT_RANGE))
+                    .andExpect(content().bytes(CONTENT));
+        }
+    }
+
+    @Test
+    void unknownKeyIsNotFound() throws Exception {
+        mockMvc.perform(get(URL + "0".repeat(64) + ".png"))
+                .andExpect(status().isNotFound());
+    }
+
+    private String store(String fileName) throws Exception {
+        return attachmentStore.store(new ByteArrayInputStream(CONTENT), fileName).getKey();
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.deliveryhub.controller;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.example.deliveryhub.auth.JwtUtils;
+import com.example.deliveryhub.auth.LoginAttemptLimiter;
+import com.example.deliveryhub.auth.SecurityEventLogger;
+import com.example.deliveryhub.exception.PasswordHashingBusyException;
+import com.example.deliveryhub.repository.UserRepository;
+import com.example.deliveryhub.service.DashboardCounterService;
+import com.example.deliveryhub.service.GoogleOAuthService;
+import com.example.deliveryhub.service.RefreshTokenService;
+
+class AuthControllerTest {
+
+    private static final String LOGIN = "{\"email\":\"someone@test.com\",\"password\":\"secret\"}";
+
+    private AuthenticationManager authManager;
+    private LoginAttemptLimiter loginAttemptLimiter;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        authManager = mock(AuthenticationManager.class);
+        loginAttemptLimiter = mock(LoginAttemptLimiter.class);
+        mockMvc = MockMvcBuilders.standaloneSetup(new AuthController(authManager, mock(JwtUtils.class),
+                mock(UserRepository.class), mock(RefreshTokenService.class), mock(GoogleOAuthService.class),
+                mock(DashboardCounterService.class), loginAttemptLimiter, mock(SecurityEventLogger.class)))
+                .build();
+    }
+
+    @Test
+    void busyHashingPoolIsServiceUnavailable() throws Exception {
+        when(authManager.authenticate(any())).thenThrow(new PasswordHashingBusyException("busy"));
+
+        login().andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+    }
+
+    @Test
+    void busyHashingPoolForUnknownEmailIsServiceUnavailable() throws Exception {
+        // DaoAuthenticationProvider wraps errors thrown while looking up (and dummy-hashing) an unknown user
+        when(authManager.authenticate(any())).thenThrow(
+                new InternalAuthenticationServiceException("busy", new PasswordHashingBusyException("busy")));
+
+        login().andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+        verify(loginAttemptLimiter, never()).recordFailure(anyString(), anyString());
+    }
+
+    @Test
+    void badCredentialsAreStillBadRequest() throws Exception {
+        when(authManager.authenticate(any())).thenThrow(new BadCredentialsException("Bad credentials"));
+
+        login().andExpect(status().isBadRequest());
+        verify(loginAttemptLimiter).recordFailure(anyString(), anyString());
+    }
+
+    private ResultActions login() throws Exception {
+        return mockMvc.perform(post("/api/auth/login").contentType(MediaType.APPLICATION_JSON).content(LOGIN));
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.deliveryhub.repository;
+
+import static com.example.deliveryhub.TestFixtures.customer;
+import static com.example.deliveryhub.TestFixtures.delivery;
+import static com.example.deliveryhub.TestFixtures.transporter;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+
+import com.example.deliveryhub.dto.ChatMessageDTO;
+import com.example.deliveryhub.enums.MessageType;
+import com.example.deliveryhub.model.ChatMessage;
+import com.example.deliveryhub.model.DeliveryRequest;
+import com.example.deliveryhub.model.User;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class ChatMessageRepositoryTest {
+
+    private static final int MESSAGES = 30;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ChatMessageRepository chatMessageRepository;
+
+    private Long deliveryId;
+    private final List<ChatMessage> messages = new ArrayList<>();
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        User customer = entityManager.persist(customer());
+        User transporter = entityManager.persist(transporter());
+        DeliveryRequest request = entityManager.persist(delivery(customer, transporter, "ASSIGNED"));
+        deliveryId = request.getId();
+
+        // Pairs of messages share a timestamp so the id tie-breaker is exercised
+        LocalDateTime start = LocalDateTime.now().minusHours(1);
+        for (int i = 0; i < MESSAGES; i++) {
+            ChatMessage message = new ChatMessage();
+            message.setDelivery(request);
+            message.setSender(i % 2 == 0 ? customer : transporter);
+            message.setReceiver(i % 2 == 0 ? transporter : customer);
+            message.setContent("message " + i);
+            message.setMessageType(MessageType.CHAT);
+            message.setTimestamp(start.plusSeconds(i / 2));
+            messages.add(entityManager.persist(message));
+        }
+
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void latestPageIsNewestFirstWithSenderInOneStatement() {
+        List<ChatMessageDTO> page = chatMessageRepository.findLatestPage(deliveryId, PageRequest.of(0, 10));
+
+        assertThat(page).extracting(ChatMessageDTO::getContent)
+                .startsWith("message 29", "message 28")
+                .hasSize(10);
+        assertThat(page).allSatisfy(dto -> assertThat(dto.getSenderName()).isNotNull());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void beforeAndAfterWindowsWalkTheWholeHistoryWithoutGapsOrRepeats() {
+        ChatMessage middle = messages.get(15);
+
+        List<ChatMessageDTO> before = chatMessageRepository.findPageBefore(
+                deliveryId, middle.getTimestamp(), middle.getId(), PageRequest.of(0, MESSAGES));
+        List<ChatMessageDTO> after = chatMessageRepository.findPageAfter(
+                deliveryId, middle.getTimestamp(), middle.getId(), PageRequest.of(0, MESSAGES));
+
+        assertThat(before).hasSize(15);
+        assertThat(before.get(0).getContent()).isEqualTo("message 14");
+        assertThat(after).hasSize(14);
+        assertThat(after.get(0).getContent()).isEqualTo("message 16");
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.deliveryhub.repository;
+
+import static com.example.deliveryhub.TestFixtures.customer;
+import static com.example.deliveryhub.TestFixtures.delivery;
+import static com.example.deliveryhub.TestFixtures.transporter;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataAccessException;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.deliveryhub.model.DeliveryRequest;
+import com.example.deliveryhub.model.User;
+
+// Runs without the test transaction so every thread commits on its own connection
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class DeliveryClaimConcurrencyTest {
+
+    private static final Logger log = LoggerFactory.getLogger(DeliveryClaimConcurrencyTest.class);
+    private static final int THREADS = 200;
+
+    @Autowired
+    private DeliveryRequestRepository deliveryRequestRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @AfterEach
+    void cleanUp() {
+        deliveryRequestRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void exactlyOneTransporterClaimsAPendingDelivery() throws Exception {
+        User customer = userRepository.save(customer());
+
+        List<User> transporters = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            transporters.add(transporter(i));
+        }
+        transporters = userRepository.saveAll(transporters);
+
+        Long deliveryId = deliveryRequestRepository.save(delivery(customer, null, "PENDING")).getId();
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger winners = new AtomicInteger();
+        AtomicInteger conflicts = new AtomicInteger();
+        List<Long> winnerIds = Collections.synchronizedList(new ArrayList<>());
+
+        for (User transporter : transporters) {
+            pool.submit(() -> {
+                start.await();
+                try {
+                    if (deliveryRequestRepository.claimPending(deliveryId, transporter, LocalDateTime.now()) == 1) {
+                        winners.incrementAndGet();
+                        winnerIds.add(transporter.getId());
+                    } else {
+                        conflicts.incrementAndGet();
+                    }
+                } catch (DataAccessException e) {
+                    // a lock/serialization failure is also a lost race
+                    conflicts.incrementAndGet();
+                }
+                return null;
+            });
+        }
+
+        long startNanos = System.nanoTime();
+        start.countDown();
+        pool.shutdown();
+        assertThat(pool.awaitTermination(60, TimeUnit.SECONDS)).isTrue();
+        long elapsedNanos = System.nanoTime() - startNanos;
+
+        log.info("{} concurrent claims in {} ms ({} claims/s): {} winner, {} conflicts",
+                THREADS,
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                String.format("%.0f", THREADS / (elapsedNanos / 1_000_000_000.0)),
+                winners.get(),
+                conflicts.get());
+
+        assertThat(winners.get()).isEqualTo(1);
+        assertThat(conflicts.get()).isEqualTo(THREADS - 1);
+
+        DeliveryRequest claimed = deliveryRequestRepository.findById(deliveryId).orElseThrow();
+        assertThat(claimed.getStatus()).isEqualTo("ASSIGNED");
+        assertThat(claimed.getTransporter().getId()).isEqualTo(winnerIds.get(0));
+        assertThat(claimed.getVersion()).isEqualTo(1L);
+    }
+}
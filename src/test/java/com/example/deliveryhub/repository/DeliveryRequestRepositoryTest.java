@@ -0,0 +1,146 @@
+package com.example.deliveryhub.repository;
+
+import static com.example.deliveryhub.TestFixtures.customer;
+import static com.example.deliveryhub.TestFixtures.delivery;
+import static com.example.deliveryhub.TestFixtures.transporter;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+
+import com.example.deliveryhub.dto.AdminDeliveryViewDTO;
+import com.example.deliveryhub.dto.DeliveryResponseDTO;
+import com.example.deliveryhub.model.DeliveryRequest;
+import com.example.deliveryhub.model.User;
+import com.example.deliveryhub.util.DeliveryMapper;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class DeliveryRequestRepositoryTest {
+
+    private static final int DELIVERIES = 25;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private DeliveryRequestRepository deliveryRequestRepository;
+
+    private User customer;
+    private User transporter;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        customer = entityManager.persist(customer());
+
+        // One transporter per delivery so a lazy/secondary load would show up as N extra selects
+        for (int i = 0; i < DELIVERIES; i++) {
+            transporter = entityManager.persist(transporter(i));
+            entityManager.persist(delivery(customer, transporter, "ASSIGNED"));
+        }
+
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void customerListLoadsUsersInOneStatement() {
+        List<DeliveryResponseDTO> dtos = deliveryRequestRepository
+                .findByCustomerAndStatusIn(customer, List.of("ASSIGNED")).stream()
+                .map(DeliveryMapper::toResponseDTO)
+                .toList();
+
+        assertThat(dtos).hasSize(DELIVERIES);
+        assertThat(dtos).allSatisfy(dto -> assertThat(dto.getTransporterName()).isNotNull());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void transporterListLoadsUsersInOneStatement() {
+        List<DeliveryResponseDTO> dtos = deliveryRequestRepository
+                .findByTransporterAndStatusIn(transporter, List.of("ASSIGNED")).stream()
+                .map(DeliveryMapper::toResponseDTO)
+                .toList();
+
+        assertThat(dtos).hasSize(1);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void adminListLoadsUsersInOneStatement() {
+        List<AdminDeliveryViewDTO> dtos = deliveryRequestRepository.findAllWithUsers().stream()
+                .map(DeliveryMapper::toAdminViewDTO)
+                .toList();
+
+        assertThat(dtos).hasSize(DELIVERIES);
+        assertThat(dtos).allSatisfy(dto -> assertThat(dto.getCustomerName()).isEqualTo("Customer"));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void feedPagesAcrossEqualRequestedAtWithoutSkipsOrRepeats() {
+        LocalDateTime sameInstant = LocalDateTime.of(2030, 1, 1, 9, 0);
+        List<Long> expected = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            expected.add(persistPending("Casablanca", sameInstant).getId());
+        }
+        persistPending("Tangier", sameInstant); // filtered out by pickup city
+        entityManager.flush();
+        entityManager.clear();
+
+        List<Long> seen = new ArrayList<>();
+        LocalDateTime afterRequestedAt = LocalDateTime.of(1970, 1, 1, 0, 0);
+        Long afterId = 0L;
+        List<DeliveryResponseDTO> page;
+        do {
+            page = deliveryRequestRepository.findAvailableFeedPage(afterRequestedAt, afterId,
+                    "casablanca", null, null, null, null, PageRequest.of(0, 2));
+            for (DeliveryResponseDTO dto : page) {
+                seen.add(dto.getId());
+                afterRequestedAt = dto.getRequestedAt();
+                afterId = dto.getId();
+            }
+        } while (!page.isEmpty());
+
+        assertThat(seen).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    void pendingRowWithoutRequestedAtIsBackfilledIntoTheFeed() {
+        DeliveryRequest legacy = persistPending("Casablanca", LocalDateTime.now());
+        entityManager.flush();
+        entityManager.getEntityManager()
+                .createNativeQuery("UPDATE delivery_request SET requested_at = NULL WHERE id = :id")
+                .setParameter("id", legacy.getId())
+                .executeUpdate();
+        entityManager.clear();
+
+        assertThat(deliveryRequestRepository.backfillPendingRequestedAt(LocalDateTime.now())).isEqualTo(1);
+
+        List<DeliveryResponseDTO> feed = deliveryRequestRepository.findAvailableFeedPage(
+                LocalDateTime.of(1970, 1, 1, 0, 0), 0L, null, null, null, null, null, PageRequest.of(0, 10));
+        assertThat(feed).extracting(DeliveryResponseDTO::getId).containsExactly(legacy.getId());
+        assertThat(feed.get(0).getRequestedAt()).isNotNull();
+    }
+
+    private DeliveryRequest persistPending(String pickupCity, LocalDateTime requestedAt) {
+        DeliveryRequest pending = delivery(customer, null, "PENDING");
+        pending.setPickupCity(pickupCity);
+        pending.setRequestedAt(requestedAt);
+        return entityManager.persist(pending);
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.deliveryhub.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import com.example.deliveryhub.dto.RouteMatchDTO;
+import com.example.deliveryhub.model.Role;
+import com.example.deliveryhub.model.TransporterRoute;
+import com.example.deliveryhub.model.User;
+import com.example.deliveryhub.service.RouteIndex;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DataJpaTest
+class TransporterRouteRepositoryTest {
+
+    private static final Logger log = LoggerFactory.getLogger(TransporterRouteRepositoryTest.class);
+    private static final int ROUTES = 5_000;
+    private static final int CITIES = 40;
+    private static final LocalDate BASE = LocalDate.now().plusDays(1);
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private TransporterRouteRepository routeRepository;
+
+    @BeforeEach
+    void setUp() {
+        User transporter = entityManager.persist(User.builder()
+                .fullName("Transporter").email("transporter@test.com")
+                .role(Role.TRANSPORTER).verified(true).build());
+
+        Random random = new Random(3);
+        for (int i = 0; i < ROUTES; i++) {
+            int start = random.nextInt(60);
+            entityManager.persist(TransporterRoute.builder()
+                    .transporter(transporter)
+                    .pickupCity(city(random.nextInt(CITIES)))
+                    .dropoffCity(city(random.nextInt(CITIES)))
+                    .travelDate(BASE.plusDays(start + 14))
+                    .pickupStartDate(BASE.plusDays(start))
+                    .pickupEndDate(BASE.plusDays(start + random.nextInt(10)))
+                    .active(i % 10 != 0)
+                    .build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void seedQueryReturnsActiveRoutesWithTheirTransporter() {
+        List<RouteMatchDTO> matches = routeRepository.findActiveRouteMatches(LocalDate.now());
+
+        assertThat(matches).hasSize(ROUTES - ROUTES / 10);
+        assertThat(matches).allSatisfy(m -> assertThat(m.getTransporterName()).isEqualTo("Transporter"));
+    }
+
+    // The same lookups through findAvailableRoutes on H2 and through RouteIndex. City names all
+    // have the same length, so the SQL substring match and the index's exact match select the same rows.
+    @Test
+    void indexAgreesWithTheSqlLookup() {
+        RouteIndex index = new RouteIndex(routeRepository, new SimpleMeterRegistry(), ROUTES);
+        index.reload();
+
+        Random random = new Random(5);
+        for (int i = 0; i < 300; i++) {
+            String from = city(random.nextInt(CITIES));
+            String to = city(random.nextInt(CITIES));
+            LocalDate date = BASE.plusDays(random.nextInt(70));
+
+            List<Long> sql = routeRepository.findAvailableRoutes(from, to, date).stream()
+                    .map(TransporterRoute::getId).toList();
+            List<Long> indexed = index.find(from, to, date, ROUTES).stream()
+                    .map(RouteMatchDTO::getRouteId).toList();
+
+            assertThat(indexed).containsExactlyInAnyOrderElementsOf(sql);
+            entityManager.clear();
+        }
+    }
+
+    // Stand-in for a JMH comparison (not in this build): logs ns/op for both lookups
+    @Test
+    @Tag("benchmark")
+    void logsSqlAndIndexLookupCost() {
+        RouteIndex index = new RouteIndex(routeRepository, new SimpleMeterRegistry(), ROUTES);
+        index.reload();
+
+        Random random = new Random(5);
+        int lookups = 300;
+        long sqlNanos = 0;
+        long indexNanos = 0;
+        for (int i = 0; i < lookups; i++) {
+            String from = city(random.nextInt(CITIES));
+            String to = city(random.nextInt(CITIES));
+            LocalDate date = BASE.plusDays(random.nextInt(70));
+
+            long start = System.nanoTime();
+            List<Long> sql = routeRepository.findAvailableRoutes(from, to, date).stream()
+                    .map(TransporterRoute::getId).toList();
+            sqlNanos += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            List<Long> indexed = index.find(from, to, date, ROUTES).stream()
+                    .map(RouteMatchDTO::getRouteId).toList();
+            indexNanos += System.nanoTime() - start;
+
+            assertThat(indexed).containsExactlyInAnyOrderElementsOf(sql);
+            entityManager.clear();
+        }
+
+        log.info("Route lookup over {} routes: SQL {} ns/op, RouteIndex {} ns/op",
+                ROUTES, sqlNanos / lookups, indexNanos / lookups);
+    }
+
+    private static String city(int n) {
+        return String.format("City-%03d", n);
+    }
+}
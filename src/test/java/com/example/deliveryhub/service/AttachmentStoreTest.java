@@ -0,0 +1,95 @@
+package com.example.deliveryhub.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.deliveryhub.dto.AttachmentDTO;
+import com.example.deliveryhub.enums.ImageVariant;
+import com.example.deliveryhub.exception.AttachmentTooLargeException;
+
+class AttachmentStoreTest {
+
+    @TempDir
+    Path dir;
+
+    private AttachmentStore attachmentStore;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        attachmentStore = new AttachmentStore(dir.toString(), 1024 * 1024);
+    }
+
+    @Test
+    void storesUnderContentHash() throws Exception {
+        byte[] content = "delivery photo".getBytes(StandardCharsets.UTF_8);
+        String sha256 = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+
+        AttachmentDTO stored = attachmentStore.store(new ByteArrayInputStream(content), "Photo.JPG");
+
+        assertThat(stored.getSha256()).isEqualTo(sha256);
+        assertThat(stored.getKey()).isEqualTo(sha256 + ".jpg");
+        assertThat(stored.getUrl()).isEqualTo(ImageVariant.ATTACHMENT_URL_PREFIX + sha256 + ".jpg");
+        assertThat(stored.getSize()).isEqualTo(content.length);
+        assertThat(stored.getContentType()).isEqualTo("image/jpeg");
+        assertThat(Files.readAllBytes(attachmentStore.find(stored.getKey()).orElseThrow())).isEqualTo(content);
+    }
+
+    @Test
+    void duplicateUploadKeepsOneObject() throws Exception {
+        byte[] content = new byte[200_000];
+        AttachmentDTO first = attachmentStore.store(new ByteArrayInputStream(content), "a.pdf");
+        AttachmentDTO second = attachmentStore.store(new ByteArrayInputStream(content), "b.pdf");
+
+        assertThat(second.getKey()).isEqualTo(first.getKey());
+        assertThat(regularFiles()).isEqualTo(1);
+    }
+
+    @Test
+    void rejectsOversizedUploadWithoutLeavingFiles() {
+        // Larger than the cap and never materialized as one array
+        InputStream endless = new InputStream() {
+            @Override
+            public int read() {
+                return 0;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                return len;
+            }
+        };
+
+        assertThatThrownBy(() -> attachmentStore.store(endless, "big.bin"))
+                .isInstanceOf(AttachmentTooLargeException.class);
+        assertThat(regularFiles()).isZero();
+    }
+
+    @Test
+    void malformedKeysNeverResolve() {
+        assertThat(attachmentStore.find("../../etc/passwd")).isEmpty();
+        assertThat(attachmentStore.find("ab")).isEmpty();
+        assertThat(attachmentStore.find("0".repeat(64))).isEmpty();
+    }
+
+    private long regularFiles() {
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files.filter(Files::isRegularFile).count();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.deliveryhub.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+// The block query uses PostgreSQL-only functions (nextval, pg_get_serial_sequence, generate_series)
+// that H2 doesn't have, so this runs against a real server when DELIVERYHUB_TEST_PG_URL is set,
+// e.g. jdbc:postgresql://localhost:5432/postgres?user=postgres&password=postgres.
+// It works on a temporary chat_message table, which shadows any real one for this connection.
+@EnabledIfEnvironmentVariable(named = "DELIVERYHUB_TEST_PG_URL", matches = ".+")
+class ChatMessageIdAllocatorTest {
+
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new SingleConnectionDataSource(System.getenv("DELIVERYHUB_TEST_PG_URL"), true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TEMPORARY TABLE chat_message (id BIGSERIAL PRIMARY KEY, content TEXT)");
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS pg_temp.chat_message");
+        dataSource.destroy();
+    }
+
+    @Test
+    void allocatesDistinctIdsInBlocksFromTheIdentitySequence() {
+        ChatMessageIdAllocator allocator = new ChatMessageIdAllocator(jdbcTemplate, 5);
+
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            ids.add(allocator.next());
+        }
+
+        assertThat(new HashSet<>(ids)).hasSize(12);
+        assertThat(ids).isSorted();
+        // three blocks of five taken from the sequence
+        assertThat(jdbcTemplate.queryForObject("SELECT last_value FROM chat_message_id_seq", Long.class))
+                .isEqualTo(ids.get(0) + 14);
+    }
+
+    @Test
+    void rowsInsertedWithoutAnIdNeverReuseAllocatedOnes() {
+        ChatMessageIdAllocator allocator = new ChatMessageIdAllocator(jdbcTemplate, 3);
+        long allocated = allocator.next();
+
+        Long inserted = jdbcTemplate.queryForObject(
+                "INSERT INTO chat_message (content) VALUES ('via JPA') RETURNING id", Long.class);
+
+        assertThat(inserted).isGreaterThan(allocated + 2);
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.deliveryhub.service;
+
+import static com.example.deliveryhub.TestFixtures.customer;
+import static com.example.deliveryhub.TestFixtures.delivery;
+import static com.example.deliveryhub.TestFixtures.transporter;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.deliveryhub.enums.ChatPersistenceMode;
+import com.example.deliveryhub.enums.MessageType;
+import com.example.deliveryhub.model.ChatMessage;
+import com.example.deliveryhub.model.DeliveryRequest;
+import com.example.deliveryhub.model.User;
+import com.example.deliveryhub.repository.ChatMessageRepository;
+import com.example.deliveryhub.repository.DeliveryRequestRepository;
+import com.example.deliveryhub.repository.UserRepository;
+
+// Messages/sec through ChatMessageWriter with one save per message vs. write-behind batches.
+// Runs without the test transaction so the writer thread sees committed users/deliveries.
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ChatMessageWriterLoadTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ChatMessageWriterLoadTest.class);
+    private static final int MESSAGES = 2000;
+    private static final int SENDERS = 8;
+
+    @Autowired
+    private ChatMessageRepository chatMessageRepository;
+
+    @Autowired
+    private DeliveryRequestRepository deliveryRequestRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private User customer;
+    private User transporter;
+    private DeliveryRequest delivery;
+
+    @BeforeEach
+    void setUp() {
+        customer = userRepository.save(customer());
+        transporter = userRepository.save(transporter());
+        delivery = deliveryRequestRepository.save(delivery(customer, transporter, "ASSIGNED"));
+    }
+
+    @AfterEach
+    void cleanUp() {
+        chatMessageRepository.deleteAll();
+        deliveryRequestRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void syncSavesEveryMessage() throws Exception {
+        ChatMessageWriter writer = writer(ChatPersistenceMode.SYNC);
+
+        double perSecond = send(writer);
+
+        log.info("SYNC: {} messages/s", String.format("%.0f", perSecond));
+        assertThat(chatMessageRepository.count()).isEqualTo(MESSAGES);
+    }
+
+    @Test
+    void writeBehindPersistsEveryMessageByShutdown() throws Exception {
+        ChatMessageWriter writer = writer(ChatPersistenceMode.WRITE_BEHIND);
+        writer.start();
+
+        double perSecond = send(writer);
+        long flushStart = System.nanoTime();
+        writer.stop();
+        long flushMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - flushStart);
+
+        log.info("WRITE_BEHIND: {} messages/s accepted, remaining queue flushed in {} ms",
+                String.format("%.0f", perSecond), flushMillis);
+        assertThat(chatMessageRepository.count()).isEqualTo(MESSAGES);
+    }
+
+    private ChatMessageWriter writer(ChatPersistenceMode mode) {
+        // Ids far above anything the identity column handed out in this run
+        AtomicLong ids = new AtomicLong(1_000_000);
+        ChatMessageIdAllocator allocator = new ChatMessageIdAllocator(null, 1) {
+            @Override
+            public synchronized long next() {
+                return ids.incrementAndGet();
+            }
+        };
+        return new ChatMessageWriter(chatMessageRepository, allocator, new JdbcTemplate(dataSource),
+                mode, 10_000, 200, 5, 500, 30_000);
+    }
+
+    private double send(ChatMessageWriter writer) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(SENDERS);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int i = 0; i < MESSAGES; i++) {
+            int n = i;
+            pool.submit(() -> {
+                start.await();
+                writer.persist(message(n));
+                return null;
+            });
+        }
+
+        long startNanos = System.nanoTime();
+        start.countDown();
+        pool.shutdown();
+        assertThat(pool.awaitTermination(120, TimeUnit.SECONDS)).isTrue();
+        return MESSAGES / ((System.nanoTime() - startNanos) / 1_000_000_000.0);
+    }
+
+    private ChatMessage message(int n) {
+        ChatMessage message = new ChatMessage();
+        message.setDelivery(delivery);
+        message.setSender(n % 2 == 0 ? customer : transporter);
+        message.setReceiver(n % 2 == 0 ? transporter : customer);
+        message.setContent("message " + n);
+        message.setMessageType(MessageType.CHAT);
+        message.setTimestamp(LocalDateTime.now());
+        message.setIsRead(false);
+        message.setIsDelivered(true);
+        return message;
+    }
+}
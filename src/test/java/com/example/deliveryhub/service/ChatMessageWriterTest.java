@@ -0,0 +1,209 @@
+package com.example.deliveryhub.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+
+import com.example.deliveryhub.enums.ChatPersistenceMode;
+import com.example.deliveryhub.model.ChatMessage;
+import com.example.deliveryhub.model.DeliveryRequest;
+import com.example.deliveryhub.model.User;
+
+class ChatMessageWriterTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private final AtomicLong ids = new AtomicLong();
+    private FlakyJdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new FlakyJdbcTemplate();
+    }
+
+    @Test
+    void keepsRowsThroughAnOutageAndWritesThemWhenTheDatabaseIsBack() {
+        ChatMessageWriter writer = writer(10);
+        jdbcTemplate.down.set(true);
+        for (int i = 0; i < 3; i++) {
+            writer.persist(message());
+        }
+
+        writer.flushPending();
+        assertThat(writer.retryingCount()).isEqualTo(3);
+        assertThat(jdbcTemplate.rows).isEmpty();
+
+        // still down at the first retry: backs off further
+        now.addAndGet(100);
+        writer.writeDue();
+        assertThat(writer.retryingCount()).isEqualTo(3);
+
+        jdbcTemplate.down.set(false);
+        now.addAndGet(150);
+        writer.writeDue();
+        assertThat(writer.retryingCount()).isEqualTo(3); // 200 ms backoff after the second failure
+
+        now.addAndGet(100);
+        writer.writeDue();
+        assertThat(writer.retryingCount()).isZero();
+        assertThat(jdbcTemplate.rows).containsExactlyInAnyOrder(1L, 2L, 3L);
+    }
+
+    @Test
+    void stopsDrainingTheQueueWhileTheRetryBufferIsFull() {
+        ChatMessageWriter writer = writer(2);
+        jdbcTemplate.down.set(true);
+        writer.persist(message());
+        writer.persist(message());
+        writer.flushPending();
+        assertThat(writer.retryingCount()).isEqualTo(2);
+
+        writer.persist(message());
+        writer.persist(message());
+        writer.writeDue();
+        assertThat(writer.retryingCount()).isEqualTo(2);
+
+        // queue full too: the sender writes its own message and sees the failure
+        assertThatThrownBy(() -> writer.persist(message()))
+                .isInstanceOf(DataAccessResourceFailureException.class);
+    }
+
+    @Test
+    void readerFlushesStopAtTheRetryLimitToo() {
+        ChatMessageWriter writer = writer(2);
+        jdbcTemplate.down.set(true);
+        writer.persist(message());
+        writer.persist(message());
+        writer.flushPending();
+
+        writer.persist(message());
+        writer.persist(message());
+        now.addAndGet(100);
+        writer.flushPending(); // e.g. a history read during the outage
+        assertThat(writer.retryingCount()).isEqualTo(2);
+
+        assertThatThrownBy(() -> writer.persist(message()))
+                .isInstanceOf(DataAccessResourceFailureException.class);
+    }
+
+    @Test
+    void flushWithNothingQueuedOrDueSkipsTheDatabase() {
+        ChatMessageWriter writer = writer(10);
+        writer.flushPending();
+        assertThat(jdbcTemplate.calls).hasValue(0);
+
+        jdbcTemplate.down.set(true);
+        writer.persist(message());
+        writer.flushPending();
+        int afterFailure = jdbcTemplate.calls.get();
+        assertThat(afterFailure).isPositive();
+
+        // the row is backing off, nothing is queued: reads don't retry it
+        writer.flushPending();
+        assertThat(jdbcTemplate.calls).hasValue(afterFailure);
+
+        now.addAndGet(100);
+        jdbcTemplate.down.set(false);
+        writer.flushPending();
+        assertThat(writer.retryingCount()).isZero();
+        assertThat(jdbcTemplate.rows).containsExactly(1L);
+    }
+
+    @Test
+    void countsAnAlreadyInsertedRowAsWritten() {
+        ChatMessageWriter writer = writer(10);
+        jdbcTemplate.rows.add(1L); // e.g. part of a batch that committed before the connection dropped
+
+        writer.persist(message());
+        writer.persist(message());
+        writer.flushPending();
+
+        assertThat(writer.retryingCount()).isZero();
+        assertThat(jdbcTemplate.rows).containsExactlyInAnyOrder(1L, 2L);
+    }
+
+    private ChatMessageWriter writer(int queueCapacity) {
+        ChatMessageIdAllocator allocator = new ChatMessageIdAllocator(null, 1) {
+            @Override
+            public synchronized long next() {
+                return ids.incrementAndGet();
+            }
+        };
+        return new ChatMessageWriter(null, allocator, jdbcTemplate, ChatPersistenceMode.WRITE_BEHIND,
+                queueCapacity, 10, 5, 100, 1_000, now::get);
+    }
+
+    private static ChatMessage message() {
+        DeliveryRequest delivery = new DeliveryRequest();
+        delivery.setId(1L);
+        ChatMessage message = new ChatMessage();
+        message.setDelivery(delivery);
+        message.setSender(User.builder().id(2L).build());
+        message.setContent("hello");
+        return message;
+    }
+
+    // Records inserted ids instead of running SQL; fails every insert while `down`
+    private static class FlakyJdbcTemplate extends JdbcTemplate {
+
+        final AtomicBoolean down = new AtomicBoolean();
+        final Set<Long> rows = ConcurrentHashMap.newKeySet();
+        final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public <T> int[][] batchUpdate(String sql, Collection<T> batchArgs, int batchSize,
+                                       ParameterizedPreparedStatementSetter<T> pss) {
+            // row by row, so a failure part-way leaves the earlier rows in, like a non-transactional batch
+            for (T arg : batchArgs) {
+                insert(((ChatMessage) arg).getId());
+            }
+            int[] counts = new int[batchArgs.size()];
+            Arrays.fill(counts, 1);
+            return new int[][] { counts };
+        }
+
+        @Override
+        public int update(String sql, PreparedStatementSetter pss) {
+            PreparedStatement ps = mock(PreparedStatement.class);
+            ArgumentCaptor<Long> id = ArgumentCaptor.forClass(Long.class);
+            try {
+                pss.setValues(ps);
+                verify(ps).setLong(eq(1), id.capture());
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+            insert(id.getValue());
+            return 1;
+        }
+
+        private void insert(Long id) {
+            calls.incrementAndGet();
+            if (down.get()) {
+                throw new DataAccessResourceFailureException("connection refused");
+            }
+            if (!rows.add(id)) {
+                throw new DuplicateKeyException("duplicate id " + id);
+            }
+        }
+    }
+}
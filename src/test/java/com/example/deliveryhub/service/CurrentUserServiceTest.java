@@ -0,0 +1,92 @@
+package com.example.deliveryhub.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.simp.SimpAttributes;
+import org.springframework.messaging.simp.SimpAttributesContextHolder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import com.example.deliveryhub.model.Role;
+import com.example.deliveryhub.model.User;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class CurrentUserServiceTest {
+
+    private UserCacheService userCacheService;
+    private SimpleMeterRegistry meterRegistry;
+    private CurrentUserService currentUserService;
+
+    @BeforeEach
+    void setUp() {
+        userCacheService = mock(UserCacheService.class);
+        when(userCacheService.findByEmail("customer@test.com")).thenAnswer(inv -> Optional.of(
+                User.builder().id(1L).email("customer@test.com").role(Role.CUSTOMER).build()));
+        meterRegistry = new SimpleMeterRegistry();
+        currentUserService = new CurrentUserService(userCacheService, meterRegistry, 60_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+        SimpAttributesContextHolder.resetAttributes();
+    }
+
+    @Test
+    void loadsOncePerRequest() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+
+        User first = currentUserService.getByEmail("customer@test.com");
+        User second = currentUserService.getByEmail("customer@test.com");
+        currentUserService.getByEmail("customer@test.com");
+
+        assertThat(second).isSameAs(first);
+        verify(userCacheService, times(1)).findByEmail("customer@test.com");
+        assertThat(count("request", "reused")).isEqualTo(2);
+
+        // a new request starts empty
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        currentUserService.getByEmail("customer@test.com");
+        verify(userCacheService, times(2)).findByEmail("customer@test.com");
+    }
+
+    @Test
+    void loadsOncePerStompSessionAndHandsOutCopies() {
+        SimpAttributes session = new SimpAttributes("session-1", new ConcurrentHashMap<>());
+        SimpAttributesContextHolder.setAttributes(session);
+
+        User first = currentUserService.getByEmail("customer@test.com");
+        SimpAttributesContextHolder.setAttributes(session); // next message, same session
+        User second = currentUserService.getByEmail("customer@test.com");
+
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.getId()).isEqualTo(1L);
+        verify(userCacheService, times(1)).findByEmail("customer@test.com");
+        assertThat(count("stomp", "reused")).isEqualTo(1);
+    }
+
+    @Test
+    void outsideAnyScopeGoesToTheCache() {
+        currentUserService.getByEmail("customer@test.com");
+        currentUserService.getByEmail("customer@test.com");
+
+        verify(userCacheService, times(2)).findByEmail("customer@test.com");
+        assertThat(currentUserService.findByEmail("nobody@test.com")).isEmpty();
+    }
+
+    private double count(String scope, String result) {
+        return meterRegistry.get("users.current.lookups").tag("scope", scope).tag("result", result).counter().count();
+    }
+}
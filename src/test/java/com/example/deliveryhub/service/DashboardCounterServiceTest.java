@@ -0,0 +1,109 @@
+package com.example.deliveryhub.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.deliveryhub.dto.AdminDashboardDTO;
+import com.example.deliveryhub.dto.DeliveryStatusPercentageDTO;
+import com.example.deliveryhub.model.Role;
+import com.example.deliveryhub.repository.DeliveryRequestRepository;
+import com.example.deliveryhub.repository.UserRepository;
+
+class DashboardCounterServiceTest {
+
+    private DeliveryRequestRepository deliveryRequestRepository;
+    private UserRepository userRepository;
+    private DashboardCounterService counters;
+
+    @BeforeEach
+    void setUp() {
+        deliveryRequestRepository = mock(DeliveryRequestRepository.class);
+        userRepository = mock(UserRepository.class);
+        when(deliveryRequestRepository.countDeliveriesByStatus()).thenReturn(List.of(
+                new DeliveryStatusPercentageDTO("PENDING", 4L),
+                new DeliveryStatusPercentageDTO("ASSIGNED", 2L),
+                new DeliveryStatusPercentageDTO("DELIVERED", 3L)));
+        when(userRepository.countGroupedByRole()).thenReturn(List.of(
+                new Object[] {Role.CUSTOMER, 10L},
+                new Object[] {Role.TRANSPORTER, 5L}));
+        counters = new DashboardCounterService(deliveryRequestRepository, userRepository);
+        counters.seed();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void seedsFromGroupedQueries() {
+        assertThat(counters.snapshot()).isEqualTo(new AdminDashboardDTO(9, 10, 5, 4, 2, 0, 3));
+    }
+
+    @Test
+    void committedChangesMoveTheCounters() {
+        TransactionSynchronizationManager.initSynchronization();
+        counters.deliveryCreated("PENDING");
+        counters.statusChanged("PENDING", "ASSIGNED");
+        counters.userCreated(Role.TRANSPORTER);
+
+        // Nothing moves until the transaction commits
+        assertThat(counters.snapshot()).isEqualTo(new AdminDashboardDTO(9, 10, 5, 4, 2, 0, 3));
+
+        commit();
+        assertThat(counters.snapshot()).isEqualTo(new AdminDashboardDTO(10, 10, 6, 4, 3, 0, 3));
+    }
+
+    @Test
+    void rolledBackChangesLeaveTheCountersUnchanged() {
+        TransactionSynchronizationManager.initSynchronization();
+        counters.deliveryCreated("PENDING");
+        counters.statusChanged("ASSIGNED", "DELIVERED");
+        counters.userCreated(Role.CUSTOMER);
+
+        rollback();
+        assertThat(counters.snapshot()).isEqualTo(new AdminDashboardDTO(9, 10, 5, 4, 2, 0, 3));
+    }
+
+    @Test
+    void sameStatusIsNotAChange() {
+        counters.statusChanged("ASSIGNED", "ASSIGNED");
+
+        assertThat(counters.snapshot().getAssignedDeliveries()).isEqualTo(2);
+    }
+
+    @Test
+    void reconcileRepairsDriftAndZeroesStatusesThatDisappeared() {
+        counters.statusChanged("PENDING", "PICKED_UP"); // outside a transaction: applied at once
+        when(deliveryRequestRepository.countDeliveriesByStatus()).thenReturn(List.of(
+                new DeliveryStatusPercentageDTO("ASSIGNED", 1L),
+                new DeliveryStatusPercentageDTO("DELIVERED", 7L)));
+        when(userRepository.countGroupedByRole()).thenReturn(List.<Object[]>of(
+                new Object[] {Role.CUSTOMER, 12L}));
+
+        counters.reconcile();
+
+        assertThat(counters.snapshot()).isEqualTo(new AdminDashboardDTO(8, 12, 0, 0, 1, 0, 7));
+    }
+
+    private static void commit() {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+    }
+
+    private static void rollback() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.deliveryhub.service;
+
+import static com.example.deliveryhub.TestFixtures.customer;
+import static com.example.deliveryhub.TestFixtures.delivery;
+import static com.example.deliveryhub.TestFixtures.transporter;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import com.example.deliveryhub.dto.DeliveryApplicationDTO;
+import com.example.deliveryhub.model.DeliveryApplication;
+import com.example.deliveryhub.model.DeliveryRequest;
+import com.example.deliveryhub.model.Rating;
+import com.example.deliveryhub.model.Role;
+import com.example.deliveryhub.model.User;
+import com.example.deliveryhub.repository.DeliveryApplicationRepository;
+
+// Statement count for an application list must not grow with its size:
+// one select for the applications plus one grouped query each for ratings and completed deliveries.
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import(DeliveryApplicationEnricher.class)
+class DeliveryApplicationEnricherTest {
+
+    private static final Logger log = LoggerFactory.getLogger(DeliveryApplicationEnricherTest.class);
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private DeliveryApplicationRepository deliveryApplicationRepository;
+
+    @Autowired
+    private DeliveryApplicationEnricher enricher;
+
+    @ParameterizedTest
+    @ValueSource(ints = {10, 100, 1000})
+    void applicationListUsesConstantNumberOfStatements(int applications) {
+        User customer = entityManager.persist(customer());
+        DeliveryRequest open = entityManager.persist(delivery(customer, null, "PENDING"));
+
+        for (int i = 0; i < applications; i++) {
+            User transporter = entityManager.persist(transporter(i));
+
+            DeliveryRequest done = entityManager.persist(delivery(customer, transporter, "DELIVERED"));
+            entityManager.persist(Rating.builder()
+                    .delivery(done).reviewer(customer).reviewee(transporter)
+                    .revieweeRole(Role.TRANSPORTER).rating(1 + i % 5)
+                    .timestamp(LocalDateTime.now()).build());
+
+            DeliveryApplication application = new DeliveryApplication();
+            application.setDeliveryRequest(open);
+            application.setTransporter(transporter);
+            application.setQuotedPrice(50.0);
+            entityManager.persist(application);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        long startNanos = System.nanoTime();
+        List<DeliveryApplicationDTO> dtos = enricher.toDTOs(deliveryApplicationRepository.findByDeliveryRequest(open));
+        long elapsedNanos = System.nanoTime() - startNanos;
+
+        log.info("{} applications enriched in {} ms with {} statements",
+                applications, TimeUnit.NANOSECONDS.toMillis(elapsedNanos), statistics.getPrepareStatementCount());
+
+        assertThat(dtos).hasSize(applications);
+        assertThat(dtos).allSatisfy(dto -> {
+            assertThat(dto.getCompletedDeliveries()).isEqualTo(1);
+            assertThat(dto.getTotalRatings()).isEqualTo(1);
+            assertThat(dto.getTransporterRating()).isBetween(1.0, 5.0);
+        });
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+    }
+}
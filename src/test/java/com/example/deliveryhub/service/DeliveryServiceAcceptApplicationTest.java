@@ -0,0 +1,127 @@
+package com.example.deliveryhub.service;
+
+import static com.example.deliveryhub.TestFixtures.customer;
+import static com.example.deliveryhub.TestFixtures.delivery;
+import static com.example.deliveryhub.TestFixtures.transporter;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.context.transaction.TestTransaction;
+
+import com.example.deliveryhub.enums.ApplicationStatus;
+import com.example.deliveryhub.model.DeliveryApplication;
+import com.example.deliveryhub.model.DeliveryRequest;
+import com.example.deliveryhub.model.User;
+import com.example.deliveryhub.repository.DeliveryApplicationRepository;
+import com.example.deliveryhub.repository.DeliveryRequestRepository;
+import com.example.deliveryhub.repository.TransporterPricingRepository;
+import com.example.deliveryhub.repository.UserRepository;
+import com.example.deliveryhub.util.SecurityUtils;
+
+// Accepting one application claims the delivery, rejects every other pending application in
+// one UPDATE, and tells the rejected transporters only once that has committed.
+@DataJpaTest
+class DeliveryServiceAcceptApplicationTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private DeliveryRequestRepository deliveryRequestRepository;
+
+    @Autowired
+    private DeliveryApplicationRepository deliveryApplicationRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private SimpMessagingTemplate messagingTemplate;
+    private DeliveryService deliveryService;
+    private DeliveryRequest open;
+    private DeliveryApplication chosen;
+
+    @BeforeEach
+    void setUp() {
+        User customer = entityManager.persist(customer());
+        open = entityManager.persist(delivery(customer, null, "PENDING"));
+        chosen = apply(entityManager.persist(transporter(0)));
+        apply(entityManager.persist(transporter(1)));
+        apply(entityManager.persist(transporter(2)));
+        entityManager.flush();
+        entityManager.clear();
+
+        SecurityUtils securityUtils = mock(SecurityUtils.class);
+        when(securityUtils.getCurrentUser()).thenReturn(customer);
+        messagingTemplate = mock(SimpMessagingTemplate.class);
+        deliveryService = new DeliveryService(deliveryRequestRepository, deliveryApplicationRepository,
+                mock(TransporterPricingRepository.class), userRepository, mock(CurrentUserService.class),
+                securityUtils, mock(TransporterStatsService.class), mock(DashboardCounterService.class),
+                messagingTemplate, mock(DeliveryApplicationEnricher.class));
+    }
+
+    @Test
+    void acceptRejectsTheOthersAndNotifiesThemAfterCommit() {
+        try {
+            deliveryService.acceptApplication(chosen.getId());
+
+            assertThat(statuses()).containsExactlyInAnyOrderEntriesOf(Map.of(
+                    "transporter0@test.com", ApplicationStatus.ACCEPTED,
+                    "transporter1@test.com", ApplicationStatus.REJECTED,
+                    "transporter2@test.com", ApplicationStatus.REJECTED));
+            assertThat(deliveryRequestRepository.findById(open.getId()).orElseThrow().getStatus()).isEqualTo("ASSIGNED");
+            verifyNoInteractions(messagingTemplate);
+
+            TestTransaction.flagForCommit();
+            TestTransaction.end();
+
+            verify(messagingTemplate).convertAndSendToUser(eq("transporter1@test.com"), eq("/queue/notifications"), any());
+            verify(messagingTemplate).convertAndSendToUser(eq("transporter2@test.com"), eq("/queue/notifications"), any());
+            verify(messagingTemplate, never())
+                    .convertAndSendToUser(eq("transporter0@test.com"), any(), any());
+        } finally {
+            if (!TestTransaction.isActive()) {
+                deliveryApplicationRepository.deleteAll();
+                deliveryRequestRepository.deleteAll();
+                userRepository.deleteAll();
+            }
+        }
+    }
+
+    @Test
+    void rolledBackAcceptNotifiesNobody() {
+        deliveryService.acceptApplication(chosen.getId());
+
+        TestTransaction.end();
+
+        verifyNoInteractions(messagingTemplate);
+    }
+
+    private DeliveryApplication apply(User transporter) {
+        DeliveryApplication application = new DeliveryApplication();
+        application.setDeliveryRequest(open);
+        application.setTransporter(transporter);
+        application.setQuotedPrice(50.0);
+        return entityManager.persist(application);
+    }
+
+    private Map<String, ApplicationStatus> statuses() {
+        entityManager.clear();
+        return deliveryApplicationRepository.findByDeliveryRequest(open).stream()
+                .collect(Collectors.toMap(a -> a.getTransporter().getEmail(), DeliveryApplication::getStatus));
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.deliveryhub.service;
+
+import static com.example.deliveryhub.TestFixtures.customer;
+import static com.example.deliveryhub.TestFixtures.delivery;
+import static com.example.deliveryhub.TestFixtures.transporter;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.deliveryhub.dto.CancelDeliveryRequest;
+import com.example.deliveryhub.enums.PaymentMethod;
+import com.example.deliveryhub.enums.PaymentStatus;
+import com.example.deliveryhub.exception.DeliveryConflictException;
+import com.example.deliveryhub.model.DeliveryRequest;
+import com.example.deliveryhub.model.User;
+import com.example.deliveryhub.repository.DeliveryRequestRepository;
+import com.example.deliveryhub.repository.TransporterPricingRepository;
+import com.example.deliveryhub.repository.UserRepository;
+
+// Two services read the same delivery, then both save it. The repository is wrapped so
+// both reads finish before either write; the second writer holds a stale @Version and
+// must get DeliveryConflictException (409), not an ObjectOptimisticLockingFailureException (500).
+// Runs without the test transaction so each call commits on its own.
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class DeliveryVersionConflictTest {
+
+    @Autowired
+    private DeliveryRequestRepository deliveryRequestRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private DeliveryRequestRepository racingRepository;
+    private CyclicBarrier bothRead;
+    private Long deliveryId;
+
+    @BeforeEach
+    void setUp() {
+        User customer = userRepository.save(customer());
+        User transporter = userRepository.save(transporter());
+        DeliveryRequest assigned = delivery(customer, transporter, "ASSIGNED");
+        assigned.setPaymentMethod(PaymentMethod.COD);
+        deliveryId = deliveryRequestRepository.save(assigned).getId();
+
+        bothRead = new CyclicBarrier(2);
+        racingRepository = mock(DeliveryRequestRepository.class, delegatesTo(deliveryRequestRepository));
+        doAnswer(invocation -> {
+            Object found = deliveryRequestRepository.findById(invocation.getArgument(0));
+            bothRead.await(10, TimeUnit.SECONDS);
+            return found;
+        }).when(racingRepository).findById(any());
+    }
+
+    @AfterEach
+    void cleanUp() {
+        deliveryRequestRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void secondWriterOfAStaleDeliveryGetsAConflict() throws Exception {
+        AdminService adminService = new AdminService(null, racingRepository,
+                mock(DashboardCounterService.class), null, mock(TransporterStatsService.class));
+        PaymentService paymentService = new PaymentService(racingRepository, mock(TransporterPricingRepository.class));
+
+        CancelDeliveryRequest cancel = new CancelDeliveryRequest();
+        cancel.setDeliveryId(deliveryId);
+        cancel.setCancelReason("customer asked");
+
+        List<Throwable> failures = race(
+                () -> adminService.cancelDelivery(cancel),
+                () -> paymentService.markCashAsPaid(deliveryId));
+
+        assertThat(failures).hasSize(1);
+        assertThat(failures.get(0)).isInstanceOf(DeliveryConflictException.class);
+
+        // exactly one of the two changes went in, and the version moved once
+        DeliveryRequest stored = deliveryRequestRepository.findById(deliveryId).orElseThrow();
+        boolean cancelled = "CANCELLED".equals(stored.getStatus());
+        boolean paid = stored.getPaymentStatus() == PaymentStatus.PAID;
+        assertThat(cancelled ^ paid).isTrue();
+        assertThat(stored.getVersion()).isEqualTo(1L);
+    }
+
+    private static List<Throwable> race(Callable<?> first, Callable<?> second) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<?>> results = List.of(pool.submit(first), pool.submit(second));
+            List<Throwable> failures = new ArrayList<>();
+            for (Future<?> result : results) {
+                try {
+                    result.get(30, TimeUnit.SECONDS);
+                } catch (ExecutionException e) {
+                    failures.add(e.getCause());
+                }
+            }
+            return failures;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.deliveryhub.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Path;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.deliveryhub.dto.AttachmentDTO;
+import com.example.deliveryhub.dto.ChatMessageDTO;
+import com.example.deliveryhub.enums.ImageVariant;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ImageVariantServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private AttachmentStore attachmentStore;
+    private ImageVariantService imageVariantService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        attachmentStore = new AttachmentStore(dir.toString(), 20 * 1024 * 1024);
+        imageVariantService = new ImageVariantService(attachmentStore, new SimpleMeterRegistry(), 1, 10, 50_000_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        imageVariantService.stop();
+    }
+
+    @Test
+    void buildsBoundedVariantsForPhoto() throws Exception {
+        AttachmentDTO stored = attachmentStore.store(new ByteArrayInputStream(png(4000, 3000)), "photo.png");
+
+        imageVariantService.generate(stored.getKey());
+
+        BufferedImage web = ImageIO.read(attachmentStore.findVariant(stored.getKey(), ImageVariant.WEB).orElseThrow().toFile());
+        BufferedImage thumb = ImageIO.read(attachmentStore.findVariant(stored.getKey(), ImageVariant.THUMBNAIL).orElseThrow().toFile());
+        assertThat(web.getWidth()).isEqualTo(1280);
+        assertThat(web.getHeight()).isEqualTo(960);
+        assertThat(thumb.getWidth()).isEqualTo(320);
+        assertThat(thumb.getHeight()).isEqualTo(240);
+    }
+
+    @Test
+    void ignoresNonImagesAndUnreadableFiles() throws Exception {
+        AttachmentDTO pdf = attachmentStore.store(new ByteArrayInputStream(new byte[100]), "doc.pdf");
+        AttachmentDTO broken = attachmentStore.store(new ByteArrayInputStream(new byte[100]), "broken.jpg");
+
+        assertThat(imageVariantService.schedule(pdf.getKey())).isTrue();
+        imageVariantService.generate(broken.getKey());
+
+        assertThat(attachmentStore.findVariant(pdf.getKey(), ImageVariant.THUMBNAIL)).isEmpty();
+        assertThat(attachmentStore.findVariant(broken.getKey(), ImageVariant.THUMBNAIL)).isEmpty();
+    }
+
+    @Test
+    void unreadableImageIsNotQueuedAgainAfterFailing() throws Exception {
+        AttachmentDTO broken = attachmentStore.store(new ByteArrayInputStream(new byte[100]), "broken.jpg");
+        AttachmentDTO photo = attachmentStore.store(new ByteArrayInputStream(png(40, 30)), "photo.png");
+
+        imageVariantService.generate(broken.getKey());
+        imageVariantService.generate(photo.getKey());
+
+        assertThat(imageVariantService.recentlyFailed(broken.getKey())).isTrue();
+        assertThat(imageVariantService.recentlyFailed(photo.getKey())).isFalse();
+        assertThat(imageVariantService.schedule(broken.getKey())).isTrue();
+    }
+
+    @Test
+    void dtoExposesVariantUrlsForStoredImagesOnly() {
+        String key = "a".repeat(64) + ".jpg";
+        ChatMessageDTO image = ChatMessageDTO.builder().fileUrl(ImageVariant.ATTACHMENT_URL_PREFIX + key).build();
+        ChatMessageDTO legacy = ChatMessageDTO.builder().fileUrl("/uploads/chat/x_photo.jpg").build();
+
+        assertThat(image.getThumbnailUrl()).isEqualTo(ImageVariant.ATTACHMENT_URL_PREFIX + key + "/thumb");
+        assertThat(image.getWebUrl()).isEqualTo(ImageVariant.ATTACHMENT_URL_PREFIX + key + "/web");
+        assertThat(legacy.getThumbnailUrl()).isNull();
+    }
+
+    private static byte[] png(int width, int height) throws Exception {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int x = 0; x < width; x += 50) {
+            for (int y = 0; y < height; y++) {
+                image.setRGB(x, y, 0x3366cc);
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.deliveryhub.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Pageable;
+
+import com.example.deliveryhub.auth.JwtUtils;
+import com.example.deliveryhub.dto.JwtResponse;
+import com.example.deliveryhub.model.RefreshToken;
+import com.example.deliveryhub.model.Role;
+import com.example.deliveryhub.model.User;
+import com.example.deliveryhub.repository.RefreshTokenRepository;
+import com.example.deliveryhub.repository.UserRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class RefreshTokenServiceTest {
+
+    private static final String SECRET = "test-secret-test-secret-test-secret-0123456789";
+    private static final User CUSTOMER = User.builder().id(7L).email("customer@test.com").role(Role.CUSTOMER).build();
+
+    private final AtomicLong ids = new AtomicLong();
+    private RefreshTokenRepository refreshTokenRepository;
+    private SimpleMeterRegistry meterRegistry;
+    private RefreshTokenService refreshTokenService;
+
+    @BeforeEach
+    void setUp() {
+        refreshTokenRepository = mock(RefreshTokenRepository.class);
+        when(refreshTokenRepository.save(any(RefreshToken.class))).thenAnswer(inv -> {
+            RefreshToken token = inv.getArgument(0);
+            token.setId(ids.incrementAndGet());
+            return token;
+        });
+        when(refreshTokenRepository.markRotated(any(), any())).thenReturn(1);
+
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.getReferenceById(7L)).thenReturn(CUSTOMER);
+        UserCacheService userCacheService = mock(UserCacheService.class);
+        when(userCacheService.getByEmail("customer@test.com")).thenReturn(CUSTOMER);
+
+        meterRegistry = new SimpleMeterRegistry();
+        refreshTokenService = new RefreshTokenService(refreshTokenRepository, userRepository, userCacheService,
+                new JwtUtils(SECRET, 60_000, 600_000, 100), meterRegistry, 100, 3);
+    }
+
+    @Test
+    void storesOnlyTheHash() {
+        String token = refreshTokenService.createRefreshToken(CUSTOMER);
+
+        ArgumentCaptor<RefreshToken> saved = ArgumentCaptor.forClass(RefreshToken.class);
+        verify(refreshTokenRepository).save(saved.capture());
+        assertThat(saved.getValue().getTokenHash()).isEqualTo(RefreshTokenService.hash(token)).isNotEqualTo(token);
+        assertThat(saved.getValue().getExpiryDate()).isAfter(LocalDateTime.now().plusSeconds(590));
+    }
+
+    @Test
+    void refreshRotatesFromTheIndexWithoutReadingTheTable() {
+        String first = refreshTokenService.createRefreshToken(CUSTOMER);
+
+        JwtResponse response = refreshTokenService.refresh(first);
+
+        assertThat(response.getRefreshToken()).isNotEqualTo(first);
+        assertThat(response.getAccessToken()).isNotBlank();
+        verify(refreshTokenRepository).markRotated(eq(1L), any());
+        verify(refreshTokenRepository, never()).findByTokenHash(anyString());
+
+        // the replacement is indexed too
+        refreshTokenService.refresh(response.getRefreshToken());
+        verify(refreshTokenRepository, never()).findByTokenHash(anyString());
+        assertThat(meterRegistry.get("refresh.tokens.index").tag("result", "hit").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void reusingARotatedTokenRevokesEverySession() {
+        String first = refreshTokenService.createRefreshToken(CUSTOMER);
+        refreshTokenService.refresh(first);
+        when(refreshTokenRepository.findByTokenHash(RefreshTokenService.hash(first))).thenReturn(Optional.of(
+                RefreshToken.builder().id(1L).user(CUSTOMER).tokenHash(RefreshTokenService.hash(first))
+                        .expiryDate(LocalDateTime.now().plusMinutes(5)).rotatedAt(LocalDateTime.now()).build()));
+
+        assertThatThrownBy(() -> refreshTokenService.refresh(first)).hasMessageContaining("already used");
+
+        verify(refreshTokenRepository).deleteByUserId(7L);
+        assertThat(meterRegistry.get("refresh.tokens.reused").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void losingTheRotationRaceIsTreatedAsReuse() {
+        String token = refreshTokenService.createRefreshToken(CUSTOMER);
+        when(refreshTokenRepository.markRotated(any(), any())).thenReturn(0);
+
+        assertThatThrownBy(() -> refreshTokenService.refresh(token)).isInstanceOf(RuntimeException.class);
+
+        verify(refreshTokenRepository).deleteByUserId(7L);
+    }
+
+    @Test
+    void unknownTokensAreRejected() {
+        assertThatThrownBy(() -> refreshTokenService.refresh("unknown")).hasMessageContaining("Invalid refresh token");
+        assertThatThrownBy(() -> refreshTokenService.refresh("")).hasMessageContaining("Invalid refresh token");
+    }
+
+    @Test
+    void purgesExpiredRowsInChunks() {
+        when(refreshTokenRepository.findExpiredIds(any(), any(Pageable.class)))
+                .thenReturn(List.of(1L, 2L, 3L), List.of(4L));
+
+        refreshTokenService.deleteExpiredTokens();
+
+        verify(refreshTokenRepository, times(2)).findExpiredIds(any(), any(Pageable.class));
+        verify(refreshTokenRepository).deleteAllByIdInBatch(List.of(1L, 2L, 3L));
+        verify(refreshTokenRepository).deleteAllByIdInBatch(List.of(4L));
+        assertThat(meterRegistry.get("refresh.tokens.purged").counter().count()).isEqualTo(4);
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.deliveryhub.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.example.deliveryhub.dto.RouteMatchDTO;
+import com.example.deliveryhub.model.Role;
+import com.example.deliveryhub.model.TransporterRoute;
+import com.example.deliveryhub.model.User;
+import com.example.deliveryhub.repository.TransporterRouteRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class RouteIndexTest {
+
+    private static final Logger log = LoggerFactory.getLogger(RouteIndexTest.class);
+    private static final LocalDate BASE = LocalDate.now().plusDays(1);
+
+    private TransporterRouteRepository routeRepository;
+    private RouteIndex index;
+    private User transporter;
+
+    @BeforeEach
+    void setUp() {
+        routeRepository = mock(TransporterRouteRepository.class);
+        index = new RouteIndex(routeRepository, new SimpleMeterRegistry(), 100);
+        transporter = User.builder().id(7L).fullName("Karim").role(Role.TRANSPORTER).build();
+    }
+
+    @Test
+    void matchesCityPairIgnoringCaseAccentsAndPunctuation() {
+        index.put(route(1L, "Fès", "Casablanca", 0, 5), transporter);
+
+        assertThat(index.find(" fes ", "CASABLANCA", BASE.plusDays(2), 10))
+                .extracting(RouteMatchDTO::getRouteId).containsExactly(1L);
+        assertThat(index.find("Fes", "Casa-blanca", BASE.plusDays(2), 10)).isEmpty();
+        assertThat(index.find("Casablanca", "Fes", BASE.plusDays(2), 10)).isEmpty();
+        assertThat(index.find("Fes", "Casablanca", BASE.plusDays(6), 10)).isEmpty();
+        assertThat(RouteIndex.normalize("  Marrakech--Menara ")).isEqualTo("marrakech menara");
+    }
+
+    @Test
+    void followsUpdatesAndDeletes() {
+        TransporterRoute route = route(1L, "Rabat", "Tanger", 0, 3);
+        index.put(route, transporter);
+
+        route.setDropoffCity("Agadir");
+        index.put(route, transporter);
+        assertThat(index.find("Rabat", "Tanger", BASE, 10)).isEmpty();
+        assertThat(index.find("Rabat", "Agadir", BASE, 10)).hasSize(1);
+
+        route.setActive(false);
+        index.put(route, transporter);
+        assertThat(index.find("Rabat", "Agadir", BASE, 10)).isEmpty();
+
+        route.setActive(true);
+        index.put(route, transporter);
+        index.remove(1L);
+        assertThat(index.find("Rabat", "Agadir", BASE, 10)).isEmpty();
+        assertThat(index.size()).isZero();
+    }
+
+    @Test
+    void ordersByTravelDateAndCapsResults() {
+        for (long id = 1; id <= 5; id++) {
+            TransporterRoute route = route(id, "Oujda", "Nador", 0, 10);
+            route.setTravelDate(BASE.plusDays(20 - id));
+            index.put(route, transporter);
+        }
+
+        assertThat(index.find("Oujda", "Nador", BASE, 3))
+                .extracting(RouteMatchDTO::getRouteId).containsExactly(5L, 4L, 3L);
+    }
+
+    @Test
+    void reloadReplacesTheIndexFromTheDatabase() {
+        index.put(route(1L, "Rabat", "Fes", 0, 3), transporter);
+        when(routeRepository.findActiveRouteMatches(any())).thenReturn(List.of(
+                match(2L, "Rabat", "Fes", 0, 3)));
+
+        index.reload();
+
+        assertThat(index.find("Rabat", "Fes", BASE, 10))
+                .extracting(RouteMatchDTO::getRouteId).containsExactly(2L);
+        assertThat(index.size()).isEqualTo(1);
+    }
+
+    @Test
+    void keepsEditsMadeWhileReloading() {
+        when(routeRepository.findActiveRouteMatches(any())).thenAnswer(invocation -> {
+            // committed after the reload's snapshot was read
+            index.put(route(3L, "Rabat", "Fes", 0, 3), transporter);
+            return List.of(match(2L, "Rabat", "Fes", 0, 3));
+        });
+
+        index.reload();
+
+        assertThat(index.find("Rabat", "Fes", BASE, 10))
+                .extracting(RouteMatchDTO::getRouteId).containsExactlyInAnyOrder(2L, 3L);
+    }
+
+    // Stand-in for a JMH benchmark (not in this build): 100k active routes over 200 cities,
+    // random lookups after warm-up. Logs load time and ns/op; nothing is asserted on timings.
+    @Test
+    @Tag("benchmark")
+    void logsLookupLatencyAtOneHundredThousandRoutes() {
+        Random random = new Random(7);
+        int cities = 200;
+        List<RouteMatchDTO> matches = new ArrayList<>();
+        for (long id = 1; id <= 100_000; id++) {
+            int start = random.nextInt(90);
+            matches.add(match(id, "City " + random.nextInt(cities), "City " + random.nextInt(cities),
+                    start, start + random.nextInt(14)));
+        }
+        when(routeRepository.findActiveRouteMatches(any())).thenReturn(matches);
+        long loadStart = System.nanoTime();
+        index.reload();
+        long loadMs = (System.nanoTime() - loadStart) / 1_000_000;
+
+        int iterations = 200_000;
+        long found = 0;
+        for (int i = 0; i < iterations; i++) {
+            found += lookup(random, cities);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            found += lookup(random, cities);
+        }
+        long nsPerOp = (System.nanoTime() - start) / iterations;
+
+        log.info("RouteIndex: {} routes loaded in {} ms, lookup {} ns/op ({} matches seen)",
+                index.size(), loadMs, nsPerOp, found);
+        assertThat(index.size()).isEqualTo(100_000);
+    }
+
+    private int lookup(Random random, int cities) {
+        return index.find("city " + random.nextInt(cities), "CITY " + random.nextInt(cities),
+                BASE.plusDays(random.nextInt(100)), 50).size();
+    }
+
+    private static TransporterRoute route(Long id, String from, String to, int startDay, int endDay) {
+        return TransporterRoute.builder()
+                .id(id)
+                .pickupCity(from)
+                .dropoffCity(to)
+                .travelDate(BASE.plusDays(endDay + 1))
+                .pickupStartDate(BASE.plusDays(startDay))
+                .pickupEndDate(BASE.plusDays(endDay))
+                .active(true)
+                .build();
+    }
+
+    private static RouteMatchDTO match(Long id, String from, String to, int startDay, int endDay) {
+        return new RouteMatchDTO(id, 7L, "Karim", from, to, BASE.plusDays(endDay + 1),
+                BASE.plusDays(startDay), BASE.plusDays(endDay), null);
+    }
+}
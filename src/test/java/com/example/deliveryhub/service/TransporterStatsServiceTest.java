@@ -0,0 +1,158 @@
+package com.example.deliveryhub.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+
+import com.example.deliveryhub.config.TransporterStatsSeeder;
+import com.example.deliveryhub.model.Rating;
+import com.example.deliveryhub.model.Role;
+import com.example.deliveryhub.model.TransporterStats;
+import com.example.deliveryhub.model.User;
+import com.example.deliveryhub.repository.DeliveryRequestRepository;
+import com.example.deliveryhub.repository.RatingRepository;
+import com.example.deliveryhub.repository.TransporterStatsRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class TransporterStatsServiceTest {
+
+    private TransporterStatsRepository statsRepository;
+    private RatingRepository ratingRepository;
+    private DeliveryRequestRepository deliveryRepository;
+    private TransporterStatsService service;
+
+    @BeforeEach
+    void setUp() {
+        statsRepository = mock(TransporterStatsRepository.class);
+        ratingRepository = mock(RatingRepository.class);
+        deliveryRepository = mock(DeliveryRequestRepository.class);
+        service = new TransporterStatsService(statsRepository, ratingRepository, deliveryRepository, new ObjectMapper());
+    }
+
+    @Test
+    void enteringDeliveredIncrementsCompletedDeliveries() {
+        service.onDeliveryStatusChanged(7L, "IN_TRANSIT", "DELIVERED");
+
+        verify(statsRepository).incrementCompletedDeliveries(7L);
+        verify(statsRepository, never()).decrementCompletedDeliveries(anyLong());
+    }
+
+    @Test
+    void leavingDeliveredDecrementsCompletedDeliveries() {
+        service.onDeliveryStatusChanged(7L, "DELIVERED", "CANCELLED");
+
+        verify(statsRepository).decrementCompletedDeliveries(7L);
+        verify(statsRepository, never()).incrementCompletedDeliveries(anyLong());
+    }
+
+    @Test
+    void otherTransitionsLeaveCountersAlone() {
+        service.onDeliveryStatusChanged(7L, "ASSIGNED", "IN_TRANSIT");
+        service.onDeliveryStatusChanged(7L, "DELIVERED", "DELIVERED");
+        service.onDeliveryStatusChanged(null, "IN_TRANSIT", "DELIVERED");
+
+        verifyNoInteractions(statsRepository);
+    }
+
+    @Test
+    void transporterRatingAddsToSumAndRefreshesFeedback() {
+        User transporter = User.builder().id(7L).build();
+        when(ratingRepository.findTop3ByRevieweeIdOrderByTimestampDesc(7L)).thenReturn(List.of(
+                rating(transporter, 5, "Fast and careful"),
+                rating(transporter, 4, "  "),
+                rating(transporter, 3, "On time")));
+
+        service.onRatingSubmitted(rating(transporter, 5, "Fast and careful"));
+
+        verify(statsRepository).addRating(7L, 5);
+        verify(statsRepository).updateRecentFeedback(7L, "[\"Fast and careful\",\"On time\"]");
+    }
+
+    @Test
+    void ratingWithoutFeedbackSkipsFeedbackRefresh() {
+        service.onRatingSubmitted(rating(User.builder().id(7L).build(), 2, null));
+
+        verify(statsRepository).addRating(7L, 2);
+        verify(statsRepository, never()).updateRecentFeedback(anyLong(), any());
+    }
+
+    @Test
+    void customerRatingsAreIgnored() {
+        Rating rating = rating(User.builder().id(3L).build(), 4, "Nice customer");
+        rating.setRevieweeRole(Role.CUSTOMER);
+
+        service.onRatingSubmitted(rating);
+
+        verifyNoInteractions(statsRepository);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rebuildAllMergesRatingsAndDeliveriesPerTransporter() {
+        when(ratingRepository.sumAndCountGroupedByReviewee(Role.TRANSPORTER))
+                .thenReturn(List.<Object[]>of(new Object[] { 7L, 9L, 2L }));
+        when(ratingRepository.findTop3ByRevieweeIdOrderByTimestampDesc(7L))
+                .thenReturn(List.of(rating(User.builder().id(7L).build(), 5, "Great")));
+        when(deliveryRepository.countDeliveredGroupedByTransporter())
+                .thenReturn(List.<Object[]>of(new Object[] { 7L, 4L }, new Object[] { 8L, 1L }));
+
+        service.rebuildAll();
+
+        ArgumentCaptor<Collection<TransporterStats>> saved = ArgumentCaptor.forClass(Collection.class);
+        InOrder order = inOrder(statsRepository);
+        order.verify(statsRepository).deleteAllInBatch();
+        order.verify(statsRepository).saveAll(saved.capture());
+
+        Map<Long, TransporterStats> byId = new ArrayList<>(saved.getValue()).stream()
+                .collect(Collectors.toMap(TransporterStats::getTransporterId, Function.identity()));
+        assertThat(byId).containsOnlyKeys(7L, 8L);
+        assertThat(byId.get(7L).getRatingSum()).isEqualTo(9L);
+        assertThat(byId.get(7L).getRatingCount()).isEqualTo(2L);
+        assertThat(byId.get(7L).getAverageRating()).isEqualTo(4.5);
+        assertThat(byId.get(7L).getCompletedDeliveries()).isEqualTo(4L);
+        assertThat(byId.get(7L).getRecentFeedback()).containsExactly("Great");
+        assertThat(byId.get(8L).getRatingCount()).isZero();
+        assertThat(byId.get(8L).getCompletedDeliveries()).isEqualTo(1L);
+    }
+
+    @Test
+    void seederRebuildsOnlyAnEmptyTable() throws Exception {
+        TransporterStatsService statsService = mock(TransporterStatsService.class);
+        TransporterStatsSeeder seeder = new TransporterStatsSeeder(statsRepository, statsService);
+
+        when(statsRepository.count()).thenReturn(3L);
+        seeder.run();
+        verify(statsService, never()).rebuildAll();
+
+        when(statsRepository.count()).thenReturn(0L);
+        seeder.run();
+        verify(statsService).rebuildAll();
+    }
+
+    private static Rating rating(User reviewee, int stars, String feedback) {
+        return Rating.builder()
+                .reviewee(reviewee)
+                .revieweeRole(Role.TRANSPORTER)
+                .rating(stars)
+                .feedback(feedback)
+                .build();
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.deliveryhub.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.deliveryhub.repository.ChatMessageRepository;
+
+class UnreadCounterServiceTest {
+
+    private ChatMessageRepository chatMessageRepository;
+    private UnreadCounterService unreadCounterService;
+
+    @BeforeEach
+    void setUp() {
+        chatMessageRepository = mock(ChatMessageRepository.class);
+        when(chatMessageRepository.countUnreadGroupedByReceiverAndDelivery()).thenReturn(List.of(
+                new Object[] {"customer@test.com", 1L, 3L},
+                new Object[] {"customer@test.com", 2L, 1L},
+                new Object[] {"transporter@test.com", 1L, 2L}));
+        unreadCounterService = new UnreadCounterService(chatMessageRepository);
+        unreadCounterService.seed();
+    }
+
+    @Test
+    void seedsFromGroupedQuery() {
+        assertThat(unreadCounterService.countsFor("customer@test.com")).isEqualTo(Map.of(1L, 3, 2L, 1));
+        assertThat(unreadCounterService.countsFor("nobody@test.com")).isEmpty();
+    }
+
+    @Test
+    void followsSendsAndReads() {
+        unreadCounterService.messageSent("customer@test.com", 1L);
+        unreadCounterService.messageRead("customer@test.com", 2L);
+        unreadCounterService.allRead("transporter@test.com", 1L);
+        unreadCounterService.messageSent("transporter@test.com", 5L);
+
+        assertThat(unreadCounterService.countsFor("customer@test.com")).isEqualTo(Map.of(1L, 4));
+        assertThat(unreadCounterService.countsFor("transporter@test.com")).isEqualTo(Map.of(5L, 1));
+    }
+
+    @Test
+    void readNeverGoesBelowZero() {
+        unreadCounterService.messageRead("customer@test.com", 2L);
+        unreadCounterService.messageRead("customer@test.com", 2L);
+
+        assertThat(unreadCounterService.countFor("customer@test.com", 2L)).isZero();
+    }
+
+    @Test
+    void reconcileDropsReceiversWithNothingUnread() {
+        when(chatMessageRepository.countUnreadGroupedByReceiverAndDelivery()).thenReturn(List.<Object[]>of(
+                new Object[] {"transporter@test.com", 1L, 2L}));
+
+        unreadCounterService.reconcile();
+
+        assertThat(unreadCounterService.countsFor("customer@test.com")).isEmpty();
+        assertThat(unreadCounterService.countFor("transporter@test.com", 1L)).isEqualTo(2);
+    }
+
+    @Test
+    void reconcileKeepsChangesMadeWhileItQueries() {
+        when(chatMessageRepository.countUnreadGroupedByReceiverAndDelivery()).thenAnswer(inv -> {
+            // Committed after the grouped query took its snapshot
+            unreadCounterService.messageSent("customer@test.com", 1L);
+            unreadCounterService.messageSent("customer@test.com", 9L);
+            return List.<Object[]>of(
+                    new Object[] {"customer@test.com", 1L, 3L},
+                    new Object[] {"customer@test.com", 2L, 5L});
+        });
+
+        unreadCounterService.reconcile();
+
+        // 1 and 9 moved during the query so keep their live counts; 2 did not, so it takes the DB value
+        assertThat(unreadCounterService.countsFor("customer@test.com")).isEqualTo(Map.of(1L, 4, 2L, 5, 9L, 1));
+        assertThat(unreadCounterService.countsFor("transporter@test.com")).isEmpty();
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.deliveryhub.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.deliveryhub.model.Role;
+import com.example.deliveryhub.model.User;
+import com.example.deliveryhub.repository.UserRepository;
+
+class UserCacheServiceTest {
+
+    private UserRepository userRepository;
+    private UserCacheService userCacheService;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        when(userRepository.findByEmail("transporter@test.com")).thenAnswer(inv -> Optional.of(User.builder()
+                .id(3L).email("transporter@test.com").role(Role.TRANSPORTER).verified(false).build()));
+        userCacheService = new UserCacheService(userRepository, 60_000, 100);
+    }
+
+    @Test
+    void repeatedLookupsHitTheDatabaseOnce() {
+        for (int i = 0; i < 5; i++) {
+            assertThat(userCacheService.getByEmail("transporter@test.com").getId()).isEqualTo(3L);
+        }
+        verify(userRepository, times(1)).findByEmail("transporter@test.com");
+    }
+
+    @Test
+    void callersGetIndependentCopies() {
+        userCacheService.getByEmail("transporter@test.com").setVerified(true);
+
+        assertThat(userCacheService.getByEmail("transporter@test.com").isVerified()).isFalse();
+    }
+
+    @Test
+    void evictReloadsTheUser() {
+        userCacheService.getByEmail("transporter@test.com");
+        userCacheService.evict("transporter@test.com");
+        userCacheService.getByEmail("transporter@test.com");
+
+        verify(userRepository, times(2)).findByEmail("transporter@test.com");
+    }
+
+    @Test
+    void unknownUsersAreNotCached() {
+        assertThat(userCacheService.findByEmail("nobody@test.com")).isEmpty();
+        assertThat(userCacheService.findByEmail("nobody@test.com")).isEmpty();
+
+        verify(userRepository, times(2)).findByEmail("nobody@test.com");
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.deliveryhub.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+class ExpiringCacheTest {
+
+    private final AtomicLong now = new AtomicLong(1_000);
+
+    @Test
+    void entriesExpireOnTheirOwnDeadline() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, now::get);
+        cache.put("short", "a", 1_100);
+        cache.put("long", "b", 5_000);
+        cache.put("stale", "c", 500);
+
+        now.set(1_200);
+
+        assertThat(cache.get("short")).isNull();
+        assertThat(cache.get("long")).isEqualTo("b");
+        assertThat(cache.get("stale")).isNull();
+    }
+
+    @Test
+    void staysWithinMaxSize() {
+        ExpiringCache<Integer, Integer> cache = new ExpiringCache<>(100, now::get);
+        for (int i = 0; i < 1_000; i++) {
+            cache.put(i, i, 10_000);
+        }
+
+        assertThat(cache.size()).isLessThanOrEqualTo(100);
+        assertThat(cache.get(999)).isEqualTo(999);
+    }
+
+    @Test
+    void invalidatesByPredicate() {
+        ExpiringCache<String, Long> cache = new ExpiringCache<>(10, now::get);
+        cache.put("a", 1L, 10_000);
+        cache.put("b", 2L, 10_000);
+
+        cache.invalidateIf((key, userId) -> userId == 1L);
+
+        assertThat(cache.get("a")).isNull();
+        assertThat(cache.get("b")).isEqualTo(2L);
+    }
+}
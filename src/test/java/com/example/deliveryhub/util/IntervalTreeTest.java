@@ -0,0 +1,63 @@
+package com.example.deliveryhub.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.deliveryhub.util.IntervalTree.Interval;
+
+class IntervalTreeTest {
+
+    @Test
+    void stabbingMatchesInclusiveBounds() {
+        IntervalTree<String> tree = IntervalTree.of(List.of(
+                new Interval<>(10, 20, "a"),
+                new Interval<>(15, 15, "b"),
+                new Interval<>(21, 30, "c")));
+
+        assertThat(tree.stab(9)).isEmpty();
+        assertThat(tree.stab(10)).containsExactly("a");
+        assertThat(tree.stab(15)).containsExactlyInAnyOrder("a", "b");
+        assertThat(tree.stab(20)).containsExactly("a");
+        assertThat(tree.stab(21)).containsExactly("c");
+        assertThat(tree.stab(31)).isEmpty();
+    }
+
+    @Test
+    void agreesWithALinearScan() {
+        Random random = new Random(42);
+        List<Interval<Integer>> intervals = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            long start = random.nextInt(1_000);
+            intervals.add(new Interval<>(start, start + random.nextInt(60), i));
+        }
+        IntervalTree<Integer> tree = IntervalTree.of(intervals);
+
+        for (long point = -5; point < 1_070; point++) {
+            long p = point;
+            List<Integer> expected = intervals.stream()
+                    .filter(i -> i.start() <= p && i.end() >= p)
+                    .map(Interval::value)
+                    .toList();
+            assertThat(tree.stab(point)).containsExactlyInAnyOrderElementsOf(expected);
+        }
+    }
+
+    @Test
+    void writesReturnNewTrees() {
+        IntervalTree<String> empty = IntervalTree.empty();
+        IntervalTree<String> one = empty.with(new Interval<>(1, 5, "a"));
+        IntervalTree<String> two = one.with(new Interval<>(3, 8, "b"));
+        IntervalTree<String> back = two.without("a"::equals);
+
+        assertThat(empty.isEmpty()).isTrue();
+        assertThat(one.stab(4)).containsExactly("a");
+        assertThat(two.stab(4)).containsExactlyInAnyOrder("a", "b");
+        assertThat(back.stab(4)).containsExactly("b");
+        assertThat(back.without("x"::equals)).isSameAs(back);
+    }
+}
@@ -0,0 +1,213 @@
+package com.example.deliveryhub.websocket;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.DispatcherServletAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.ServletWebServerFactoryAutoConfiguration;
+import org.springframework.boot.autoconfigure.websocket.servlet.WebSocketMessagingAutoConfiguration;
+import org.springframework.boot.autoconfigure.websocket.servlet.WebSocketServletAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.messaging.converter.StringMessageConverter;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompBrokerRelayMessageHandler;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import com.example.deliveryhub.auth.JwtUserPrincipal;
+import com.example.deliveryhub.config.WebSocketConfig;
+import com.example.deliveryhub.config.WebSocketJwtInterceptor;
+import com.example.deliveryhub.model.Role;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+// Two app nodes behind an external STOMP broker (EmbeddedStompBroker stands in for it):
+// a user connected to node A must get convertAndSendToUser calls made on node B.
+// Also logs throughput/latency of user-destination sends for relay vs. the simple broker.
+class BrokerRelayIntegrationTest {
+
+    private static final Logger log = LoggerFactory.getLogger(BrokerRelayIntegrationTest.class);
+    private static final int MEASURED_MESSAGES = 500;
+
+    private EmbeddedStompBroker broker;
+    private final List<ConfigurableApplicationContext> nodes = new ArrayList<>();
+    private WebSocketStompClient stompClient;
+    private ThreadPoolTaskScheduler clientScheduler;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        broker = new EmbeddedStompBroker();
+
+        clientScheduler = new ThreadPoolTaskScheduler();
+        clientScheduler.initialize();
+        stompClient = new WebSocketStompClient(new StandardWebSocketClient());
+        stompClient.setMessageConverter(new StringMessageConverter());
+        stompClient.setTaskScheduler(clientScheduler);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        nodes.forEach(ConfigurableApplicationContext::close);
+        clientScheduler.shutdown();
+        broker.close();
+    }
+
+    @Test
+    void userDestinationReachesUserConnectedToAnotherNode() throws Exception {
+        ConfigurableApplicationContext nodeA = startNode("relay");
+        ConfigurableApplicationContext nodeB = startNode("relay");
+        awaitBroker(nodeA);
+        awaitBroker(nodeB);
+
+        BlockingQueue<String> inbox = connectAndSubscribe(nodeA, "alice@test.com");
+        SimpMessagingTemplate templateB = nodeB.getBean(SimpMessagingTemplate.class);
+
+        templateB.convertAndSendToUser("alice@test.com", "/queue/notifications", "hello from B");
+        assertThat(inbox.poll(10, TimeUnit.SECONDS)).isEqualTo("hello from B");
+
+        measure("relay, cross-node", templateB, inbox);
+    }
+
+    @Test
+    void simpleBrokerBaseline() throws Exception {
+        ConfigurableApplicationContext node = startNode("simple");
+
+        BlockingQueue<String> inbox = connectAndSubscribe(node, "alice@test.com");
+        SimpMessagingTemplate template = node.getBean(SimpMessagingTemplate.class);
+
+        template.convertAndSendToUser("alice@test.com", "/queue/notifications", "hello");
+        assertThat(inbox.poll(10, TimeUnit.SECONDS)).isEqualTo("hello");
+
+        measure("simple, same node", template, inbox);
+    }
+
+    private void measure(String mode, SimpMessagingTemplate template, BlockingQueue<String> inbox) throws Exception {
+        List<Long> latenciesMicros = new ArrayList<>(MEASURED_MESSAGES);
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_MESSAGES; i++) {
+            template.convertAndSendToUser("alice@test.com", "/queue/notifications", String.valueOf(System.nanoTime()));
+        }
+        for (int i = 0; i < MEASURED_MESSAGES; i++) {
+            String sentAt = inbox.poll(10, TimeUnit.SECONDS);
+            assertThat(sentAt).isNotNull();
+            latenciesMicros.add(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - Long.parseLong(sentAt)));
+        }
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        Collections.sort(latenciesMicros);
+        log.info("{}: {} msg/s, latency p50 {} us, p99 {} us",
+                mode,
+                String.format("%.0f", MEASURED_MESSAGES / seconds),
+                latenciesMicros.get(latenciesMicros.size() / 2),
+                latenciesMicros.get((int) (latenciesMicros.size() * 0.99)));
+    }
+
+    private ConfigurableApplicationContext startNode(String brokerMode) {
+        ConfigurableApplicationContext node = new SpringApplicationBuilder(NodeConfig.class)
+                .properties(
+                        "server.port=0",
+                        "spring.main.banner-mode=off",
+                        "websocket.broker.mode=" + brokerMode,
+                        "websocket.broker.relay-host=127.0.0.1",
+                        "websocket.broker.relay-port=" + broker.port())
+                .run();
+        nodes.add(node);
+        return node;
+    }
+
+    private void awaitBroker(ConfigurableApplicationContext node) throws InterruptedException {
+        StompBrokerRelayMessageHandler relay = node.getBean(StompBrokerRelayMessageHandler.class);
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!relay.isBrokerAvailable() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(relay.isBrokerAvailable()).isTrue();
+    }
+
+    private BlockingQueue<String> connectAndSubscribe(ConfigurableApplicationContext node, String email)
+            throws Exception {
+        int port = ((ServletWebServerApplicationContext) node).getWebServer().getPort();
+        StompSession session = stompClient
+                .connectAsync("ws://localhost:" + port + "/ws/websocket?user=" + email, new StompSessionHandlerAdapter() {
+                })
+                .get(10, TimeUnit.SECONDS);
+
+        BlockingQueue<String> inbox = new LinkedBlockingQueue<>();
+        CountDownLatch subscribed = new CountDownLatch(1);
+        session.setAutoReceipt(true);
+        session.subscribe("/user/queue/notifications", new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return String.class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                inbox.add((String) payload);
+            }
+        }).addReceiptTask(subscribed::countDown);
+        assertThat(subscribed.await(10, TimeUnit.SECONDS)).isTrue();
+        return inbox;
+    }
+
+    // Just the WebSocket/STOMP slice of the app: the real WebSocketConfig, no DB or security
+    @Configuration(proxyBeanMethods = false)
+    @ImportAutoConfiguration({
+            ServletWebServerFactoryAutoConfiguration.class,
+            DispatcherServletAutoConfiguration.class,
+            JacksonAutoConfiguration.class,
+            WebSocketServletAutoConfiguration.class,
+            WebSocketMessagingAutoConfiguration.class })
+    @Import({ WebSocketConfig.class, WebSocketSessionRegistry.class })
+    static class NodeConfig {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        // Authenticates from ?user=<email> instead of a JWT
+        @Bean
+        WebSocketJwtInterceptor webSocketJwtInterceptor() {
+            return new WebSocketJwtInterceptor(null, null, null, null) {
+                @Override
+                public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                               WebSocketHandler wsHandler, Map<String, Object> attributes) {
+                    String email = request.getURI().getQuery().substring("user=".length());
+                    attributes.put(WebSocketJwtInterceptor.USER_ATTRIBUTE, new JwtUserPrincipal(null, email, Role.CUSTOMER));
+                    return true;
+                }
+            };
+        }
+    }
+}
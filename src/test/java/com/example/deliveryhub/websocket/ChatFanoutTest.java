@@ -0,0 +1,96 @@
+package com.example.deliveryhub.websocket;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import com.example.deliveryhub.dto.ChatMessageDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ChatFanoutTest {
+
+    private SimpMessagingTemplate messagingTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private WebSocketSessionRegistry sessionRegistry;
+    private ChatFanout chatFanout;
+
+    @BeforeEach
+    void setUp() {
+        messagingTemplate = mock(SimpMessagingTemplate.class);
+        meterRegistry = new SimpleMeterRegistry();
+        sessionRegistry = mock(WebSocketSessionRegistry.class);
+        when(sessionRegistry.isOnline(anyString())).thenReturn(true);
+        chatFanout = new ChatFanout(messagingTemplate, new ObjectMapper().registerModule(new JavaTimeModule()),
+                sessionRegistry, meterRegistry, 50);
+    }
+
+    @AfterEach
+    void tearDown() {
+        chatFanout.stop();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void chatMessageGoesOutOncePerDestination() {
+        ChatMessageDTO message = ChatMessageDTO.builder()
+                .id(7L).matchId(3L).senderId(1L).senderName("Customer")
+                .content("hello").timestamp(LocalDateTime.now()).build();
+
+        chatFanout.publishMessage(message, "transporter@test.com", 1);
+
+        ArgumentCaptor<Message<byte[]>> frame = ArgumentCaptor.forClass(Message.class);
+        verify(messagingTemplate).send(eq("/topic/delivery.3.chat"), frame.capture());
+        verify(messagingTemplate).send(eq("/user/transporter@test.com/queue/notifications"), any());
+        assertThat(new String(frame.getValue().getPayload(), StandardCharsets.UTF_8)).contains("\"content\":\"hello\"");
+
+        assertThat(meterRegistry.get("chat.fanout.message.frames").summary().totalAmount()).isEqualTo(2);
+        assertThat(meterRegistry.get("chat.fanout.message.bytes").summary().totalAmount()).isPositive();
+    }
+
+    @Test
+    void offlineReceiverOnlyGetsTheRoomBroadcast() {
+        when(sessionRegistry.isOnline("transporter@test.com")).thenReturn(false);
+        ChatMessageDTO message = ChatMessageDTO.builder()
+                .id(8L).matchId(3L).senderId(1L).senderName("Customer").content("anyone?").build();
+
+        chatFanout.publishMessage(message, "transporter@test.com", 2);
+
+        verify(messagingTemplate).send(eq("/topic/delivery.3.chat"), any());
+        verify(messagingTemplate, times(1)).send(any(String.class), any());
+        assertThat(meterRegistry.get("chat.fanout.skipped.offline").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void badgeBurstIsCoalescedIntoLatestValue() {
+        for (int unread = 1; unread <= 5; unread++) {
+            chatFanout.badge("customer@test.com", 3L, unread);
+        }
+
+        ArgumentCaptor<Message<byte[]>> frame = ArgumentCaptor.forClass(Message.class);
+        verify(messagingTemplate, timeout(1000).times(1))
+                .send(eq("/user/customer@test.com/queue/chat.3.count"), frame.capture());
+        assertThat(new String(frame.getValue().getPayload(), StandardCharsets.UTF_8)).isEqualTo("5");
+        assertThat(meterRegistry.get("chat.fanout.badges.coalesced").counter().count()).isEqualTo(4);
+        verify(messagingTemplate, times(1)).send(any(String.class), any());
+    }
+}
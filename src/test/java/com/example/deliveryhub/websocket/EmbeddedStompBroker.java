@@ -0,0 +1,195 @@
+package com.example.deliveryhub.websocket;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Minimal in-process STOMP 1.2 broker over TCP, a stand-in for RabbitMQ/ActiveMQ in tests
+// of websocket.broker.mode=relay. Supports what the Spring relay uses: CONNECT, SUBSCRIBE,
+// UNSUBSCRIBE, SEND (exact destination match, custom headers forwarded), DISCONNECT and
+// receipts. Heart-beats are declined (0,0).
+final class EmbeddedStompBroker implements AutoCloseable {
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService connections = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "embedded-stomp-broker");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Map<String, List<Subscription>> subscriptions = new ConcurrentHashMap<>();
+    private final AtomicLong messageIds = new AtomicLong();
+
+    private record Subscription(Connection connection, String id) {
+    }
+
+    private record Frame(String command, Map<String, String> headers, byte[] body) {
+    }
+
+    EmbeddedStompBroker() throws IOException {
+        this.serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        connections.submit(this::acceptLoop);
+    }
+
+    int port() {
+        return serverSocket.getLocalPort();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        connections.shutdownNow();
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.submit(() -> new Connection(socket).run());
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private final class Connection {
+
+        private final Socket socket;
+        private OutputStream out;
+
+        Connection(Socket socket) {
+            this.socket = socket;
+        }
+
+        void run() {
+            try (socket) {
+                InputStream in = new BufferedInputStream(socket.getInputStream());
+                out = socket.getOutputStream();
+                Frame frame;
+                while ((frame = read(in)) != null) {
+                    if (!handle(frame)) {
+                        return;
+                    }
+                }
+            } catch (IOException e) {
+                // connection dropped
+            } finally {
+                subscriptions.values().forEach(subs -> subs.removeIf(s -> s.connection() == this));
+            }
+        }
+
+        private boolean handle(Frame frame) throws IOException {
+            Map<String, String> headers = frame.headers();
+            switch (frame.command()) {
+                case "CONNECT", "STOMP" -> write("CONNECTED", Map.of("version", "1.2", "heart-beat", "0,0"), new byte[0]);
+                case "SUBSCRIBE" -> subscriptions
+                        .computeIfAbsent(headers.get("destination"), d -> new CopyOnWriteArrayList<>())
+                        .add(new Subscription(this, headers.get("id")));
+                case "UNSUBSCRIBE" -> subscriptions.values()
+                        .forEach(subs -> subs.removeIf(s -> s.connection() == this && s.id().equals(headers.get("id"))));
+                case "SEND" -> publish(frame);
+                case "DISCONNECT" -> {
+                    receipt(headers);
+                    return false;
+                }
+                default -> {
+                    // ACK/NACK/BEGIN/... are not needed by the relay
+                }
+            }
+            receipt(headers);
+            return true;
+        }
+
+        private void receipt(Map<String, String> headers) throws IOException {
+            String receipt = headers.get("receipt");
+            if (receipt != null) {
+                write("RECEIPT", Map.of("receipt-id", receipt), new byte[0]);
+            }
+        }
+
+        private void publish(Frame frame) {
+            String destination = frame.headers().get("destination");
+            for (Subscription subscription : subscriptions.getOrDefault(destination, List.of())) {
+                Map<String, String> headers = new LinkedHashMap<>(frame.headers());
+                headers.remove("receipt");
+                headers.remove("content-length");
+                headers.put("subscription", subscription.id());
+                headers.put("message-id", String.valueOf(messageIds.incrementAndGet()));
+                try {
+                    subscription.connection().write("MESSAGE", headers, frame.body());
+                } catch (IOException e) {
+                    // subscriber went away, its cleanup removes the subscription
+                }
+            }
+        }
+
+        synchronized void write(String command, Map<String, String> headers, byte[] body) throws IOException {
+            StringBuilder head = new StringBuilder(command).append('\n');
+            headers.forEach((name, value) -> head.append(name).append(':').append(value).append('\n'));
+            head.append("content-length:").append(body.length).append("\n\n");
+            out.write(head.toString().getBytes(StandardCharsets.UTF_8));
+            out.write(body);
+            out.write(0);
+            out.flush();
+        }
+    }
+
+    private static Frame read(InputStream in) throws IOException {
+        String command;
+        do {
+            command = readLine(in);
+            if (command == null) {
+                return null;
+            }
+        } while (command.isEmpty()); // heart-beat EOLs between frames
+
+        Map<String, String> headers = new LinkedHashMap<>();
+        String line;
+        while ((line = readLine(in)) != null && !line.isEmpty()) {
+            int colon = line.indexOf(':');
+            // first occurrence wins, per the spec
+            headers.putIfAbsent(line.substring(0, colon), line.substring(colon + 1));
+        }
+
+        byte[] body;
+        String contentLength = headers.get("content-length");
+        if (contentLength != null) {
+            body = in.readNBytes(Integer.parseInt(contentLength));
+            in.read(); // trailing NULL
+        } else {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            int b;
+            while ((b = in.read()) > 0) {
+                buffer.write(b);
+            }
+            body = buffer.toByteArray();
+        }
+        return new Frame(command, headers, body);
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != -1) {
+            if (b == '\n') {
+                String value = line.toString(StandardCharsets.UTF_8);
+                return value.endsWith("\r") ? value.substring(0, value.length() - 1) : value;
+            }
+            line.write(b);
+        }
+        return null;
+    }
+}
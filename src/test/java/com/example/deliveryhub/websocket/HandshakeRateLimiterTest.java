@@ -0,0 +1,64 @@
+package com.example.deliveryhub.websocket;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class HandshakeRateLimiterTest {
+
+    private final AtomicLong now = new AtomicLong(1_700_000_000_000L);
+    private SimpleMeterRegistry meterRegistry;
+    private HandshakeRateLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        limiter = new HandshakeRateLimiter(meterRegistry, 3, 1, 2, 0.5, 4, now::get);
+    }
+
+    @Test
+    void allowsBurstThenRefillsAtRate() {
+        assertThat(limiter.tryAcquireForIp("10.0.0.1")).isTrue();
+        assertThat(limiter.tryAcquireForIp("10.0.0.1")).isTrue();
+        assertThat(limiter.tryAcquireForIp("10.0.0.1")).isTrue();
+        assertThat(limiter.tryAcquireForIp("10.0.0.1")).isFalse();
+        // other clients are unaffected
+        assertThat(limiter.tryAcquireForIp("10.0.0.2")).isTrue();
+
+        now.addAndGet(1_000);
+        assertThat(limiter.tryAcquireForIp("10.0.0.1")).isTrue();
+        assertThat(limiter.tryAcquireForIp("10.0.0.1")).isFalse();
+
+        assertThat(meterRegistry.get("websocket.handshake.throttled").tag("key", "ip").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void limitsUsersIndependentlyOfTheirAddress() {
+        assertThat(limiter.tryAcquireForUser("customer@test.com")).isTrue();
+        assertThat(limiter.tryAcquireForUser("customer@test.com")).isTrue();
+        assertThat(limiter.tryAcquireForUser("customer@test.com")).isFalse();
+
+        // 0.5/s: one more handshake after two seconds
+        now.addAndGet(2_000);
+        assertThat(limiter.tryAcquireForUser("customer@test.com")).isTrue();
+        assertThat(limiter.tryAcquireForIp(null)).isTrue();
+    }
+
+    @Test
+    void dropsIdleBucketsWhenFull() {
+        for (int i = 0; i < 4; i++) {
+            limiter.tryAcquireForIp("10.0.0." + i);
+        }
+        assertThat(limiter.size()).isEqualTo(4);
+
+        now.addAndGet(10_000);
+        limiter.tryAcquireForIp("10.0.1.1");
+
+        assertThat(limiter.size()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.deliveryhub.websocket;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.messaging.simp.user.SimpUser;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+
+class WebSocketSessionRegistryTest {
+
+    private SimpUserRegistry simpUserRegistry;
+    private WebSocketSessionRegistry registry;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        simpUserRegistry = mock(SimpUserRegistry.class);
+        ObjectProvider<SimpUserRegistry> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(simpUserRegistry);
+        registry = new WebSocketSessionRegistry(provider, 2);
+    }
+
+    @Test
+    void tracksPresenceUntilLastSessionDisconnects() {
+        registry.tryConnect("s1", 1L, "alice@test.com");
+        registry.tryConnect("s2", 1L, "alice@test.com");
+
+        registry.disconnect("s1");
+        assertThat(registry.isOnline(1L)).isTrue();
+        assertThat(registry.isOnline("alice@test.com")).isTrue();
+
+        registry.disconnect("s2");
+        assertThat(registry.isOnline(1L)).isFalse();
+        assertThat(registry.isOnline("alice@test.com")).isFalse();
+        assertThat(registry.getSessions()).isEmpty();
+    }
+
+    @Test
+    void capsConnectionsPerUser() {
+        assertThat(registry.tryConnect("s1", 1L, "alice@test.com")).isTrue();
+        assertThat(registry.tryConnect("s2", 1L, "alice@test.com")).isTrue();
+        assertThat(registry.tryConnect("s3", 1L, "alice@test.com")).isFalse();
+        assertThat(registry.tryConnect("s4", 2L, "bob@test.com")).isTrue();
+
+        registry.disconnect("s1");
+        assertThat(registry.tryConnect("s3", 1L, "alice@test.com")).isTrue();
+        assertThat(registry.sessionCount("alice@test.com")).isEqualTo(2);
+    }
+
+    @Test
+    void userOnAnotherNodeIsOnline() {
+        when(simpUserRegistry.getUser("carol@test.com")).thenReturn(mock(SimpUser.class));
+
+        assertThat(registry.isOnline("carol@test.com")).isTrue();
+        assertThat(registry.isOnline("dave@test.com")).isFalse();
+    }
+}